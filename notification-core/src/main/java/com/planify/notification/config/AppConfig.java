@@ -1,14 +1,149 @@
 package com.planify.notification.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 @Configuration
 public class AppConfig {
 
+    /**
+     * HTTP klient za user-service. Privzeto (user-service.http.client=pooled) je to Apache HttpClient s poolom
+     * povezav; z jdk se uporabi JDK HttpClient na virtualnih nitih, ki podpira tudi HTTP/2.
+     */
+    @Bean
+    public RestClient userServiceRestClient(ClientHttpRequestFactory userServiceRequestFactory,
+                                            @Value("${user-service.base-url:http://localhost:8082}") String baseUrl) {
+        return RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(userServiceRequestFactory)
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @ConditionalOnProperty(name = "user-service.http.client", havingValue = "pooled", matchIfMissing = true)
+    public ClientHttpRequestFactory pooledUserServiceRequestFactory(HttpClientSettings userServiceHttpSettings,
+                                                                    MeterRegistry meterRegistry) {
+        return pooledRequestFactory(userServiceHttpSettings, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "user-service.http.client", havingValue = "jdk")
+    public ClientHttpRequestFactory jdkUserServiceRequestFactory(HttpClientSettings userServiceHttpSettings) {
+        return jdkRequestFactory(userServiceHttpSettings);
+    }
+
+    @Bean
+    public HttpClientSettings userServiceHttpSettings(
+            @Value("${user-service.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${user-service.http.read-timeout-ms:5000}") long readTimeoutMs,
+            @Value("${user-service.http.pool-timeout-ms:1000}") long poolTimeoutMs,
+            @Value("${user-service.http.max-connections:50}") int maxConnections,
+            @Value("${user-service.http.max-connections-per-route:25}") int maxConnectionsPerRoute,
+            @Value("${user-service.http.keep-alive-ms:30000}") long keepAliveMs,
+            @Value("${user-service.http.http2:false}") boolean http2) {
+        return new HttpClientSettings(connectTimeoutMs, readTimeoutMs, poolTimeoutMs, maxConnections,
+                maxConnectionsPerRoute, keepAliveMs, http2);
+    }
+
+    /**
+     * Apache HttpClient s poolom povezav (keep-alive, omejitev povezav na route, timeouti).
+     * Zasedenost poola je na voljo kot notification.user_service.pool.* metrike.
+     */
+    public static ClientHttpRequestFactory pooledRequestFactory(HttpClientSettings settings, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(settings.connectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(settings.readTimeoutMs()))
+                        .build())
+                .build();
+
+        TimeValue keepAlive = TimeValue.ofMilliseconds(settings.keepAliveMs());
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                // Povezave ostanejo odprte največ keep-alive-ms (ali manj, če tako zahteva strežnik)
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(server) && server.compareTo(keepAlive) < 0 ? server : keepAlive;
+                })
+                .evictIdleConnections(keepAlive)
+                .evictExpiredConnections()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(settings.poolTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(settings.readTimeoutMs()))
+                        .build())
+                .build();
+
+        registerPoolGauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+        Gauge.builder("notification.user_service.pool.max", connectionManager, manager -> manager.getTotalStats().getMax())
+                .description("Maximum connections to user-service")
+                .register(meterRegistry);
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * JDK HttpClient na virtualnih nitih; povezave pooli JDK sam, HTTP/2 se uporabi, če ga strežnik podpira.
+     */
+    public static ClientHttpRequestFactory jdkRequestFactory(HttpClientSettings settings) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.connectTimeoutMs()))
+                .version(settings.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(settings.readTimeoutMs()));
+        return requestFactory;
+    }
+
+    private static void registerPoolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                          String state, Function<PoolStats, Integer> value) {
+        Gauge.builder("notification.user_service.pool.connections", connectionManager,
+                        manager -> value.apply(manager.getTotalStats()))
+                .description("Connections to user-service by state (pending = requests waiting for a connection)")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nastavitve HTTP klienta (user-service.http.*).
+     *
+     * @param poolTimeoutMs koliko časa zahteva čaka na prosto povezavo iz poola
+     * @param keepAliveMs   kako dolgo ostane neuporabljena povezava odprta
+     * @param http2         le za user-service.http.client=jdk
+     */
+    public record HttpClientSettings(long connectTimeoutMs,
+                                     long readTimeoutMs,
+                                     long poolTimeoutMs,
+                                     int maxConnections,
+                                     int maxConnectionsPerRoute,
+                                     long keepAliveMs,
+                                     boolean http2) {
     }
-}
\ No newline at end of file
+}
@@ -1,131 +1,140 @@
 package com.planify.notification.config;
 
-import com.planify.notification.event.*;
+import com.planify.notification.kafka.NotificationTopics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.support.serializer.DelegatingByTopicDeserializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @Configuration
 @Profile("!azure")
 public class KafkaConsumerConfig {
 
     /**
-     * ContainerFactory za join-request-responded topic, desirializira vrednosti v objekt tipa JoinRequestRespondedEvent.
+     * En ContainerFactory za vse topice. Vrednost zapisa se deserializira glede na topic
+     * (DelegatingByTopicDeserializer), tako da en consumer lahko bere vse topice in njihove retry topice.
+     * Neberljiv zapis ne ustavi poll-a (ErrorHandlingDeserializer), ampak pride do listenerja brez vrednosti in gre na DLT.
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, JoinRequestRespondedEvent> joinRequestsRespondedKafkaListenerContainerFactory(
-            ConsumerFactory<Object, Object> defaultConsumerFactory) {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> notificationKafkaListenerContainerFactory(
+            ConsumerFactory<Object, Object> defaultConsumerFactory,
+            NotificationTopics topics,
+            DefaultErrorHandler notificationKafkaErrorHandler,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.consumer.concurrency:3}") int concurrency) {
         Map<String, Object> props = new HashMap<>(((DefaultKafkaConsumerFactory<?, ?>) defaultConsumerFactory).getConfigurationProperties());
         stripJsonDeserializerProps(props);
 
-        JsonDeserializer<JoinRequestRespondedEvent> valueDeserializer = new JsonDeserializer<>(JoinRequestRespondedEvent.class);
-        valueDeserializer.addTrustedPackages("*");
-        valueDeserializer.setUseTypeMapperForKey(false);
-        valueDeserializer.setUseTypeHeaders(false);
+        Map<Pattern, Deserializer<?>> delegates = new LinkedHashMap<>();
+        topics.eventTypes().forEach((topic, type) ->
+                delegates.put(Pattern.compile(Pattern.quote(topic) + "(\\.retry-\\d+)?"), jsonDeserializer(type)));
 
-        DefaultKafkaConsumerFactory<String, JoinRequestRespondedEvent> cf = new DefaultKafkaConsumerFactory<>(props,
-                new StringDeserializer(), valueDeserializer);
+        DefaultKafkaConsumerFactory<String, Object> cf = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new DelegatingByTopicDeserializer(delegates, new StringDeserializer())));
+        // Metrike consumerja (med njimi records-lag po topicu/particiji, tudi za retry topice)
+        cf.addListener(new MicrometerConsumerListener<>(meterRegistry));
 
-        ConcurrentKafkaListenerContainerFactory<String, JoinRequestRespondedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(cf);
+        factory.setConcurrency(concurrency);
+        factory.setCommonErrorHandler(notificationKafkaErrorHandler);
+        enableBatchListening(factory);
         return factory;
     }
 
     /**
-     * ContainerFactory za join-request-sent topic, deserializira vrednosti v objekt tipa JoinRequestsSentEvent.
+     * ContainerFactory za listenerje, ki berejo vse particije topica na vsaki repliki (topicPartitions, brez
+     * consumer skupine). Offseti se nikoli ne potrdijo, zato se na brokerju ne ustvari skupina in ob ponovnem
+     * zagonu ne ostane nobena; replika vedno začne na koncu topica (auto.offset.reset=latest).
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, JoinRequestsSentEvent> joinRequestsSentKafkaListenerContainerFactory(
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> assignedKafkaListenerContainerFactory(
             ConsumerFactory<Object, Object> defaultConsumerFactory) {
-        Map<String, Object> props = new HashMap<>(((DefaultKafkaConsumerFactory<?, ?>) defaultConsumerFactory).getConfigurationProperties());
-        stripJsonDeserializerProps(props);
-
-        JsonDeserializer<JoinRequestsSentEvent> valueDeserializer = new JsonDeserializer<>(JoinRequestsSentEvent.class);
-        valueDeserializer.addTrustedPackages("*");
-        valueDeserializer.setUseTypeMapperForKey(false);
-        valueDeserializer.setUseTypeHeaders(false);
-
-        DefaultKafkaConsumerFactory<String, JoinRequestsSentEvent> cf = new DefaultKafkaConsumerFactory<>(props,
-                new StringDeserializer(), valueDeserializer);
-
-        ConcurrentKafkaListenerContainerFactory<String, JoinRequestsSentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(cf);
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(defaultConsumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAssignmentCommitOption(ContainerProperties.AssignmentCommitOption.NEVER);
         return factory;
     }
 
     /**
-     * ContainerFactory za invitation-sent topic, deserializira vrednosti v objekt tipa InvitationSentEvent.
+     * Začasno ustavljanje posameznih particij (npr. retry topica do časa naslednjega zapisa). Scheduler za
+     * nadaljevanje ni bean, da ga @Scheduled opravila ne prevzamejo.
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, InvitationSentEvent> invitationsSentKafkaListenerContainerFactory(
-            ConsumerFactory<Object, Object> defaultConsumerFactory) {
-        Map<String, Object> props = new HashMap<>(((DefaultKafkaConsumerFactory<?, ?>) defaultConsumerFactory).getConfigurationProperties());
-        stripJsonDeserializerProps(props);
-
-        JsonDeserializer<InvitationSentEvent> valueDeserializer = new JsonDeserializer<>(InvitationSentEvent.class);
-        valueDeserializer.addTrustedPackages("*");
-        valueDeserializer.setUseTypeMapperForKey(false);
-        valueDeserializer.setUseTypeHeaders(false);
-
-        DefaultKafkaConsumerFactory<String, InvitationSentEvent> cf = new DefaultKafkaConsumerFactory<>(props,
-                new StringDeserializer(), valueDeserializer);
-
-        ConcurrentKafkaListenerContainerFactory<String, InvitationSentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(cf);
-        return factory;
+    public ListenerContainerPauseService listenerContainerPauseService(KafkaListenerEndpointRegistry registry) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("kafka-resume-");
+        scheduler.setDaemon(true);
+        scheduler.initialize();
+        return new ListenerContainerPauseService(registry, scheduler);
     }
 
     /**
-     * ContainerFactory za invitation-responded topic, deserializira vrednosti v objekt tipa InvitationRespondedEvent.
+     * Compacted topic s spremembami templatov (glej TemplateChangeBroadcaster). Za vsak template ostane le zadnji zapis.
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, InvitationRespondedEvent> invitationsRespondedKafkaListenerContainerFactory(
-            ConsumerFactory<Object, Object> defaultConsumerFactory) {
-        Map<String, Object> props = new HashMap<>(((DefaultKafkaConsumerFactory<?, ?>) defaultConsumerFactory).getConfigurationProperties());
-        stripJsonDeserializerProps(props);
-
-        JsonDeserializer<InvitationRespondedEvent> valueDeserializer = new JsonDeserializer<>(InvitationRespondedEvent.class);
-        valueDeserializer.addTrustedPackages("*");
-        valueDeserializer.setUseTypeMapperForKey(false);
-        valueDeserializer.setUseTypeHeaders(false);
-
-        DefaultKafkaConsumerFactory<String, InvitationRespondedEvent> cf = new DefaultKafkaConsumerFactory<>(props,
-                new StringDeserializer(), valueDeserializer);
-
-        ConcurrentKafkaListenerContainerFactory<String, InvitationRespondedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(cf);
-        return factory;
+    public NewTopic templateChangedTopic(@Value("${kafka.topics.template-changed}") String topic,
+                                         @Value("${kafka.retry.replicas:1}") int replicas) {
+        return TopicBuilder.name(topic).partitions(1).replicas(replicas).compact().build();
     }
 
     /**
-     * ContainerFactory za event-attendance-accepted topic, deserializira vrednosti v objekt tipa EventAttendanceAcceptedEvent.
+     * Topic za dostavo WebSocket obvestil na ostale replike (glej WebSocketBroadcastChannel).
+     * Sporočila so zanimiva le nekaj minut, zato je retencija kratka.
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, EventAttendanceAcceptedEvent> eventAttendanceAcceptedKafkaListenerContainerFactory(
-            ConsumerFactory<Object, Object> defaultConsumerFactory) {
-        Map<String, Object> props = new HashMap<>(((DefaultKafkaConsumerFactory<?, ?>) defaultConsumerFactory).getConfigurationProperties());
-        stripJsonDeserializerProps(props);
+    public NewTopic websocketBroadcastTopic(@Value("${kafka.topics.websocket-broadcast}") String topic,
+                                            @Value("${kafka.websocket.partitions:3}") int partitions,
+                                            @Value("${kafka.websocket.retention-ms:600000}") long retentionMs,
+                                            @Value("${kafka.retry.replicas:1}") int replicas) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .replicas(replicas)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(retentionMs))
+                .build();
+    }
 
-        JsonDeserializer<EventAttendanceAcceptedEvent> valueDeserializer = new JsonDeserializer<>(EventAttendanceAcceptedEvent.class);
+    private <T> JsonDeserializer<T> jsonDeserializer(Class<T> type) {
+        JsonDeserializer<T> valueDeserializer = new JsonDeserializer<>(type);
         valueDeserializer.addTrustedPackages("*");
         valueDeserializer.setUseTypeMapperForKey(false);
         valueDeserializer.setUseTypeHeaders(false);
+        return valueDeserializer;
+    }
 
-        DefaultKafkaConsumerFactory<String, EventAttendanceAcceptedEvent> cf = new DefaultKafkaConsumerFactory<>(props,
-                new StringDeserializer(), valueDeserializer);
-
-        ConcurrentKafkaListenerContainerFactory<String, EventAttendanceAcceptedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(cf);
-        return factory;
+    /**
+     * Listener dobi vse zapise enega poll-a naenkrat. Offsete potrjuje listener sam (MANUAL), ker se zapisi
+     * obdelujejo vzporedno po lanih in se za vsako particijo sme potrditi le do prvega neobdelanega zapisa.
+     */
+    private void enableBatchListening(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
     }
 
     private void stripJsonDeserializerProps(Map<String, Object> props) {
@@ -1,41 +1,95 @@
 package com.planify.notification.config;
 
+import com.planify.notification.kafka.RetryTopics;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.kafka.listener.KafkaListenerErrorHandler;
-import org.springframework.kafka.listener.ListenerExecutionFailedException;
-import org.springframework.messaging.Message;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @Profile("!azure")
 @Slf4j
 public class KafkaErrorHandlingConfig {
 
+    /**
+     * Producer za preusmerjanje zapisov na retry topice in DLT. Dogodki se zapišejo kot JSON (brez type headerjev,
+     * enako kot jih objavijo drugi servisi), neberljivi zapisi pa se prepišejo nespremenjeni (byte[]).
+     */
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<?, ?> defaultProducerFactory) {
+        Map<String, Object> props = new HashMap<>(defaultProducerFactory.getConfigurationProperties());
+        props.remove(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG);
+        props.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        Map<Class<?>, Serializer<?>> delegates = new LinkedHashMap<>();
+        delegates.put(byte[].class, new ByteArraySerializer());
+        delegates.put(Object.class, jsonSerializer);
+
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props,
+                new StringSerializer(), new DelegatingByTypeSerializer(delegates, true)));
+    }
+
+    /**
+     * Preusmeri neuspel zapis na naslednji retry topic oz. na DLT (glej RetryTopics).
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaTemplate<String, Object> kafkaTemplate,
+                                                                       RetryTopics retryTopics) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate, retryTopics::destination);
+        recoverer.setHeadersFunction(retryTopics::retryHeaders);
+        return recoverer;
+    }
+
+    /**
+     * Zadnja varovalka, če listener sam vrže izjemo (npr. commit offsetov ne uspe): batch se poskusi še dvakrat,
+     * nato se zapisi preusmerijo prek recovererja, namesto da bi particija obstala.
+     */
+    @Bean
+    public DefaultErrorHandler notificationKafkaErrorHandler(DeadLetterPublishingRecoverer deadLetterPublishingRecoverer) {
+        return new DefaultErrorHandler((record, exception) -> {
+            log.error("Record {}-{}@{} could not be processed, forwarding", record.topic(), record.partition(), record.offset(), exception);
+            deadLetterPublishingRecoverer.accept(record, exception);
+        }, new FixedBackOff(1000L, 2L));
+    }
+
+    /**
+     * Ustvari retry topice in DLT za vse vhodne topice.
+     */
     @Bean
-    public KafkaListenerErrorHandler kafkaListenerErrorHandler() {
-        return (message, exception) -> {
-            log.error("Error processing Kafka message: {}", message.getPayload());
-            
-            if (exception instanceof ListenerExecutionFailedException) {
-                ListenerExecutionFailedException listenerException = (ListenerExecutionFailedException) exception;
-                log.error("Listener execution failed: {}", listenerException.getMessage());
-                
-                // Preverimo ali je prišlo do napake pri konverziji tipov
-                if (listenerException.getCause() != null) {
-                    Throwable cause = listenerException.getCause();
-                    if (cause.getMessage() != null && cause.getMessage().contains("Cannot convert from")) {
-                        log.error("Type conversion error detected. Message sent to wrong topic or with wrong type.");
-                        log.error("Message headers: {}", ((Message<?>) message).getHeaders());
-                        log.error("Expected a different event type. Skipping this message.");
-                        return null;
-                    }
-                }
-            }
-            
-            log.error("Unhandled exception type", exception);
-            throw exception;
-        };
+    public KafkaAdmin.NewTopics retryAndDeadLetterTopics(RetryTopics retryTopics,
+                                                        @Value("${kafka.retry.partitions:3}") int partitions,
+                                                        @Value("${kafka.retry.replicas:1}") int replicas) {
+        List<NewTopic> newTopics = new ArrayList<>();
+        for (String topic : retryTopics.retryTopics()) {
+            newTopics.add(TopicBuilder.name(topic).partitions(partitions).replicas(replicas).build());
+        }
+        for (String topic : retryTopics.dltTopics()) {
+            newTopics.add(TopicBuilder.name(topic).partitions(partitions).replicas(replicas).build());
+        }
+        return new KafkaAdmin.NewTopics(newTopics.toArray(NewTopic[]::new));
     }
 }
@@ -0,0 +1,56 @@
+package com.planify.notification.controller;
+
+import com.planify.notification.kafka.DeadLetterReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications/kafka")
+@RequiredArgsConstructor
+@Slf4j
+@Profile("!azure")
+@Tag(name = "Kafka Dead Letters", description = "Admin endpoints for replaying Kafka events that could not be processed")
+@SecurityRequirement(name = "bearer-jwt")
+public class DeadLetterController {
+
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    /**
+     * Ponovno objavi zapise z DLT nazaj na vhodni topic.
+     */
+    @PostMapping("/dlt/{topic}/replay")
+    @Operation(
+        summary = "Replay dead-lettered events",
+        description = "Reads up to `limit` records from `<topic>.dlt` and republishes them unchanged to `<topic>`. Progress is committed, so each record is replayed once."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Number of replayed records"),
+        @ApiResponse(responseCode = "404", description = "Unknown topic", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR')")
+    public ResponseEntity<Map<String, Object>> replay(
+            @Parameter(description = "Input topic whose DLT should be replayed", required = true)
+            @PathVariable String topic,
+            @Parameter(description = "Maximum number of records to replay")
+            @RequestParam(defaultValue = "100") int limit) {
+        if (!deadLetterReplayService.isKnownTopic(topic)) {
+            return ResponseEntity.notFound().build();
+        }
+        int replayed = deadLetterReplayService.replay(topic, Math.max(1, Math.min(limit, 10_000)));
+        return ResponseEntity.ok(Map.of("topic", topic, "replayed", replayed));
+    }
+}
@@ -1,7 +1,11 @@
 package com.planify.notification.controller;
 
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.dto.InAppNotificationFeed;
+import com.planify.notification.dto.InAppNotificationSummary;
 import com.planify.notification.model.InAppNotification;
 import com.planify.notification.repository.InAppNotificationRepository;
+import com.planify.notification.service.UnreadCountService;
 import com.planify.notification.service.WebSocketNotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +18,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -21,7 +26,12 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -33,6 +43,10 @@ public class InAppNotificationController {
 
     private final InAppNotificationRepository inAppNotificationRepository;
     private final WebSocketNotificationService webSocketNotificationService;
+    private final UnreadCountService unreadCountService;
+
+    private static final int MAX_FEED_LIMIT = 100;
+    private static final int MAX_BULK_IDS = 500;
 
     /**
      * Pridobimo vsa obvestila določenega uporabnika (paginated)
@@ -40,7 +54,7 @@ public class InAppNotificationController {
     @GetMapping("/user/{userId}")
     @Operation(
         summary = "Get user's notifications",
-        description = "Returns a paginated list of in-app notifications for the specified user, ordered by creation date descending."
+        description = "Returns a paginated list of in-app notifications for the specified user, ordered by creation date descending. Deep pages get slower (COUNT and OFFSET); infinite-scroll clients should use `/user/{userId}/feed`."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved notifications",
@@ -59,25 +73,81 @@ public class InAppNotificationController {
     }
 
     /**
-     * Pridobimo samo neprebrana sporočila uporabnika
+     * Feed obvestil s kazalcem: vsaka stran je en range scan po indeksu (user_id, created_at, id),
+     * ne glede na to, kako globoko uporabnik pomakne seznam
+     */
+    @GetMapping("/user/{userId}/feed")
+    @Operation(
+        summary = "Get user's notification feed",
+        description = "Returns up to `limit` in-app notifications ordered by creation date descending, starting after `cursor`. Pass the returned `nextCursor` to load the next page; it is null on the last page. Default for infinite-scroll clients."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved notifications",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = InAppNotificationFeed.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('UPORABNIK','ADMINISTRATOR')")
+    public ResponseEntity<InAppNotificationFeed> getUserNotificationFeed(
+            @Parameter(required = true)
+            @PathVariable UUID userId,
+            @Parameter(description = "Cursor returned as `nextCursor` by the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of notifications (1-100)")
+            @RequestParam(defaultValue = "20") int limit) {
+        return feedPage(cursor, limit,
+                page -> inAppNotificationRepository.findFeed(userId, page),
+                (after, page) -> inAppNotificationRepository.findFeedAfter(userId, after.createdAt(), after.id(), page));
+    }
+
+    /**
+     * Pridobimo neprebrana sporočila uporabnika (povzetki, po straneh s kazalcem)
      */
     @GetMapping("/user/{userId}/unread")
     @Operation(
         summary = "Get user's unread notifications",
-        description = "Returns all unread in-app notifications for the specified user, ordered by creation date descending."
+        description = "Returns up to `limit` unread notification summaries for the specified user, ordered by creation date descending, starting after `cursor`. Summaries carry a message preview; fetch the full notification by id."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved unread notifications",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = InAppNotificationFeed.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('UPORABNIK','ADMINISTRATOR')")
+    public ResponseEntity<InAppNotificationFeed> getUserUnreadNotifications(
+            @Parameter(required = true)
+            @PathVariable UUID userId,
+            @Parameter(description = "Cursor returned as `nextCursor` by the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of notifications (1-100)")
+            @RequestParam(defaultValue = "20") int limit) {
+        return feedPage(cursor, limit,
+                page -> inAppNotificationRepository.findUnread(userId, page),
+                (after, page) -> inAppNotificationRepository.findUnreadAfter(userId, after.createdAt(), after.id(), page));
+    }
+
+    /**
+     * Pridobimo celotno obvestilo (sporočilo in metadata), ko ga uporabnik odpre
+     */
+    @GetMapping("/{notificationId}")
+    @Operation(
+        summary = "Get notification",
+        description = "Returns a single in-app notification with its full message and metadata."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved notification",
                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = InAppNotification.class))),
+        @ApiResponse(responseCode = "404", description = "Notification not found", content = @Content),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
     })
     @PreAuthorize("hasAnyRole('UPORABNIK','ADMINISTRATOR')")
-    public ResponseEntity<List<InAppNotification>> getUserUnreadNotifications(
+    public ResponseEntity<InAppNotification> getNotification(
             @Parameter(required = true)
-            @PathVariable UUID userId) {
-        List<InAppNotification> notifications = inAppNotificationRepository
-                .findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        return ResponseEntity.ok(notifications);
+            @PathVariable UUID notificationId) {
+        return inAppNotificationRepository.findById(notificationId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
@@ -97,7 +167,7 @@ public class InAppNotificationController {
     public ResponseEntity<Long> getUserUnreadNotificationCount(
             @Parameter(required = true)
             @PathVariable UUID userId) {
-        long count = inAppNotificationRepository.countByUserIdAndIsReadFalse(userId);
+        long count = unreadCountService.getUnreadCount(userId);
         return ResponseEntity.ok(count);
     }
 
@@ -137,36 +207,60 @@ public class InAppNotificationController {
     }
 
     /**
-     * Oznamčimo vsa obvestila uporabniku kot prebrana
+     * Oznamčimo vsa obvestila uporabniku kot prebrana (en UPDATE stavek, brez nalaganja obvestil)
      */
     @PutMapping("/user/{userId}/read-all")
     @Operation(
         summary = "Mark all notifications as read",
-        description = "Marks all unread notifications for the specified user as read. Sends real-time update via WebSocket."
+        description = "Marks all unread notifications for the specified user as read and returns how many were updated. Sends real-time update via WebSocket."
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "All notifications marked as read", content = @Content),
+        @ApiResponse(responseCode = "200", description = "All notifications marked as read; body contains the number of updated notifications"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
     })
     @PreAuthorize("hasAnyRole('UPORABNIK','ADMINISTRATOR')")
-    public ResponseEntity<Void> markAllAsRead(
+    public ResponseEntity<Map<String, Integer>> markAllAsRead(
             @Parameter(required = true)
             @PathVariable UUID userId) {
-        List<InAppNotification> unreadNotifications = inAppNotificationRepository
-                .findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        
-        LocalDateTime now = LocalDateTime.now();
-        unreadNotifications.forEach(notification -> {
-            notification.setIsRead(true);
-            notification.setReadAt(now);
-        });
-        
-        inAppNotificationRepository.saveAll(unreadNotifications);
-        
+        int updated = inAppNotificationRepository.markAllAsRead(userId, LocalDateTime.now());
+
         // Pošljemo posodobljeno število neprebranih obvestil uporabniku preko WebSocket-a
-        webSocketNotificationService.sendNotificationCountUpdate(userId);
-        
-        return ResponseEntity.ok().build();
+        if (updated > 0) {
+            webSocketNotificationService.sendNotificationCountUpdate(userId);
+        }
+
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    /**
+     * Označimo izbrana obvestila uporabnika kot prebrana (večkratna izbira v UI)
+     */
+    @PutMapping("/user/{userId}/read")
+    @Operation(
+        summary = "Mark selected notifications as read",
+        description = "Marks the given notifications of the specified user as read (at most 500 ids per request) and returns how many were updated. Ids of other users' or already read notifications are ignored."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Notifications marked as read; body contains the number of updated notifications"),
+        @ApiResponse(responseCode = "400", description = "No ids or too many ids", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('UPORABNIK','ADMINISTRATOR')")
+    public ResponseEntity<Map<String, Integer>> markSelectedAsRead(
+            @Parameter(required = true)
+            @PathVariable UUID userId,
+            @RequestBody List<UUID> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty() || notificationIds.size() > MAX_BULK_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        int updated = inAppNotificationRepository.markAsRead(userId, Set.copyOf(notificationIds), LocalDateTime.now());
+
+        // Pošljemo posodobljeno število neprebranih obvestil uporabniku preko WebSocket-a
+        if (updated > 0) {
+            webSocketNotificationService.sendNotificationCountUpdate(userId);
+        }
+
+        return ResponseEntity.ok(Map.of("updated", updated));
     }
 
     /**
@@ -217,14 +311,41 @@ public class InAppNotificationController {
     public ResponseEntity<Void> deleteAllUserNotifications(
             @Parameter(required = true)
             @PathVariable UUID userId) {
-        List<InAppNotification> notifications = inAppNotificationRepository
-                .findByUserIdOrderByCreatedAtDesc(userId);
-        
-        inAppNotificationRepository.deleteAll(notifications);
-        
+        int deleted = inAppNotificationRepository.deleteAllByUserId(userId);
+        log.debug("Deleted {} in-app notifications of user {}", deleted, userId);
+
         // Pošljemo posodobljeno število neprebranih obvestil uporabniku preko WebSocket-a
-        webSocketNotificationService.sendNotificationCountUpdate(userId);
-        
+        if (deleted > 0) {
+            webSocketNotificationService.sendNotificationCountUpdate(userId);
+        }
+
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<InAppNotificationFeed> feedPage(
+            String cursor,
+            int limit,
+            Function<Limit, List<InAppNotificationSummary>> firstPage,
+            BiFunction<FeedCursor, Limit, List<InAppNotificationSummary>> nextPage) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_FEED_LIMIT));
+
+        // Preberemo eno vrstico več, da vemo, ali obstaja naslednja stran
+        List<InAppNotificationSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = firstPage.apply(Limit.of(pageSize + 1));
+        } else {
+            Optional<FeedCursor> after = FeedCursor.decode(cursor);
+            if (after.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = nextPage.apply(after.get(), Limit.of(pageSize + 1));
+        }
+
+        if (rows.size() <= pageSize) {
+            return ResponseEntity.ok(new InAppNotificationFeed(rows, null));
+        }
+        List<InAppNotificationSummary> items = List.copyOf(rows.subList(0, pageSize));
+        InAppNotificationSummary last = items.get(pageSize - 1);
+        return ResponseEntity.ok(new InAppNotificationFeed(items, new FeedCursor(last.createdAt(), last.id()).encode()));
+    }
 }
@@ -1,12 +1,26 @@
 package com.planify.notification.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.dto.NotificationLogEntry;
+import com.planify.notification.dto.NotificationLogFilter;
+import com.planify.notification.dto.NotificationLogPage;
 import com.planify.notification.dto.NotificationTemplateRequest;
 import com.planify.notification.dto.SendNotificationRequest;
+import com.planify.notification.dto.UserContactBackfillResult;
+import com.planify.notification.event.UserUpdatedEvent;
 import com.planify.notification.model.NotificationLog;
+import com.planify.notification.model.NotificationStatus;
 import com.planify.notification.model.NotificationTemplate;
+import com.planify.notification.model.NotificationType;
 import com.planify.notification.repository.NotificationLogRepository;
 import com.planify.notification.repository.NotificationTemplateRepository;
+import com.planify.notification.service.NotificationLogPartitionMaintenance;
+import com.planify.notification.service.NotificationLogPartitionMaintenance.PartitionWindow;
+import com.planify.notification.service.NotificationLogQueryService;
 import com.planify.notification.service.NotificationService;
+import com.planify.notification.service.TemplateCache;
+import com.planify.notification.service.UserContactStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,11 +34,23 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -38,6 +64,19 @@ public class NotificationController {
     private final NotificationTemplateRepository templateRepository;
     private final NotificationLogRepository logRepository;
     private final NotificationService notificationService;
+    private final TemplateCache templateCache;
+    private final NotificationLogQueryService logQueryService;
+    private final NotificationLogPartitionMaintenance partitionMaintenance;
+    private final UserContactStore userContactStore;
+    private final ObjectMapper objectMapper;
+
+    // Privzeto časovno okno za loge: poizvedba bere le particije zadnjih mesecev
+    private static final long DEFAULT_LOG_WINDOW_DAYS = 30;
+    private static final int MAX_LOG_LIMIT = 500;
+    private static final int MAX_CONTACT_BACKFILL = 1000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String CSV_HEADER = "id,eventId,userId,recipientEmail,recipientPhone,type,templateKey,subject,"
+            + "status,sentAt,errorMessage,retryCount,externalId,createdAt,body";
 
     /**
      * Pridobi seznam vseh templatov za obvestila.
@@ -106,6 +145,7 @@ public class NotificationController {
         template.setLanguage(request.getLanguage() != null ? request.getLanguage() : "sl");
 
         NotificationTemplate saved = templateRepository.save(template);
+        templateCache.evict(saved.getTemplateKey());
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
@@ -142,6 +182,7 @@ public class NotificationController {
                         template.setLanguage(request.getLanguage());
 
                     NotificationTemplate updated = templateRepository.save(template);
+                    templateCache.evict(updated.getTemplateKey());
                     return ResponseEntity.ok(updated);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -166,6 +207,7 @@ public class NotificationController {
         }
 
         templateRepository.deleteById(id);
+        templateCache.evictAll();
         return ResponseEntity.noContent().build();
     }
 
@@ -174,7 +216,7 @@ public class NotificationController {
     @GetMapping("/logs")
     @Operation(
         summary = "Get notification delivery logs",
-        description = "Returns paginated notification delivery logs including status, timestamps, and delivery details for email and SMS notifications."
+        description = "Returns paginated notification delivery logs including status, timestamps, and delivery details for email and SMS notifications. Use /logs/search to query a time window."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved logs",
@@ -185,13 +227,15 @@ public class NotificationController {
     public ResponseEntity<Page<NotificationLog>> getAllLogs(
             @Parameter(description = "Pagination parameters (page, size, sort)")
             Pageable pageable) {
-        return ResponseEntity.ok(logRepository.findAll(pageable));
+        PartitionWindow window = partitionMaintenance.retainedWindow();
+        return ResponseEntity.ok(logRepository.findByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                window.from(), window.to(), pageable));
     }
 
     @GetMapping("/logs/user/{userId}")
     @Operation(
         summary = "Get notification logs by user",
-        description = "Returns all notification delivery logs for a specific user, ordered by creation date."
+        description = "Returns all notification delivery logs for a specific user, ordered by creation date. Use /logs/search with `userId` to query a time window page by page."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved user logs",
@@ -202,6 +246,185 @@ public class NotificationController {
     public ResponseEntity<List<NotificationLog>> getLogsByUser(
             @Parameter(required = true)
             @PathVariable UUID userId) {
-        return ResponseEntity.ok(logRepository.findByUserId(userId));
+        PartitionWindow window = partitionMaintenance.retainedWindow();
+        return ResponseEntity.ok(logRepository.findByUserIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByCreatedAtAsc(
+                userId, window.from(), window.to()));
+    }
+
+    /**
+     * Filtrirani logi po straneh; naslednjo stran dobimo s kazalcem iz prejšnje (brez OFFSET).
+     * Časovno okno je obvezno, da baza bere le particije tega obdobja.
+     */
+    @GetMapping("/logs/search")
+    @Operation(
+        summary = "Search notification delivery logs",
+        description = "Returns logs matching the given filters, newest first, created between `from` and `to` (both required). Pass `nextCursor` from the previous page as `cursor` to get the next page; it is null on the last page."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved logs",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = NotificationLogPage.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR')")
+    public ResponseEntity<NotificationLogPage> searchLogs(
+            @RequestParam(required = false) NotificationStatus status,
+            @RequestParam(required = false) NotificationType type,
+            @RequestParam(required = false) String templateKey,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) UUID eventId,
+            @Parameter(description = "Start of the creation time window (inclusive)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the creation time window (inclusive)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-500)")
+            @RequestParam(defaultValue = "100") int limit) {
+        FeedCursor after = null;
+        if (cursor != null) {
+            Optional<FeedCursor> decoded = FeedCursor.decode(cursor);
+            if (decoded.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            after = decoded.get();
+        }
+        NotificationLogFilter filter = new NotificationLogFilter(from, to, status, type, templateKey, userId, eventId);
+        return ResponseEntity.ok(logQueryService.findPage(filter, after, pageSize(limit)));
+    }
+
+    /**
+     * Izvoz logov kot NDJSON ali CSV. Vrstice se pišejo v odgovor sproti, ko jih beremo iz baze.
+     */
+    @GetMapping("/logs/export")
+    @Operation(
+        summary = "Export notification delivery logs",
+        description = "Streams all logs matching the given filters, oldest first, as NDJSON (`format=ndjson`, default) or CSV (`format=csv`). The time window defaults to the last 30 days. Message bodies are included only with `includeBody=true`."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export stream", content = {
+                @Content(mediaType = "application/x-ndjson"),
+                @Content(mediaType = "text/csv")}),
+        @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR')")
+    public ResponseEntity<StreamingResponseBody> exportLogs(
+            @RequestParam(required = false) NotificationStatus status,
+            @RequestParam(required = false) NotificationType type,
+            @RequestParam(required = false) String templateKey,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) UUID eventId,
+            @Parameter(description = "Start of the creation time window (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the creation time window (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Include rendered message bodies")
+            @RequestParam(defaultValue = "false") boolean includeBody) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        NotificationLogFilter filter = filter(from, to, status, type, templateKey, userId, eventId);
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            try {
+                logQueryService.export(filter, includeBody, entry -> {
+                    try {
+                        if (csv) {
+                            writeCsv(writer, entry);
+                        } else {
+                            writer.write(objectMapper.writeValueAsString(entry));
+                            writer.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Napaka pri pisanju v odgovor (npr. klient je prekinil prenos)
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+
+        String fileName = "notification-logs." + (csv ? "csv" : "ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    /**
+     * Backfill lokalne kopije kontaktov uporabnikov (npr. ob prvi vzpostavitvi ali po izpadu topica user-updated).
+     * Uporabniki se pošiljajo po delih; zapis, starejši od shranjenega, se ne uporabi, zato je klic mogoče ponoviti.
+     */
+    @PutMapping("/user-contacts")
+    @Operation(
+        summary = "Backfill user contacts",
+        description = "Upserts contact and consent data of up to 1000 users into the local copy used for reminders. "
+                + "The body has the same shape as user-updated events; entries older than the stored ones are ignored."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Contacts applied",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserContactBackfillResult.class))),
+        @ApiResponse(responseCode = "400", description = "Missing, empty or too many users in one request", content = @Content),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+    })
+    @PreAuthorize("hasAnyRole('ADMINISTRATOR')")
+    public ResponseEntity<UserContactBackfillResult> backfillUserContacts(
+            @Parameter(required = true)
+            @RequestBody List<UserUpdatedEvent> contacts) {
+        if (contacts == null || contacts.isEmpty() || contacts.size() > MAX_CONTACT_BACKFILL) {
+            return ResponseEntity.badRequest().build();
+        }
+        int applied = userContactStore.applyAll(contacts);
+        log.info("Backfilled {} of {} user contacts", applied, contacts.size());
+        return ResponseEntity.ok(new UserContactBackfillResult(contacts.size(), applied));
+    }
+
+    private static NotificationLogFilter filter(LocalDateTime from, LocalDateTime to, NotificationStatus status,
+                                                NotificationType type, String templateKey, UUID userId, UUID eventId) {
+        LocalDateTime until = to != null ? to : LocalDateTime.now();
+        LocalDateTime since = from != null ? from : until.minusDays(DEFAULT_LOG_WINDOW_DAYS);
+        return new NotificationLogFilter(since, until, status, type, templateKey, userId, eventId);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LOG_LIMIT));
+    }
+
+    private static void writeCsv(Writer writer, NotificationLogEntry entry) throws IOException {
+        Object[] values = {entry.id(), entry.eventId(), entry.userId(), entry.recipientEmail(), entry.recipientPhone(),
+                entry.type(), entry.templateKey(), entry.subject(), entry.status(), entry.sentAt(), entry.errorMessage(),
+                entry.retryCount(), entry.externalId(), entry.createdAt(), entry.body()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvValue(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Vrednost za CSV (RFC 4180): polja z vejico, narekovajem ali prelomom vrstice gredo v narekovaje.
+     */
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
     }
 }
@@ -1,9 +1,7 @@
 package com.planify.notification.controller;
 
-import com.planify.notification.model.InAppNotification;
-import com.planify.notification.repository.InAppNotificationRepository;
-import com.planify.notification.service.NotificationService;
-import com.planify.notification.service.WebSocketNotificationService;
+import com.planify.notification.dto.ReminderJobStatus;
+import com.planify.notification.service.ReminderJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,15 +11,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
-import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -32,28 +24,43 @@ import java.util.UUID;
 public class SystemReminderController {
 
 
-    private final NotificationService notificationService;
+    private final ReminderJobService reminderJobService;
 
     /**
-     * Pošljemo opomnike za dogodke
+     * Zaženemo pošiljanje opomnikov za dogodke v ozadju; odgovor vrne ID posla
      */
     @GetMapping("send")
     @Operation(
             summary = "Send reminders to all users that will attend any event tomorrow",
-            description = "Send SMS reminders to all users that will attend any event tomorrowusing Vonage API "
+            description = "Starts a background job that sends SMS reminders (using Vonage API) to all users that will attend any event tomorrow and returns immediately. "
+                    + "If a job is already running, its status is returned instead of starting a new one."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Reminders successfully sent.",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = InAppNotification.class))),
-            @ApiResponse(responseCode = "500", description = "Some error happened during sending reminders", content = @Content),
+            @ApiResponse(responseCode = "202", description = "Reminder job started or already running.",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReminderJobStatus.class))),
     })
-    public ResponseEntity<?> sendReminders() {
-        try {
-            Integer sent = notificationService.sendScheduledReminders();
-            return ResponseEntity.ok(sent);
-        } catch (Exception e) {
-            log.error("Error during sending the remindes: " + e.getMessage());
-            return ResponseEntity.internalServerError().body("Error during sending the remindes: " + e.getMessage());
-        }
+    public ResponseEntity<ReminderJobStatus> sendReminders() {
+        return ResponseEntity.accepted().body(reminderJobService.start());
+    }
+
+    /**
+     * Stanje posla za opomnike
+     */
+    @GetMapping("jobs/{jobId}")
+    @Operation(
+            summary = "Get reminder job status",
+            description = "Returns progress counters of a recent reminder job."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job status",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReminderJobStatus.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job", content = @Content),
+    })
+    public ResponseEntity<ReminderJobStatus> getJob(
+            @Parameter(required = true)
+            @PathVariable UUID jobId) {
+        return reminderJobService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
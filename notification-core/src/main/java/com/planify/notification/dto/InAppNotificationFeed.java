@@ -0,0 +1,18 @@
+package com.planify.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Stran povzetkov obvestil (feed, neprebrana). nextCursor je null, ko starejših obvestil ni več.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InAppNotificationFeed {
+    private List<InAppNotificationSummary> items;
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.planify.notification.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Povzetek obvestila za sezname (feed, neprebrana): brez metadata in s skrajšanim sporočilom.
+ * Celotno obvestilo se pridobi po ID-ju.
+ *
+ * @param preview prvih PREVIEW_LENGTH znakov sporočila
+ */
+public record InAppNotificationSummary(
+        UUID id,
+        String title,
+        String preview,
+        String notificationType,
+        UUID referenceId,
+        String referenceType,
+        String actionUrl,
+        Boolean isRead,
+        LocalDateTime createdAt) {
+
+    public static final int PREVIEW_LENGTH = 140;
+}
@@ -0,0 +1,28 @@
+package com.planify.notification.dto;
+
+import com.planify.notification.model.NotificationStatus;
+import com.planify.notification.model.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Vrstica loga za admin preglede in izvoz; body je izpolnjen le, če je bil zahtevan.
+ */
+public record NotificationLogEntry(
+        UUID id,
+        UUID eventId,
+        UUID userId,
+        String recipientEmail,
+        String recipientPhone,
+        NotificationType type,
+        String templateKey,
+        String subject,
+        NotificationStatus status,
+        LocalDateTime sentAt,
+        String errorMessage,
+        Integer retryCount,
+        String externalId,
+        LocalDateTime createdAt,
+        String body) {
+}
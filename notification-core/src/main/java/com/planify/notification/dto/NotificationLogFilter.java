@@ -0,0 +1,21 @@
+package com.planify.notification.dto;
+
+import com.planify.notification.model.NotificationStatus;
+import com.planify.notification.model.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Filter za admin poizvedbe po logih. Časovno okno (from, to) je obvezno, da baza bere le particije tega obdobja;
+ * ostali filtri so lahko null.
+ */
+public record NotificationLogFilter(
+        LocalDateTime from,
+        LocalDateTime to,
+        NotificationStatus status,
+        NotificationType type,
+        String templateKey,
+        UUID userId,
+        UUID eventId) {
+}
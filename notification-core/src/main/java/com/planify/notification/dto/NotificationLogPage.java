@@ -0,0 +1,18 @@
+package com.planify.notification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Stran logov. nextCursor je null, ko starejših logov v oknu ni več.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationLogPage {
+    private List<NotificationLogEntry> items;
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.planify.notification.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Sporočilo na temo organization:{id}: v organizaciji se je zgodilo nekaj, kar zadeva admine (nova prošnja,
+ * odgovor na povabilo). Odjemalec na podlagi tega osveži sezname; samo obvestilo dobi vsak admin posebej.
+ *
+ * @param activity vrsta dogodka, npr. join_request_sent, invitation_accepted
+ */
+public record OrganizationActivityDto(
+        UUID organizationId,
+        String activity,
+        UUID referenceId,
+        String referenceType,
+        Instant occurredAt) {
+}
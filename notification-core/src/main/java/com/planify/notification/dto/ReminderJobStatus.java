@@ -0,0 +1,31 @@
+package com.planify.notification.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Stanje posla za pošiljanje opomnikov.
+ *
+ * @param attendees število prevzetih (neposlanih) opomnikov
+ * @param sent      poslani SMS opomniki
+ * @param failed    neuspeli (uporabnik ni najden ali SMS ni uspel)
+ * @param skipped   brez privolitve oz. telefonske številke
+ * @param error     razlog, če se je posel prekinil
+ */
+public record ReminderJobStatus(
+        UUID jobId,
+        State state,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        int attendees,
+        int sent,
+        int failed,
+        int skipped,
+        String error) {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
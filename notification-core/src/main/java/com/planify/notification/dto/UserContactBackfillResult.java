@@ -0,0 +1,10 @@
+package com.planify.notification.dto;
+
+/**
+ * Izid backfilla kontaktov uporabnikov.
+ *
+ * @param received število prejetih uporabnikov
+ * @param applied  število zapisanih (ostali so bili enaki ali starejši od shranjenih)
+ */
+public record UserContactBackfillResult(int received, int applied) {
+}
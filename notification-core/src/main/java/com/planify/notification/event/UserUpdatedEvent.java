@@ -0,0 +1,27 @@
+package com.planify.notification.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event, ki ga user-service objavi ob vsaki spremembi uporabnika (tudi ob izbrisu, takrat je deleted = true).
+ * Enako obliko ima tudi backfill (PUT /api/notifications/user-contacts).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserUpdatedEvent {
+    private UUID userId;
+    private String email;
+    private Boolean emailConsent;
+    private String phoneNumber;
+    private Boolean smsConsent;
+    private String firstName;
+    private String lastName;
+    private boolean deleted;
+    private Instant updatedAt; // čas spremembe v user-serviceu
+}
@@ -0,0 +1,115 @@
+package com.planify.notification.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ponovna objava zapisov z DLT nazaj na vhodni topic (npr. po popravku napake, zaradi katere so padli).
+ * Napredek se hrani kot offset ločene consumer skupine, zato se isti zapis ne objavi dvakrat.
+ */
+@Service
+@Profile("!azure")
+@Slf4j
+public class DeadLetterReplayService {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final NotificationTopics topics;
+    private final RetryTopics retryTopics;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DefaultKafkaConsumerFactory<String, byte[]> replayConsumerFactory;
+
+    public DeadLetterReplayService(NotificationTopics topics,
+                                   RetryTopics retryTopics,
+                                   KafkaTemplate<String, Object> kafkaTemplate,
+                                   ConsumerFactory<Object, Object> defaultConsumerFactory,
+                                   @Value("${kafka.retry.replay-group-id:notification-service-dlt-replay}") String replayGroupId) {
+        this.topics = topics;
+        this.retryTopics = retryTopics;
+        this.kafkaTemplate = kafkaTemplate;
+
+        Map<String, Object> props = new HashMap<>(defaultConsumerFactory.getConfigurationProperties());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, replayGroupId);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.keySet().removeIf(key -> key.startsWith("spring.json.") || key.startsWith("spring.deserializer."));
+        props.remove(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG);
+        props.remove(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        this.replayConsumerFactory = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    public boolean isKnownTopic(String topic) {
+        return List.of(topics.all()).contains(topic);
+    }
+
+    /**
+     * Prebere do limit zapisov z {@code <topic>.dlt} in jih nespremenjene objavi na {@code <topic>}.
+     *
+     * @return število ponovno objavljenih zapisov
+     */
+    public synchronized int replay(String topic, int limit) {
+        if (!isKnownTopic(topic)) {
+            throw new IllegalArgumentException("Unknown topic: " + topic);
+        }
+        String dlt = retryTopics.dltTopic(topic);
+
+        int replayed = 0;
+        try (Consumer<String, byte[]> consumer = replayConsumerFactory.createConsumer()) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(dlt);
+            if (partitions == null || partitions.isEmpty()) {
+                return 0;
+            }
+            consumer.assign(partitions.stream().map(p -> new TopicPartition(dlt, p.partition())).toList());
+
+            while (replayed < limit) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                try {
+                    for (ConsumerRecord<String, byte[]> record : records) {
+                        if (replayed >= limit) {
+                            break;
+                        }
+                        kafkaTemplate.send(topic, record.key(), record.value()).get(10, TimeUnit.SECONDS);
+                        offsets.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                        replayed++;
+                    }
+                } finally {
+                    // Potrdimo le, kar je bilo dejansko objavljeno
+                    consumer.commitSync(offsets);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Replay of {} stopped after {} records", dlt, replayed, e);
+        }
+
+        log.info("Replayed {} records from {} to {}", replayed, dlt, topic);
+        return replayed;
+    }
+}
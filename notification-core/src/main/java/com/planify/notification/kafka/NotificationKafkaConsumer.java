@@ -5,94 +5,336 @@ import com.planify.notification.event.InvitationSentEvent;
 import com.planify.notification.event.JoinRequestRespondedEvent;
 import com.planify.notification.event.JoinRequestsSentEvent;
 import com.planify.notification.event.EventAttendanceAcceptedEvent;
+import com.planify.notification.event.UserUpdatedEvent;
 import com.planify.notification.service.NotificationService;
-import lombok.RequiredArgsConstructor;
+import com.planify.notification.service.UserContactStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 @Component
-@RequiredArgsConstructor
 @Slf4j
 @Profile("!azure")
 public class NotificationKafkaConsumer {
 
-    private final NotificationService notificationService;
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(NotificationKafkaConsumer.class);
+    private static final String EVENTS_LISTENER = "notification-events";
+    private static final String RETRY_LISTENER = "notification-events-retry";
+
+    private final Map<String, TopicHandler<?>> handlers = new HashMap<>();
+    private final OrderedLaneExecutor laneExecutor;
+    private final RetryTopics retryTopics;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final MeterRegistry meterRegistry;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ListenerContainerPauseService pauseService;
+    private final long redeliveryBackoffMs;
+
+    public NotificationKafkaConsumer(NotificationService notificationService,
+                                     UserContactStore userContactStore,
+                                     NotificationTopics topics,
+                                     OrderedLaneExecutor laneExecutor,
+                                     RetryTopics retryTopics,
+                                     DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+                                     MeterRegistry meterRegistry,
+                                     KafkaListenerEndpointRegistry listenerRegistry,
+                                     ListenerContainerPauseService pauseService,
+                                     @Value("${kafka.consumer.redelivery-backoff-ms:1000}") long redeliveryBackoffMs) {
+        this.laneExecutor = laneExecutor;
+        this.retryTopics = retryTopics;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.meterRegistry = meterRegistry;
+        this.listenerRegistry = listenerRegistry;
+        this.pauseService = pauseService;
+        this.redeliveryBackoffMs = redeliveryBackoffMs;
+        handlers.put(topics.getJoinRequestSent(), new TopicHandler<>(JoinRequestsSentEvent.class,
+                notificationService::handleJoinRequestSentEvents,
+                notificationService::handleJoinRequestSentEvent,
+                JoinRequestsSentEvent::getOrganizationId,
+                e -> String.format("join request %s from user %s to organization %s", e.getJoinRequestId(), e.getRequesterUserId(), e.getOrganizationName())));
+        handlers.put(topics.getJoinRequestResponded(), new TopicHandler<>(JoinRequestRespondedEvent.class,
+                notificationService::handleJoinRequestRespondedEvents,
+                notificationService::handleJoinRequestRespondedEvent,
+                JoinRequestRespondedEvent::getRequesterUserId,
+                e -> String.format("join request %s from user %s to organization %s", e.getJoinRequestId(), e.getRequesterUserId(), e.getOrganizationName())));
+        handlers.put(topics.getInvitationSent(), new TopicHandler<>(InvitationSentEvent.class,
+                notificationService::handleInvitationSentEvents,
+                notificationService::handleInvitationSentEvent,
+                InvitationSentEvent::getInvitedUserId,
+                e -> String.format("invitation %s of user %s to organization %s", e.getInvitationId(), e.getInvitedUserId(), e.getOrganizationId())));
+        handlers.put(topics.getInvitationResponded(), new TopicHandler<>(InvitationRespondedEvent.class,
+                notificationService::handleInvitationRespondedEvents,
+                notificationService::handleInvitationRespondedEvent,
+                InvitationRespondedEvent::getOrganizationId,
+                e -> String.format("invitation %s of user %s to organization %s", e.getInvitationId(), e.getInvitedUserId(), e.getOrganizationId())));
+        handlers.put(topics.getEventAttendanceAccepted(), new TopicHandler<>(EventAttendanceAcceptedEvent.class,
+                notificationService::handleEventAttendanceAcceptedEvents,
+                notificationService::handleEventAttendanceAcceptedEvent,
+                EventAttendanceAcceptedEvent::getUserId,
+                e -> String.format("event attendance accepted for event %s and user %s starting at %s", e.getEventId(), e.getUserId(), e.getEventStartAt())));
+        handlers.put(topics.getUserUpdated(), new TopicHandler<>(UserUpdatedEvent.class,
+                userContactStore::applyAll,
+                userContactStore::apply,
+                UserUpdatedEvent::getUserId,
+                e -> String.format("update of user %s at %s", e.getUserId(), e.getUpdatedAt())));
+    }
 
+    /**
+     * En listener za vse topice. Zapisi poll-a se razdelijo v lane po prejemniku (uporabnik oz. organizacija
+     * pri obvestilih adminom): dogodki istega prejemnika se obdelajo v vrstnem redu, različni prejemniki vzporedno.
+     * Neuspel zapis se preusmeri na retry topic, zato ne zadrži zapisov za njim.
+     * Offseti se potrdijo ročno, za vsako particijo le do prvega neobdelanega zapisa; particija z neobdelanimi
+     * zapisi se za redelivery-backoff-ms ustavi (ostale particije iste niti se berejo naprej).
+     */
     @KafkaListener(
-        topics = "${kafka.topics.join-request-sent}",
+        id = EVENTS_LISTENER,
+        topics = "#{@notificationTopics.all()}",
         groupId = "${spring.kafka.consumer.group-id}",
-        errorHandler = "kafkaListenerErrorHandler",
-        containerFactory = "joinRequestsSentKafkaListenerContainerFactory"
+        containerFactory = "notificationKafkaListenerContainerFactory"
     )
-    public void handleJoinRequestSent(JoinRequestsSentEvent joinRequestEvent) {
-        log.info("Received join request: {}, from user {} to organization {}", joinRequestEvent.getJoinRequestId(), joinRequestEvent.getRequesterUserId(), joinRequestEvent.getOrganizationName());
-        try {
-            notificationService.handleJoinRequestSentEvent(joinRequestEvent);
-        } catch (Exception e) {
-            log.error("Error handling join request {}", joinRequestEvent.getJoinRequestId(), e);
+    public void handleEvents(List<ConsumerRecord<String, Object>> records,
+                             org.apache.kafka.clients.consumer.Consumer<?, ?> consumer) {
+        List<ConsumerRecord<String, Object>> unprocessed = process(records);
+
+        if (PartitionOffsets.commitAndRewind(consumer, records, unprocessed)) {
+            log.warn("{} of {} records were not processed and will be redelivered", unprocessed.size(), records.size());
+            Map<TopicPartition, Long> resumeAt = new HashMap<>();
+            long now = System.currentTimeMillis();
+            unprocessed.forEach(record -> resumeAt.put(partitionOf(record), now + redeliveryBackoffMs));
+            pausePartitions(EVENTS_LISTENER, resumeAt);
         }
     }
+
+    /**
+     * Listener za retry topice. Zapis se obdela šele, ko poteče njegov zamik (glava x-retry-due-at); ker so zapisi
+     * v particiji retry topica urejeni po času, se particija ob prvem zapisu, ki še ni na vrsti, previje nazaj in
+     * ustavi do njegovega časa. Nit ne čaka, zato zapisi na vrsti v drugih particijah (in retry topicih) ne zastanejo.
+     */
     @KafkaListener(
-            topics = "${kafka.topics.join-request-responded}",
-            groupId = "${spring.kafka.consumer.group-id}",
-            errorHandler = "kafkaListenerErrorHandler",
-            containerFactory = "joinRequestsRespondedKafkaListenerContainerFactory"
+        id = RETRY_LISTENER,
+        topics = "#{@retryTopics.retryTopics()}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = "notificationKafkaListenerContainerFactory"
     )
-    public void handleJoinRequestResponded(JoinRequestRespondedEvent joinRequestEvent) {
-        log.info("Received join request: {}, from user {} to organization {}", joinRequestEvent.getJoinRequestId(), joinRequestEvent.getRequesterUserId(), joinRequestEvent.getOrganizationName());
-        try {
-            notificationService.handleJoinRequestRespondedEvent(joinRequestEvent);
-        } catch (Exception e) {
-            log.error("Error handling join request {}", joinRequestEvent.getJoinRequestId(), e);
+    public void handleRetries(List<ConsumerRecord<String, Object>> records,
+                              org.apache.kafka.clients.consumer.Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        // Particija -> čas prvega zapisa, ki še ni na vrsti
+        Map<TopicPartition, Long> waiting = new HashMap<>();
+        List<ConsumerRecord<String, Object>> due = new ArrayList<>();
+        List<ConsumerRecord<String, Object>> notDue = new ArrayList<>();
+        for (ConsumerRecord<String, Object> record : records) {
+            TopicPartition partition = partitionOf(record);
+            long dueAt = retryTopics.dueAt(record);
+            if (waiting.containsKey(partition) || dueAt > now) {
+                waiting.putIfAbsent(partition, dueAt);
+                notDue.add(record);
+            } else {
+                due.add(record);
+            }
+        }
+
+        List<ConsumerRecord<String, Object>> failed = process(due);
+        List<ConsumerRecord<String, Object>> unprocessed = new ArrayList<>(failed);
+        unprocessed.addAll(notDue);
+
+        if (PartitionOffsets.commitAndRewind(consumer, records, unprocessed)) {
+            Map<TopicPartition, Long> resumeAt = new HashMap<>(waiting);
+            long redeliverAt = System.currentTimeMillis() + redeliveryBackoffMs;
+            // Neobdelan zapis na vrsti je pred čakajočimi, particija se previje nanj
+            failed.forEach(record -> resumeAt.merge(partitionOf(record), redeliverAt, Math::min));
+            pausePartitions(RETRY_LISTENER, resumeAt);
         }
     }
 
-    @KafkaListener(
-        topics = "${kafka.topics.invitation-sent}",
-        groupId = "${spring.kafka.consumer.group-id}",
-        errorHandler = "kafkaListenerErrorHandler",
-        containerFactory = "invitationsSentKafkaListenerContainerFactory"
-    )
-    public void handleInvitationSent(InvitationSentEvent invitationEvent) {
-        log.info("User {} invited to organization {} (invitationId: {})",
-                invitationEvent.getInvitedUserId(), invitationEvent.getOrganizationId(), invitationEvent.getInvitationId());
-        try {
-            notificationService.handleInvitationSentEvent(invitationEvent);
-        } catch (Exception e) {
-            log.error("Error handling invitation {}", invitationEvent.getInvitationId(), e);
+    /**
+     * Obdela zapise po lanih. Vrne zapise, ki jih ni bilo mogoče niti obdelati niti preusmeriti.
+     */
+    private List<ConsumerRecord<String, Object>> process(List<ConsumerRecord<String, Object>> records) {
+        List<ConsumerRecord<String, Object>> readable = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, Object>> unprocessed = new ArrayList<>();
+        for (ConsumerRecord<String, Object> record : records) {
+            DeserializationException poison = SerializationUtils.getExceptionFromHeader(record,
+                    SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+            if (poison == null) {
+                readable.add(record);
+            } else if (!forward(record, poison)) {
+                unprocessed.add(record);
+            }
         }
+        if (!readable.isEmpty()) {
+            unprocessed.addAll(laneExecutor.process(readable, this::laneKey, this::processLane));
+        }
+        return unprocessed;
     }
 
-    @KafkaListener(
-            topics = "${kafka.topics.invitation-responded}",
-            groupId = "${spring.kafka.consumer.group-id}",
-            errorHandler = "kafkaListenerErrorHandler",
-            containerFactory = "invitationsRespondedKafkaListenerContainerFactory"
-    )
-    public void handleInvitationResponded(InvitationRespondedEvent invitationEvent) {
-        log.info("User {} invited to organization {} (invitationId: {})",
-                invitationEvent.getInvitedUserId(), invitationEvent.getOrganizationId(), invitationEvent.getInvitationId());
-        try {
-            notificationService.handleInvitationRespondedEvent(invitationEvent);
-        } catch (Exception e) {
-            log.error("Error handling invitation {}", invitationEvent.getInvitationId(), e);
+    private Object laneKey(ConsumerRecord<String, Object> record) {
+        TopicHandler<?> handler = handlers.get(retryTopics.baseTopic(record.topic()));
+        Object key = handler == null ? null : handler.laneKey(record.value());
+        return key != null ? key : record.key();
+    }
+
+    /**
+     * Obdela zapise ene lane. Neuspele zapise preusmeri na retry topic oz. DLT; če preusmeritev ne uspe,
+     * vrne ta zapis in vse, ki mu v lani sledijo, da se ob ponovni dostavi ohrani vrstni red.
+     */
+    private List<ConsumerRecord<String, Object>> processLane(List<ConsumerRecord<String, Object>> lane) {
+        Map<String, List<ConsumerRecord<String, Object>>> byTopic = new LinkedHashMap<>();
+        for (ConsumerRecord<String, Object> record : lane) {
+            byTopic.computeIfAbsent(record.topic(), t -> new ArrayList<>()).add(record);
+        }
+
+        List<ConsumerRecord<String, Object>> unprocessed = new ArrayList<>();
+        for (Map.Entry<String, List<ConsumerRecord<String, Object>>> entry : byTopic.entrySet()) {
+            List<ConsumerRecord<String, Object>> topicRecords = entry.getValue();
+            if (!unprocessed.isEmpty()) {
+                unprocessed.addAll(topicRecords);
+                continue;
+            }
+            for (Failure failure : dispatch(entry.getKey(), topicRecords)) {
+                ConsumerRecord<String, Object> record = topicRecords.get(failure.index());
+                if (!forward(record, failure.exception())) {
+                    unprocessed.addAll(topicRecords.subList(failure.index(), topicRecords.size()));
+                    break;
+                }
+            }
         }
+        return unprocessed;
     }
 
-    @KafkaListener(
-            topics = "${kafka.topics.event-attendance-accepted}",
-            groupId = "${spring.kafka.consumer.group-id}",
-            errorHandler = "kafkaListenerErrorHandler",
-            containerFactory = "eventAttendanceAcceptedKafkaListenerContainerFactory"
-    )
-    public void handleEventAttendanceAccepted(EventAttendanceAcceptedEvent event) {
-        log.info("User {} accepted attendance for event {} starting at {}", event.getUserId(), event.getEventId(), event.getEventStartAt());
+    private List<Failure> dispatch(String topic, List<ConsumerRecord<String, Object>> records) {
+        TopicHandler<?> handler = handlers.get(retryTopics.baseTopic(topic));
+        if (handler == null) {
+            log.warn("No handler registered for topic {}, skipping {} records", topic, records.size());
+            return List.of();
+        }
+        return handler.process(records.stream().map(ConsumerRecord::value).toList());
+    }
+
+    /**
+     * Preusmeri zapis na naslednji retry topic oz. DLT.
+     *
+     * @return false, če objava ni uspela in mora zapis ostati neobdelan
+     */
+    private boolean forward(ConsumerRecord<String, Object> record, Exception exception) {
+        TopicPartition destination = retryTopics.destination(record, exception);
         try {
-            notificationService.handleEventAttendanceAcceptedEvent(event);
+            deadLetterPublishingRecoverer.accept(record, exception);
         } catch (Exception e) {
-            log.error("Error handling event attendance accepted for event {} and user {}", event.getEventId(), event.getUserId(), e);
+            log.error("Failed to forward record {}-{}@{} to {}", record.topic(), record.partition(), record.offset(), destination.topic(), e);
+            return false;
+        }
+
+        String baseTopic = retryTopics.baseTopic(record.topic());
+        if (retryTopics.isDlt(destination.topic())) {
+            log.error("Record {}-{}@{} moved to dead-letter topic {}", record.topic(), record.partition(), record.offset(), destination.topic());
+            meterRegistry.counter("notification.kafka.dlt.records", "topic", baseTopic,
+                    "exception", exception.getClass().getSimpleName()).increment();
+        } else {
+            log.warn("Record {}-{}@{} scheduled for retry on {}", record.topic(), record.partition(), record.offset(), destination.topic());
+            meterRegistry.counter("notification.kafka.retry.records", "topic", baseTopic,
+                    "level", String.valueOf(retryTopics.level(destination.topic()))).increment();
+        }
+        return true;
+    }
+
+    /**
+     * Ustavi branje particij do danega časa (epoch ms). Particije se ustavijo pred naslednjim poll-om in
+     * se nadaljujejo same (ListenerContainerPauseService), consumer nit pa medtem bere ostale particije.
+     */
+    private void pausePartitions(String listenerId, Map<TopicPartition, Long> resumeAt) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+        if (container == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        resumeAt.forEach((partition, at) ->
+                pauseService.pausePartition(container, partition, Duration.ofMillis(Math.max(1, at - now))));
+    }
+
+    private static TopicPartition partitionOf(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    private record Failure(int index, Exception exception) {
+    }
+
+    /**
+     * Tipiziran handler za en topic.
+     */
+    private record TopicHandler<T>(Class<T> type,
+                                   Consumer<List<T>> batchHandler,
+                                   Consumer<T> singleHandler,
+                                   Function<T, Object> laneKeyExtractor,
+                                   Function<T, String> description) {
+
+        Object laneKey(Object payload) {
+            return type.isInstance(payload) ? laneKeyExtractor.apply(type.cast(payload)) : null;
+        }
+
+        /**
+         * @return zapisi (indeks in vzrok), ki jih ni bilo mogoče obdelati
+         */
+        List<Failure> process(List<Object> payloads) {
+            List<Failure> failures = new ArrayList<>();
+            List<T> events = new ArrayList<>(payloads.size());
+            List<Integer> positions = new ArrayList<>(payloads.size());
+            for (int i = 0; i < payloads.size(); i++) {
+                Object payload = payloads.get(i);
+                if (type.isInstance(payload)) {
+                    events.add(type.cast(payload));
+                    positions.add(i);
+                } else {
+                    String received = payload == null ? "null" : payload.getClass().getSimpleName();
+                    log.error("Expected {} but received {}", type.getSimpleName(), received);
+                    failures.add(new Failure(i, new ClassCastException("Expected " + type.getSimpleName() + " but received " + received)));
+                }
+            }
+            if (events.isEmpty()) {
+                return failures;
+            }
+            events.forEach(e -> log.info("Received {}", description.apply(e)));
+
+            // Celotno lano obdelamo v eni transakciji. Če ta spodleti, zapise ponovno obdelamo posamično,
+            // da se na retry topic preusmerijo le dejansko neuspeli.
+            try {
+                batchHandler.accept(events);
+                return failures;
+            } catch (Exception batchException) {
+                log.warn("Batch of {} {} records failed, falling back to per-record processing", events.size(), type.getSimpleName(), batchException);
+            }
+            for (int i = 0; i < events.size(); i++) {
+                T event = events.get(i);
+                try {
+                    singleHandler.accept(event);
+                } catch (Exception e) {
+                    log.error("Error handling {}", description.apply(event), e);
+                    failures.add(new Failure(positions.get(i), e));
+                }
+            }
+            failures.sort((a, b) -> Integer.compare(a.index(), b.index()));
+            return failures;
         }
     }
 }
@@ -0,0 +1,61 @@
+package com.planify.notification.kafka;
+
+import com.planify.notification.event.EventAttendanceAcceptedEvent;
+import com.planify.notification.event.InvitationRespondedEvent;
+import com.planify.notification.event.InvitationSentEvent;
+import com.planify.notification.event.JoinRequestRespondedEvent;
+import com.planify.notification.event.JoinRequestsSentEvent;
+import com.planify.notification.event.UserUpdatedEvent;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Imena Kafka topicov, ki jih posluša servis, in tip dogodka, ki ga nosi posamezen topic.
+ */
+@Component
+@Profile("!azure")
+@Getter
+public class NotificationTopics {
+
+    @Value("${kafka.topics.join-request-sent}")
+    private String joinRequestSent;
+
+    @Value("${kafka.topics.join-request-responded}")
+    private String joinRequestResponded;
+
+    @Value("${kafka.topics.invitation-sent}")
+    private String invitationSent;
+
+    @Value("${kafka.topics.invitation-responded}")
+    private String invitationResponded;
+
+    @Value("${kafka.topics.event-attendance-accepted}")
+    private String eventAttendanceAccepted;
+
+    // Spremembe uporabnikov za lokalno kopijo kontaktov (UserContactStore)
+    @Value("${kafka.topics.user-updated}")
+    private String userUpdated;
+
+    /**
+     * Preslikava topic -> tip dogodka, po kateri se deserializira vrednost zapisa.
+     */
+    public Map<String, Class<?>> eventTypes() {
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        types.put(joinRequestSent, JoinRequestsSentEvent.class);
+        types.put(joinRequestResponded, JoinRequestRespondedEvent.class);
+        types.put(invitationSent, InvitationSentEvent.class);
+        types.put(invitationResponded, InvitationRespondedEvent.class);
+        types.put(eventAttendanceAccepted, EventAttendanceAcceptedEvent.class);
+        types.put(userUpdated, UserUpdatedEvent.class);
+        return types;
+    }
+
+    public String[] all() {
+        return eventTypes().keySet().toArray(String[]::new);
+    }
+}
@@ -0,0 +1,111 @@
+package com.planify.notification.kafka;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Razdeli zapise enega poll-a v N lane glede na ključ (npr. ID prejemnika).
+ * Zapisi z istim ključem se obdelajo zaporedno in v vrstnem redu, različni ključi pa vzporedno na virtualnih nitih.
+ * Vsaka lana drži povezavo iz Hikari poola, zato se število lan ob zagonu omeji na del poola, ki ostane
+ * po dispatcherjih in chunkih opomnikov (glej pravilo v application.yaml).
+ */
+@Component
+@Profile("!azure")
+@Slf4j
+public class OrderedLaneExecutor {
+
+    // Povezave za REST klice in opravila po urniku
+    private static final int RESERVED_CONNECTIONS = 4;
+
+    private final int laneCount;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public OrderedLaneExecutor(@Value("${kafka.consumer.lanes:4}") int laneCount,
+                               @Value("${kafka.consumer.concurrency:3}") int concurrency,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                               @Value("${notification.delivery.dispatchers:4}") int dispatchers,
+                               @Value("${notification.reminder.max-concurrent-chunks:8}") int reminderChunks) {
+        this.laneCount = lanes(laneCount, concurrency, poolSize, dispatchers, reminderChunks);
+        if (this.laneCount < laneCount) {
+            log.warn("Connection pool of {} is too small for {} lanes on {} consumer threads, using {} lanes",
+                    poolSize, laneCount, concurrency, this.laneCount);
+        }
+    }
+
+    /**
+     * Število lan, pri katerem vse lane glavnega in retry listenerja skupaj z dispatcherji in chunki opomnikov
+     * dobijo povezavo brez čakanja.
+     */
+    static int lanes(int laneCount, int concurrency, int poolSize, int dispatchers, int reminderChunks) {
+        int forKafka = poolSize - RESERVED_CONNECTIONS - Math.max(0, dispatchers) - Math.max(0, reminderChunks);
+        int maxLanes = forKafka / (2 * Math.max(1, concurrency));
+        return Math.max(1, Math.min(laneCount, maxLanes));
+    }
+
+    /**
+     * Obdela zapise po lanih. laneWorker prejme zapise ene lane v prvotnem vrstnem redu in vrne tiste,
+     * ki jih ni uspel obdelati (neuspeli zapis in vse za njim).
+     *
+     * @return vsi neobdelani zapisi, po vseh lanih
+     */
+    public <R> List<R> process(List<R> records, Function<R, Object> keyFn, Function<List<R>, List<R>> laneWorker) {
+        List<List<R>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (R record : records) {
+            Object key = keyFn.apply(record);
+            int lane = key == null ? 0 : Math.floorMod(key.hashCode(), laneCount);
+            lanes.get(lane).add(record);
+        }
+
+        List<List<R>> nonEmpty = lanes.stream().filter(lane -> !lane.isEmpty()).toList();
+        if (nonEmpty.size() == 1) {
+            return runLane(nonEmpty.get(0), laneWorker);
+        }
+
+        List<Future<List<R>>> futures = new ArrayList<>(nonEmpty.size());
+        for (List<R> lane : nonEmpty) {
+            futures.add(executor.submit(() -> runLane(lane, laneWorker)));
+        }
+
+        List<R> unprocessed = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                unprocessed.addAll(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unprocessed.addAll(nonEmpty.get(i));
+            } catch (ExecutionException e) {
+                log.error("Lane failed unexpectedly, {} records will be redelivered", nonEmpty.get(i).size(), e.getCause());
+                unprocessed.addAll(nonEmpty.get(i));
+            }
+        }
+        return unprocessed;
+    }
+
+    private <R> List<R> runLane(List<R> lane, Function<List<R>, List<R>> laneWorker) {
+        try {
+            return laneWorker.apply(lane);
+        } catch (Exception e) {
+            log.error("Lane failed unexpectedly, {} records will be redelivered", lane.size(), e);
+            return lane;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+}
@@ -0,0 +1,52 @@
+package com.planify.notification.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Izračun offsetov za commit, ko se zapisi obdelujejo vzporedno.
+ * Za vsako particijo se potrdi le do prvega neobdelanega zapisa, zato se ob padcu nobeno delo ne preskoči.
+ */
+final class PartitionOffsets {
+
+    private PartitionOffsets() {
+    }
+
+    /**
+     * Potrdi obdelane offsete in particije z neobdelanimi zapisi previje nazaj na prvi neobdelan zapis.
+     *
+     * @return true, če je bila katera od particij previta
+     */
+    static boolean commitAndRewind(Consumer<?, ?> consumer,
+                                   List<? extends ConsumerRecord<?, ?>> records,
+                                   Collection<? extends ConsumerRecord<?, ?>> unprocessed) {
+        Map<TopicPartition, Long> next = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            next.merge(partitionOf(record), record.offset() + 1, Math::max);
+        }
+
+        Map<TopicPartition, Long> firstUnprocessed = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : unprocessed) {
+            firstUnprocessed.merge(partitionOf(record), record.offset(), Math::min);
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        next.forEach((partition, offset) ->
+                commits.put(partition, new OffsetAndMetadata(firstUnprocessed.getOrDefault(partition, offset))));
+        consumer.commitSync(commits);
+
+        firstUnprocessed.forEach(consumer::seek);
+        return !firstUnprocessed.isEmpty();
+    }
+
+    private static TopicPartition partitionOf(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+}
@@ -0,0 +1,130 @@
+package com.planify.notification.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Veriga retry topicov za vsak vhodni topic: {@code <topic>.retry-1 .. <topic>.retry-N} z naraščajočimi zamiki
+ * in {@code <topic>.dlt} za zapise, ki jih ni bilo mogoče obdelati niti po zadnjem poskusu.
+ */
+@Component
+@Profile("!azure")
+public class RetryTopics {
+
+    public static final String DUE_AT_HEADER = "x-retry-due-at";
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+
+    private static final Pattern RETRY_SUFFIX = Pattern.compile("^(.*)\\.retry-(\\d+)$");
+    private static final String DLT_SUFFIX = ".dlt";
+
+    private final NotificationTopics topics;
+    private final List<Duration> delays;
+
+    public RetryTopics(NotificationTopics topics,
+                       @Value("${kafka.retry.delays-ms:10000,60000,300000}") List<Long> delaysMs) {
+        this.topics = topics;
+        this.delays = delaysMs.stream().map(Duration::ofMillis).toList();
+    }
+
+    public String retryTopic(String topic, int level) {
+        return topic + ".retry-" + level;
+    }
+
+    public String dltTopic(String topic) {
+        return topic + DLT_SUFFIX;
+    }
+
+    /**
+     * Vhodni topic, iz katerega izvira zapis (za retry topic vrne prvotni topic).
+     */
+    public String baseTopic(String topic) {
+        Matcher matcher = RETRY_SUFFIX.matcher(topic);
+        return matcher.matches() ? matcher.group(1) : topic;
+    }
+
+    /**
+     * 0 za vhodni topic, sicer zaporedna številka retry topica.
+     */
+    public int level(String topic) {
+        Matcher matcher = RETRY_SUFFIX.matcher(topic);
+        return matcher.matches() ? Integer.parseInt(matcher.group(2)) : 0;
+    }
+
+    public int levels() {
+        return delays.size();
+    }
+
+    public String[] retryTopics() {
+        List<String> result = new ArrayList<>();
+        for (String topic : topics.all()) {
+            for (int level = 1; level <= delays.size(); level++) {
+                result.add(retryTopic(topic, level));
+            }
+        }
+        return result.toArray(String[]::new);
+    }
+
+    public List<String> dltTopics() {
+        return List.of(topics.all()).stream().map(this::dltTopic).toList();
+    }
+
+    /**
+     * Kam preusmeriti neuspel zapis: na naslednji retry topic ali, ko so poskusi porabljeni oz. zapisa sploh
+     * ni mogoče prebrati, na DLT. Particijo izbere Kafka glede na ključ, da zapisi istega prejemnika ostanejo skupaj.
+     */
+    public TopicPartition destination(ConsumerRecord<?, ?> record, Exception exception) {
+        String base = baseTopic(record.topic());
+        int next = level(record.topic()) + 1;
+        if (!isRetryable(exception) || next > delays.size()) {
+            return new TopicPartition(dltTopic(base), -1);
+        }
+        return new TopicPartition(retryTopic(base, next), -1);
+    }
+
+    /**
+     * Glave za preusmerjen zapis: zaporedni poskus in čas, ko je zapis na vrsti za ponovno obdelavo.
+     */
+    public Headers retryHeaders(ConsumerRecord<?, ?> record, Exception exception) {
+        int next = level(record.topic()) + 1;
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(ATTEMPT_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(next).array());
+        if (isRetryable(exception) && next <= delays.size()) {
+            long dueAt = System.currentTimeMillis() + delays.get(next - 1).toMillis();
+            headers.add(DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        }
+        return headers;
+    }
+
+    /**
+     * Čas (epoch ms), ko je zapis z retry topica na vrsti; 0, če glave ni.
+     */
+    public long dueAt(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(DUE_AT_HEADER);
+        return header == null ? 0L : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    public boolean isDlt(String topic) {
+        return topic.endsWith(DLT_SUFFIX);
+    }
+
+    /**
+     * Napačnega ali neberljivega zapisa ponovni poskus ne popravi, zato gre takoj na DLT.
+     */
+    private boolean isRetryable(Exception exception) {
+        return !(exception instanceof DeserializationException) && !(exception instanceof ClassCastException);
+    }
+}
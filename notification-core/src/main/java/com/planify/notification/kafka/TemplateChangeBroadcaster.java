@@ -0,0 +1,61 @@
+package com.planify.notification.kafka;
+
+import com.planify.notification.service.TemplateCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Razširi spremembe templatov na vse replike prek compacted topica (ključ zapisa je ključ templata).
+ * Vsaka replika si dodeli vse particije topica (brez consumer skupine), zato sporočilo dobijo vse.
+ * Zamujena sporočila niso pomembna, ker replika ob zagonu predpomnilnik napolni iz baze.
+ */
+@Component
+@Profile("!azure")
+@Slf4j
+public class TemplateChangeBroadcaster {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TemplateCache templateCache;
+    private final String topic;
+
+    public TemplateChangeBroadcaster(KafkaTemplate<String, Object> kafkaTemplate,
+                                     @Lazy TemplateCache templateCache,
+                                     @Value("${kafka.topics.template-changed}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.templateCache = templateCache;
+        this.topic = topic;
+    }
+
+    public void publish(String templateKey) {
+        kafkaTemplate.send(topic, templateKey, Instant.now().toString())
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Failed to broadcast change of template {}, other replicas keep the cached copy", templateKey, ex);
+                    }
+                });
+    }
+
+    @KafkaListener(
+            id = "notification-template-changes",
+            // Topic ima eno particijo (glej KafkaConsumerConfig.templateChangedTopic)
+            topicPartitions = @TopicPartition(topic = "${kafka.topics.template-changed}", partitions = "0"),
+            containerFactory = "assignedKafkaListenerContainerFactory",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onTemplateChanged(ConsumerRecord<String, String> record) {
+        if (record.key() == null) {
+            return;
+        }
+        log.debug("Template {} changed, evicting cached copy", record.key());
+        templateCache.invalidateLocal(record.key());
+    }
+}
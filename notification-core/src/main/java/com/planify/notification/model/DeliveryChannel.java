@@ -0,0 +1,6 @@
+package com.planify.notification.model;
+
+public enum DeliveryChannel {
+    EMAIL,
+    SMS
+}
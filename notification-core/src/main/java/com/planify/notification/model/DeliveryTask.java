@@ -0,0 +1,69 @@
+package com.planify.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Naloga za dostavo enega obvestila po zunanjem kanalu (outbox).
+ */
+@Entity
+@Table(name = "delivery_tasks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "notification_log_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private NotificationLog notificationLog;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private DeliveryChannel channel;
+
+    @Column(nullable = false, length = 255)
+    private String recipient;
+
+    @Column(length = 200)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private DeliveryTaskStatus status = DeliveryTaskStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "external_id", length = 255)
+    private String externalId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
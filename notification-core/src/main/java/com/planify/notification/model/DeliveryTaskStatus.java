@@ -0,0 +1,8 @@
+package com.planify.notification.model;
+
+public enum DeliveryTaskStatus {
+    PENDING,
+    IN_PROGRESS,
+    SENT,
+    FAILED
+}
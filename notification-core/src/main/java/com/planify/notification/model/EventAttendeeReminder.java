@@ -45,6 +45,10 @@ public class EventAttendeeReminder {
     @Column(name = "sent_at")
     private OffsetDateTime sentAt;
 
+    // Kdaj si je opomnik prevzel posel za pošiljanje (glej EventAttendeeReminderRepository.claimUnsent)
+    @Column(name = "claimed_at")
+    private OffsetDateTime claimedAt;
+
     @OneToOne
     @JoinColumn(name = "notification_log_id")
     private NotificationLog notificationLog;
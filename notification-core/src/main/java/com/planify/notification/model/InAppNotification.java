@@ -1,9 +1,12 @@
 package com.planify.notification.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -29,8 +32,19 @@ public class InAppNotification {
     @Column(nullable = false, length = 200)
     private String title;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String message;
+    @Column(name = "message_hash", nullable = false, length = 64)
+    @JsonIgnore
+    private String messageHash; // SHA-256 besedila v message_bodies
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "message_hash", insertable = false, updatable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private MessageBody messageBody;
+
+    @Transient
+    private String message; // novo besedilo, dokler ni shranjeno v message_bodies
 
     @Column(name = "notification_type", length = 50)
     private String notificationType; // invitation, join_request, event_update, etc.
@@ -57,4 +71,11 @@ public class InAppNotification {
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "JSONB")
     private Map<String, Object> metadata; // Additional data as JSON
+
+    public String getMessage() {
+        if (message == null && messageBody != null) {
+            message = messageBody.getContent();
+        }
+        return message;
+    }
 }
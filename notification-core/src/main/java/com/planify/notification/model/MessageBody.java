@@ -0,0 +1,29 @@
+package com.planify.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Izrisano besedilo obvestila, shranjeno enkrat in naslovljeno s SHA-256 vsebine (V12__message_bodies.sql).
+ * Logi in in-app obvestila se nanj sklicujejo s hashem; vrstice zapisuje MessageBodyStore.
+ */
+@Entity
+@Table(name = "message_bodies")
+@Immutable
+@BatchSize(size = 50)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageBody {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+}
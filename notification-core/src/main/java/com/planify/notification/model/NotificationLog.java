@@ -1,9 +1,12 @@
 package com.planify.notification.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigInteger;
@@ -43,8 +46,19 @@ public class NotificationLog {
     @Column(nullable = false, length = 200)
     private String subject;
 
-    @Column(columnDefinition = "TEXT")
-    private String body;
+    @Column(name = "body_hash", length = 64)
+    @JsonIgnore
+    private String bodyHash; // SHA-256 besedila v message_bodies
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "body_hash", insertable = false, updatable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private MessageBody storedBody;
+
+    @Transient
+    private String body; // novo besedilo, dokler ni shranjeno v message_bodies
 
     @Column(nullable = false, length = 20)
     @Enumerated(EnumType.STRING)
@@ -59,10 +73,20 @@ public class NotificationLog {
     @Column(name = "retry_count")
     private Integer retryCount = 0;
 
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt; // naslednji ponovni poskus dostave (status RETRYING)
+
     @Column(name = "external_id", length = 255)
     private String externalId; // SendGrid/Twilio message ID
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    public String getBody() {
+        if (body == null && storedBody != null) {
+            body = storedBody.getContent();
+        }
+        return body;
+    }
 }
@@ -0,0 +1,29 @@
+package com.planify.notification.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.util.UUID;
+
+/**
+ * Število neprebranih in-app obvestil uporabnika. Vrstice vzdržujejo sprožilci v bazi (V7__unread_counters.sql),
+ * aplikacija jih le bere.
+ */
+@Entity
+@Table(name = "in_app_unread_counters")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+}
@@ -0,0 +1,40 @@
+package com.planify.notification.repository;
+
+import com.planify.notification.model.DeliveryTask;
+import com.planify.notification.model.DeliveryTaskStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DeliveryTaskRepository extends JpaRepository<DeliveryTask, UUID> {
+
+    /**
+     * Zaklene čakajoče naloge, ki so na vrsti za (ponovni) poskus, najstarejše najprej.
+     * Zaklenjene vrstice drugi dispatcherji preskočijo (SKIP LOCKED).
+     */
+    @Query(value = """
+            SELECT * FROM delivery_tasks
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<DeliveryTask> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Vrne v čakanje naloge, katerih dispatcher je med pošiljanjem izginil (npr. ob padcu instance).
+     */
+    @Modifying
+    @Query("UPDATE DeliveryTask t SET t.status = com.planify.notification.model.DeliveryTaskStatus.PENDING, t.lockedAt = null WHERE t.status = com.planify.notification.model.DeliveryTaskStatus.IN_PROGRESS AND t.lockedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore);
+
+    boolean existsByNotificationLogIdAndStatusIn(UUID notificationLogId, Collection<DeliveryTaskStatus> statuses);
+}
@@ -2,12 +2,15 @@ package com.planify.notification.repository;
 
 import com.planify.notification.model.EventAttendeeReminder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,7 +20,31 @@ public interface EventAttendeeReminderRepository extends JpaRepository<EventAtte
 
     Optional<EventAttendeeReminder> findByEventIdAndUserId(UUID eventId, UUID userId);
 
-    @Query("SELECT ea FROM EventAttendeeReminder ea WHERE ea.eventStartAt >= :from AND ea.eventStartAt < :to")
-    List<EventAttendeeReminder> findAllBetween(@Param("from") OffsetDateTime from,
-                                       @Param("to") OffsetDateTime to);
+    /**
+     * Prevzame do limit neposlanih opomnikov v oknu (po event_start_at, id) in jih označi s claimedAt.
+     * Vrstice, ki jih ima prevzete drug posel (prevzem mlajši od staleBefore) ali jih ta trenutek prevzema, se preskočijo.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE event_attendee_reminders SET claimed_at = :claimedAt
+            WHERE id IN (
+                SELECT id FROM event_attendee_reminders
+                WHERE is_sent = false
+                  AND event_start_at >= :from AND event_start_at < :to
+                  AND (claimed_at IS NULL OR claimed_at < :staleBefore)
+                ORDER BY event_start_at, id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<EventAttendeeReminder> claimUnsent(@Param("from") OffsetDateTime from,
+                                            @Param("to") OffsetDateTime to,
+                                            @Param("staleBefore") OffsetDateTime staleBefore,
+                                            @Param("claimedAt") OffsetDateTime claimedAt,
+                                            @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EventAttendeeReminder ea SET ea.isSent = true, ea.sentAt = :sentAt WHERE ea.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("sentAt") OffsetDateTime sentAt);
 }
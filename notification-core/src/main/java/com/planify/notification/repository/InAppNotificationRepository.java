@@ -1,22 +1,171 @@
 package com.planify.notification.repository;
 
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.dto.InAppNotificationSummary;
 import com.planify.notification.model.InAppNotification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface InAppNotificationRepository extends JpaRepository<InAppNotification, UUID> {
 
-    List<InAppNotification> findByUserIdOrderByCreatedAtDesc(UUID userId);
+    // Povzetek za sezname: brez metadata, sporočilo (iz message_bodies) skrajša že baza
+    String SUMMARY_SELECT = "SELECT new com.planify.notification.dto.InAppNotificationSummary("
+            + "n.id, n.title, substring(b.content, 1, " + InAppNotificationSummary.PREVIEW_LENGTH + "), "
+            + "n.notificationType, n.referenceId, n.referenceType, n.actionUrl, n.isRead, n.createdAt) "
+            + "FROM InAppNotification n LEFT JOIN n.messageBody b ";
 
+    /**
+     * Besedilo (message_bodies) se naloži v isti poizvedbi, ne z dodatnim SELECT-om za vsako obvestilo.
+     */
+    @EntityGraph(attributePaths = "messageBody")
     Page<InAppNotification> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
 
-    List<InAppNotification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(UUID userId);
+    @Override
+    @EntityGraph(attributePaths = "messageBody")
+    Optional<InAppNotification> findById(UUID id);
 
     long countByUserIdAndIsReadFalse(UUID userId);
+
+    /**
+     * Prva stran feeda (najnovejša obvestila).
+     */
+    @Query(SUMMARY_SELECT + """
+            WHERE n.userId = :userId
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<InAppNotificationSummary> findFeed(@Param("userId") UUID userId, Limit limit);
+
+    /**
+     * Naslednja stran feeda: obvestila, starejša od kazalca (created_at, id) zadnjega prikazanega obvestila.
+     */
+    @Query(SUMMARY_SELECT + """
+            WHERE n.userId = :userId AND (n.createdAt, n.id) < (:createdAt, :id)
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<InAppNotificationSummary> findFeedAfter(@Param("userId") UUID userId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") UUID id,
+                                                 Limit limit);
+
+    /**
+     * Prva stran neprebranih obvestil.
+     */
+    @Query(SUMMARY_SELECT + """
+            WHERE n.userId = :userId AND n.isRead = false
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<InAppNotificationSummary> findUnread(@Param("userId") UUID userId, Limit limit);
+
+    /**
+     * Naslednja stran neprebranih obvestil po kazalcu (created_at, id).
+     */
+    @Query(SUMMARY_SELECT + """
+            WHERE n.userId = :userId AND n.isRead = false AND (n.createdAt, n.id) < (:createdAt, :id)
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<InAppNotificationSummary> findUnreadAfter(@Param("userId") UUID userId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") UUID id,
+                                                   Limit limit);
+
+    /**
+     * Označi vsa neprebrana obvestila uporabnika kot prebrana z enim UPDATE stavkom.
+     *
+     * @return število označenih obvestil
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE InAppNotification n SET n.isRead = true, n.readAt = :readAt WHERE n.userId = :userId AND n.isRead = false")
+    int markAllAsRead(@Param("userId") UUID userId, @Param("readAt") LocalDateTime readAt);
+
+    /**
+     * Označi izbrana neprebrana obvestila uporabnika kot prebrana; tuja obvestila se preskočijo.
+     *
+     * @return število označenih obvestil
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE InAppNotification n SET n.isRead = true, n.readAt = :readAt WHERE n.userId = :userId AND n.id IN :ids AND n.isRead = false")
+    int markAsRead(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids, @Param("readAt") LocalDateTime readAt);
+
+    /**
+     * Izbriše vsa obvestila uporabnika z enim DELETE stavkom.
+     *
+     * @return število izbrisanih obvestil
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InAppNotification n WHERE n.userId = :userId")
+    int deleteAllByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Ključi prebranih obvestil, starejših od meje, po naraščajočem (created_at, id) za kazalcem.
+     */
+    @Query("""
+            SELECT new com.planify.notification.dto.FeedCursor(n.createdAt, n.id)
+            FROM InAppNotification n
+            WHERE n.isRead = true AND n.createdAt < :cutoff AND (n.createdAt, n.id) > (:createdAt, :id)
+            ORDER BY n.createdAt, n.id
+            """)
+    List<FeedCursor> findReadBefore(@Param("cutoff") LocalDateTime cutoff,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    Limit limit);
+
+    /**
+     * Uporabniki z več kot maxPerUser obvestili, po naraščajočem user_id za kazalcem. Bere števec
+     * in_app_notification_counts (vzdržujejo ga sprožilci), ne šteje obvestil.
+     */
+    @Query(value = """
+            SELECT user_id FROM in_app_notification_counts
+            WHERE total_count > :maxPerUser AND user_id > :after
+            ORDER BY user_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> findUsersWithMoreThan(@Param("maxPerUser") long maxPerUser, @Param("after") UUID after, @Param("limit") int limit);
+
+    /**
+     * Ključi obvestil uporabnika od najnovejšega naprej; s stranjo velikosti 1 na odmiku maxPerUser - 1 vrne
+     * najstarejše obvestilo, ki ga uporabnik še obdrži.
+     */
+    @Query("""
+            SELECT new com.planify.notification.dto.FeedCursor(n.createdAt, n.id)
+            FROM InAppNotification n
+            WHERE n.userId = :userId
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<FeedCursor> findCursorsNewestFirst(@Param("userId") UUID userId, Pageable pageable);
+
+    /**
+     * ID-ji najstarejših obvestil uporabnika, starejših od kazalca (created_at, id).
+     */
+    @Query("""
+            SELECT n.id FROM InAppNotification n
+            WHERE n.userId = :userId AND (n.createdAt, n.id) < (:createdAt, :id)
+            ORDER BY n.createdAt, n.id
+            """)
+    List<UUID> findIdsOlderThan(@Param("userId") UUID userId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") UUID id,
+                                Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InAppNotification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
 }
@@ -1,21 +1,40 @@
 package com.planify.notification.repository;
 
 import com.planify.notification.model.NotificationLog;
-import com.planify.notification.model.NotificationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface NotificationLogRepository extends JpaRepository<NotificationLog, UUID> {
 
-    List<NotificationLog> findByEventId(UUID eventId);
+    /**
+     * Besedilo (message_bodies) se naloži v isti poizvedbi, ne z dodatnim SELECT-om za vsak log.
+     * Meja created_at omogoči, da baza bere le particije v oknu.
+     */
+    @EntityGraph(attributePaths = "storedBody")
+    Page<NotificationLog> findByCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+            LocalDateTime from, LocalDateTime to, Pageable pageable);
 
-    List<NotificationLog> findByUserId(UUID userId);
+    @EntityGraph(attributePaths = "storedBody")
+    List<NotificationLog> findByUserIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByCreatedAtAsc(
+            UUID userId, LocalDateTime from, LocalDateTime to);
 
-    List<NotificationLog> findByStatus(NotificationStatus status);
-
-    List<NotificationLog> findByStatusAndRetryCountLessThan(NotificationStatus status, Integer maxRetries);
+    /**
+     * Zaklene log, da ga dispatcherji za različne kanale istega obvestila ne posodabljajo hkrati.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM NotificationLog l WHERE l.id = :id")
+    Optional<NotificationLog> lockById(@Param("id") UUID id);
 }
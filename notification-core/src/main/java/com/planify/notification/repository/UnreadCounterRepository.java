@@ -0,0 +1,11 @@
+package com.planify.notification.repository;
+
+import com.planify.notification.model.UnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface UnreadCounterRepository extends JpaRepository<UnreadCounter, UUID> {
+}
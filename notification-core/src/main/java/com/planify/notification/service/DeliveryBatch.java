@@ -0,0 +1,58 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.DeliveryTask;
+import com.planify.notification.model.InAppNotification;
+import com.planify.notification.model.NotificationLog;
+import com.planify.notification.model.NotificationTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Zbirka obvestil, ki nastanejo med obdelavo enega Kafka poll-a.
+ * Predloge se razrešijo enkrat na batch, vrstice (logi, in-app obvestila in outbox naloge) pa se na koncu
+ * shranijo skupaj (JDBC batch insert).
+ */
+class DeliveryBatch {
+
+    private final Map<String, Optional<NotificationTemplate>> templates = new HashMap<>();
+    private final List<NotificationLog> logs = new ArrayList<>();
+    private final List<InAppNotification> inAppNotifications = new ArrayList<>();
+    private final List<DeliveryTask> deliveryTasks = new ArrayList<>();
+
+    Optional<NotificationTemplate> template(String templateKey, Function<String, Optional<NotificationTemplate>> loader) {
+        return templates.computeIfAbsent(templateKey, loader);
+    }
+
+    void addLog(NotificationLog log) {
+        logs.add(log);
+    }
+
+    void addInAppNotification(InAppNotification notification) {
+        inAppNotifications.add(notification);
+    }
+
+    void addDeliveryTask(DeliveryTask task) {
+        deliveryTasks.add(task);
+    }
+
+    List<NotificationLog> getLogs() {
+        return logs;
+    }
+
+    List<InAppNotification> getInAppNotifications() {
+        return inAppNotifications;
+    }
+
+    List<DeliveryTask> getDeliveryTasks() {
+        return deliveryTasks;
+    }
+
+    boolean isEmpty() {
+        return logs.isEmpty() && inAppNotifications.isEmpty() && deliveryTasks.isEmpty();
+    }
+}
@@ -0,0 +1,106 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.DeliveryTask;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Dostavlja naloge iz outbox tabele (delivery_tasks) prek SendGrid in Vonage.
+ * Naloge se prevzamejo v kratki transakciji, ponudniki pa se kličejo izven nje, zato čas odziva ponudnika
+ * ne vpliva na Kafka consumerje niti na zasedenost povezav do baze.
+ */
+@Component
+@Slf4j
+public class DeliveryDispatcher {
+
+    private final DeliveryTaskService deliveryTaskService;
+    private final EmailService emailService;
+    private final SmsService smsService;
+    private final int batchSize;
+    private final Duration lockTimeout;
+    private final ExecutorService executor;
+
+    public DeliveryDispatcher(DeliveryTaskService deliveryTaskService,
+                              EmailService emailService,
+                              SmsService smsService,
+                              @Value("${notification.delivery.dispatchers:4}") int dispatchers,
+                              @Value("${notification.delivery.batch-size:50}") int batchSize,
+                              @Value("${notification.delivery.lock-timeout-seconds:300}") long lockTimeoutSeconds) {
+        this.deliveryTaskService = deliveryTaskService;
+        this.emailService = emailService;
+        this.smsService = smsService;
+        this.batchSize = batchSize;
+        this.lockTimeout = Duration.ofSeconds(lockTimeoutSeconds);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, dispatchers));
+    }
+
+    /**
+     * Prevzema in pošilja naloge, dokler jih je v bazi za cel batch.
+     */
+    @Scheduled(fixedDelayString = "${notification.delivery.poll-interval-ms:500}")
+    public void dispatch() {
+        List<DeliveryTask> tasks;
+        do {
+            tasks = deliveryTaskService.claim(batchSize);
+            if (tasks.isEmpty()) {
+                return;
+            }
+            List<Callable<Void>> deliveries = tasks.stream()
+                    .<Callable<Void>>map(task -> () -> {
+                        deliver(task);
+                        return null;
+                    })
+                    .toList();
+            try {
+                executor.invokeAll(deliveries);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        } while (tasks.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.delivery.release-interval-ms:60000}")
+    public void releaseStaleTasks() {
+        deliveryTaskService.releaseStale(lockTimeout);
+    }
+
+    private void deliver(DeliveryTask task) {
+        String externalId;
+        try {
+            externalId = switch (task.getChannel()) {
+                case EMAIL -> emailService.sendEmail(task.getRecipient(), task.getSubject(), task.getBody());
+                case SMS -> smsService.sendSms(task.getRecipient(), task.getBody(), 160);
+            };
+            log.info("Delivered {} notification to {}", task.getChannel(), task.getRecipient());
+        } catch (Exception e) {
+            log.error("Failed to deliver {} notification to {}", task.getChannel(), task.getRecipient(), e);
+            record(task, () -> deliveryTaskService.fail(task.getId(), e.getMessage()));
+            return;
+        }
+        record(task, () -> deliveryTaskService.complete(task.getId(), externalId));
+    }
+
+    private void record(DeliveryTask task, Runnable update) {
+        try {
+            update.run();
+        } catch (Exception e) {
+            // Naloga ostane IN_PROGRESS in se po izteku zaklepa vrne v čakanje
+            log.error("Failed to record delivery result of task {}", task.getId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,166 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.DeliveryChannel;
+import com.planify.notification.model.DeliveryTask;
+import com.planify.notification.model.DeliveryTaskStatus;
+import com.planify.notification.model.NotificationLog;
+import com.planify.notification.model.NotificationStatus;
+import com.planify.notification.repository.DeliveryTaskRepository;
+import com.planify.notification.repository.NotificationLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Kratke transakcije nad outbox tabelo. Klici zunanjih ponudnikov potekajo izven njih (v DeliveryDispatcher).
+ * Neuspela dostava se ne ponavlja v niti, ampak se naloga vrne v čakanje z zamikom (next_attempt_at),
+ * ki eksponentno narašča z vsakim poskusom.
+ */
+@Service
+@Slf4j
+public class DeliveryTaskService {
+
+    private final DeliveryTaskRepository deliveryTaskRepository;
+    private final NotificationLogRepository logRepository;
+    private final int emailMaxAttempts;
+    private final int smsMaxAttempts;
+    private final Duration initialBackoff;
+    private final double backoffMultiplier;
+    private final Duration maxBackoff;
+
+    public DeliveryTaskService(DeliveryTaskRepository deliveryTaskRepository,
+                               NotificationLogRepository logRepository,
+                               @Value("${notification.email.retry-attempts:3}") int emailMaxAttempts,
+                               @Value("${notification.sms.retry-attempts:3}") int smsMaxAttempts,
+                               @Value("${notification.delivery.retry.initial-backoff-seconds:30}") long initialBackoffSeconds,
+                               @Value("${notification.delivery.retry.multiplier:2.0}") double backoffMultiplier,
+                               @Value("${notification.delivery.retry.max-backoff-seconds:3600}") long maxBackoffSeconds) {
+        this.deliveryTaskRepository = deliveryTaskRepository;
+        this.logRepository = logRepository;
+        this.emailMaxAttempts = emailMaxAttempts;
+        this.smsMaxAttempts = smsMaxAttempts;
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+        this.backoffMultiplier = backoffMultiplier;
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+    }
+
+    /**
+     * Prevzame do limit nalog, ki so na vrsti, in jih označi kot IN_PROGRESS.
+     */
+    @Transactional
+    public List<DeliveryTask> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DeliveryTask> tasks = deliveryTaskRepository.lockDue(now, limit);
+        for (DeliveryTask task : tasks) {
+            task.setStatus(DeliveryTaskStatus.IN_PROGRESS);
+            task.setLockedAt(now);
+            task.setAttempts(task.getAttempts() + 1);
+        }
+        return tasks;
+    }
+
+    @Transactional
+    public void complete(UUID taskId, String externalId) {
+        DeliveryTask task = deliveryTaskRepository.findById(taskId).orElse(null);
+        if (task == null) {
+            return;
+        }
+        task.setStatus(DeliveryTaskStatus.SENT);
+        task.setExternalId(externalId);
+        task.setLockedAt(null);
+        task.setLastError(null);
+
+        logRepository.lockById(task.getNotificationLog().getId()).ifPresent(notificationLog -> {
+            if (notificationLog.getExternalId() == null) {
+                notificationLog.setExternalId(externalId);
+            }
+            if (notificationLog.getStatus() != NotificationStatus.SENT) {
+                notificationLog.setStatus(NotificationStatus.SENT);
+                notificationLog.setSentAt(LocalDateTime.now());
+                notificationLog.setErrorMessage(null);
+                notificationLog.setNextAttemptAt(null);
+            }
+        });
+    }
+
+    /**
+     * Zabeleži neuspel poskus. Dokler kanal ne porabi vseh poskusov, se naloga vrne v čakanje z zamikom,
+     * sicer je dokončno neuspešna.
+     */
+    @Transactional
+    public void fail(UUID taskId, String error) {
+        DeliveryTask task = deliveryTaskRepository.findById(taskId).orElse(null);
+        if (task == null) {
+            return;
+        }
+        task.setLockedAt(null);
+        task.setLastError(error);
+
+        if (task.getAttempts() < maxAttempts(task.getChannel())) {
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(task.getAttempts()));
+            task.setStatus(DeliveryTaskStatus.PENDING);
+            task.setNextAttemptAt(nextAttemptAt);
+            log.info("Delivery task {} failed (attempt {}), retrying at {}", task.getId(), task.getAttempts(), nextAttemptAt);
+
+            logRepository.lockById(task.getNotificationLog().getId()).ifPresent(notificationLog -> {
+                if (notificationLog.getStatus() == NotificationStatus.SENT) {
+                    return;
+                }
+                notificationLog.setStatus(NotificationStatus.RETRYING);
+                notificationLog.setRetryCount(notificationLog.getRetryCount() == null ? 1 : notificationLog.getRetryCount() + 1);
+                notificationLog.setErrorMessage(error);
+                if (notificationLog.getNextAttemptAt() == null || nextAttemptAt.isBefore(notificationLog.getNextAttemptAt())) {
+                    notificationLog.setNextAttemptAt(nextAttemptAt);
+                }
+            });
+            return;
+        }
+
+        task.setStatus(DeliveryTaskStatus.FAILED);
+        log.warn("Delivery task {} failed after {} attempts", task.getId(), task.getAttempts());
+
+        UUID logId = task.getNotificationLog().getId();
+        logRepository.lockById(logId).ifPresent(notificationLog -> {
+            // Log je neuspešen šele, ko ni uspel noben kanal in nobena naloga več ne čaka
+            boolean pending = deliveryTaskRepository.existsByNotificationLogIdAndStatusIn(logId,
+                    EnumSet.of(DeliveryTaskStatus.PENDING, DeliveryTaskStatus.IN_PROGRESS));
+            if (notificationLog.getStatus() != NotificationStatus.SENT && !pending) {
+                notificationLog.setStatus(NotificationStatus.FAILED);
+                notificationLog.setErrorMessage(error);
+                notificationLog.setNextAttemptAt(null);
+            }
+        });
+    }
+
+    @Transactional
+    public int releaseStale(Duration lockTimeout) {
+        int released = deliveryTaskRepository.releaseStale(LocalDateTime.now().minus(lockTimeout));
+        if (released > 0) {
+            log.warn("Released {} delivery tasks with expired locks", released);
+        }
+        return released;
+    }
+
+    private int maxAttempts(DeliveryChannel channel) {
+        return channel == DeliveryChannel.EMAIL ? emailMaxAttempts : smsMaxAttempts;
+    }
+
+    /**
+     * Zamik pred naslednjim poskusom: initial * multiplier^(attempts-1), navzgor omejen, z do 20 % naključnega raztrosa,
+     * da se naloge, ki so padle hkrati (npr. ob izpadu ponudnika), ne vrnejo vse v istem trenutku.
+     */
+    Duration backoff(int attempts) {
+        double seconds = initialBackoff.toSeconds() * Math.pow(backoffMultiplier, Math.max(0, attempts - 1));
+        long capped = (long) Math.min(seconds, maxBackoff.toSeconds());
+        long jitter = (long) (capped * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofSeconds(capped + jitter);
+    }
+}
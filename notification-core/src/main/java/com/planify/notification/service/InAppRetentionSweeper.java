@@ -0,0 +1,173 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.repository.InAppNotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Periodično čisti in_app_notifications: izbriše prebrana obvestila, starejša od read-days, in najstarejša
+ * obvestila uporabnikov z več kot max-per-user obvestili. Briše v majhnih paketih, vsak paket v svoji kratki
+ * transakciji, prebrana obvestila pa išče s kazalcem (created_at, id), zato ne pregleduje istih vrstic znova.
+ * Uporabnike nad omejitvijo bere iz števca in_app_notification_counts, po straneh s kazalcem po user_id; za vsakega
+ * enkrat poišče najstarejše obvestilo, ki ostane, in briše starejša od njega.
+ * Ob več replikah se sweep izvede le na tisti, ki dobi advisory lock. Lock drži zunanja transakcija,
+ * paketi brisanja pa se potrdijo vsak v svoji (REQUIRES_NEW).
+ */
+@Component
+@Slf4j
+public class InAppRetentionSweeper {
+
+    // Začetni kazalec: pred vsemi obvestili
+    private static final FeedCursor START = new FeedCursor(LocalDateTime.of(1970, 1, 1, 0, 0), new UUID(0, 0));
+
+    private final InAppNotificationRepository inAppNotificationRepository;
+    private final UnreadCountService unreadCountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lockTransaction;
+    private final TransactionTemplate batchTransaction;
+    private final boolean enabled;
+    private final int readDays;
+    private final long maxPerUser;
+    private final int batchSize;
+    private final Counter expiredRemoved;
+    private final Counter overCapRemoved;
+    private final Timer sweepTimer;
+
+    public InAppRetentionSweeper(InAppNotificationRepository inAppNotificationRepository,
+                                 UnreadCountService unreadCountService,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notification.in-app.retention.enabled:true}") boolean enabled,
+                                 @Value("${notification.in-app.retention.read-days:90}") int readDays,
+                                 @Value("${notification.in-app.retention.max-per-user:1000}") long maxPerUser,
+                                 @Value("${notification.in-app.retention.batch-size:500}") int batchSize) {
+        this.inAppNotificationRepository = inAppNotificationRepository;
+        this.unreadCountService = unreadCountService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.readDays = readDays;
+        this.maxPerUser = maxPerUser;
+        this.batchSize = Math.max(1, batchSize);
+        this.expiredRemoved = Counter.builder("notification.in_app.retention.removed")
+                .description("In-app notifications removed by the retention sweeper")
+                .tag("reason", "read_expired")
+                .register(meterRegistry);
+        this.overCapRemoved = Counter.builder("notification.in_app.retention.removed")
+                .description("In-app notifications removed by the retention sweeper")
+                .tag("reason", "user_cap")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("notification.in_app.retention.sweep.time")
+                .description("Duration of one retention sweep")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.in-app.retention.sweep-interval-ms:3600000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        sweepTimer.record(() -> {
+            try {
+                lockTransaction.executeWithoutResult(status -> {
+                    Boolean locked = jdbcTemplate.queryForObject(
+                            "SELECT pg_try_advisory_xact_lock(hashtext('in_app_retention_sweep'))", Boolean.class);
+                    if (!Boolean.TRUE.equals(locked)) {
+                        log.debug("In-app notification retention sweep is running on another replica");
+                        return;
+                    }
+                    int expired = readDays > 0 ? removeExpiredRead(LocalDateTime.now().minusDays(readDays)) : 0;
+                    int overCap = maxPerUser > 0 ? removeOverCap() : 0;
+                    if (expired > 0 || overCap > 0) {
+                        log.info("Retention sweep removed {} expired read and {} over-cap in-app notifications", expired, overCap);
+                    }
+                });
+            } catch (Exception e) {
+                log.error("In-app notification retention sweep failed", e);
+            }
+        });
+    }
+
+    int removeExpiredRead(LocalDateTime cutoff) {
+        int removed = 0;
+        FeedCursor after = START;
+        List<FeedCursor> batch;
+        do {
+            batch = inAppNotificationRepository.findReadBefore(cutoff, after.createdAt(), after.id(), Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            int deleted = delete(batch.stream().map(FeedCursor::id).toList());
+            expiredRemoved.increment(deleted);
+            removed += deleted;
+            after = batch.get(batch.size() - 1);
+        } while (batch.size() == batchSize);
+        return removed;
+    }
+
+    int removeOverCap() {
+        int removed = 0;
+        UUID after = START.id();
+        List<UUID> users;
+        do {
+            users = inAppNotificationRepository.findUsersWithMoreThan(maxPerUser, after, batchSize);
+            for (UUID userId : users) {
+                removed += trimUser(userId);
+            }
+            if (!users.isEmpty()) {
+                after = users.get(users.size() - 1);
+            }
+        } while (users.size() == batchSize);
+        return removed;
+    }
+
+    private int trimUser(UUID userId) {
+        // Najstarejše obvestilo, ki ostane; poišče se enkrat, paketi nato brišejo le starejša od njega
+        List<FeedCursor> oldestKept = inAppNotificationRepository.findCursorsNewestFirst(
+                userId, PageRequest.of((int) Math.min(maxPerUser - 1, Integer.MAX_VALUE), 1));
+        if (oldestKept.isEmpty()) {
+            return 0;
+        }
+        FeedCursor boundary = oldestKept.get(0);
+        int removed = 0;
+        List<UUID> ids;
+        do {
+            ids = inAppNotificationRepository.findIdsOlderThan(
+                    userId, boundary.createdAt(), boundary.id(), Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            int deleted = delete(ids);
+            overCapRemoved.increment(deleted);
+            removed += deleted;
+        } while (ids.size() == batchSize);
+        // Med izbrisanimi so lahko tudi neprebrana obvestila
+        unreadCountService.requestPush(userId);
+        return removed;
+    }
+
+    // Vsak paket v svoji kratki transakciji, ne v zunanji, ki drži lock
+    private int delete(List<UUID> ids) {
+        Integer deleted = batchTransaction.execute(status -> inAppNotificationRepository.deleteByIds(ids));
+        return deleted != null ? deleted : 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.planify.notification.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Shramba izrisanih besedil obvestil (message_bodies), naslovljena s SHA-256 vsebine. Enako besedilo
+ * (npr. isto obvestilo za vse administratorje) se shrani enkrat; stiskanje opravi PostgreSQL (TOAST).
+ * Besedila, na katera se ne sklicuje noben log ali in-app obvestilo, periodično odstrani.
+ */
+@Service
+@Slf4j
+public class MessageBodyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int unusedDays;
+    private final int batchSize;
+
+    public MessageBodyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${notification.message-bodies.unused-days:1}") int unusedDays,
+                            @Value("${notification.message-bodies.cleanup-batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.unusedDays = Math.max(1, unusedDays);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @return hash besedila ali null, če je besedilo null
+     */
+    public String store(String content) {
+        if (content == null) {
+            return null;
+        }
+        return storeAll(List.of(content)).get(content);
+    }
+
+    /**
+     * Shrani besedila v trenutni transakciji (vsako različno besedilo enkrat). Obstoječa besedila se ne posodabljajo,
+     * le zaklenejo s FOR KEY SHARE do konca transakcije, da jih čiščenje ne odstrani, preden se nanje sklicujejo
+     * shranjeni logi. FOR KEY SHARE se ne izključuje z drugimi bralci, zato batchi z istim besedilom ne čakajo drug na drugega.
+     *
+     * @return hash za vsako besedilo (null besedila so izpuščena)
+     */
+    public Map<String, String> storeAll(Collection<String> contents) {
+        // Urejeno po hashu: sočasni batchi zaklepajo vrstice v istem vrstnem redu
+        Map<String, String> byHash = new TreeMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (String content : contents) {
+            if (content != null && !hashes.containsKey(content)) {
+                String hash = hash(content);
+                hashes.put(content, hash);
+                byHash.put(hash, content);
+            }
+        }
+        if (byHash.isEmpty()) {
+            return hashes;
+        }
+
+        insertMissing(byHash);
+        Set<String> locked = lock(byHash.keySet());
+        if (locked.size() < byHash.size()) {
+            // Čiščenje je besedilo odstranilo med vstavljanjem in zaklepanjem: vstavimo ga znova
+            Map<String, String> removed = new TreeMap<>(byHash);
+            removed.keySet().removeAll(locked);
+            insertMissing(removed);
+            lock(removed.keySet());
+        }
+        return hashes;
+    }
+
+    private void insertMissing(Map<String, String> byHash) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(byHash.size());
+        byHash.forEach((hash, content) -> rows.add(new Object[]{hash, content, now}));
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO message_bodies (hash, content, last_used_at) VALUES (?, ?, ?)
+                ON CONFLICT (hash) DO NOTHING
+                """, rows);
+    }
+
+    /**
+     * @return hashi besedil, ki obstajajo in so zaklenjena do konca transakcije
+     */
+    private Set<String> lock(Collection<String> hashes) {
+        String placeholders = String.join(", ", Collections.nCopies(hashes.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT hash FROM message_bodies WHERE hash IN (" + placeholders + ") ORDER BY hash FOR KEY SHARE",
+                String.class, hashes.toArray()));
+    }
+
+    /**
+     * Odstrani besedila, ki niso bila uporabljena vsaj unused-days in se nanje ne sklicuje nobena vrstica.
+     */
+    @Scheduled(cron = "${notification.message-bodies.cleanup-cron:0 45 3 * * *}")
+    public void removeUnreferenced() {
+        Timestamp unusedSince = Timestamp.valueOf(LocalDateTime.now().minusDays(unusedDays));
+        int removed = 0;
+        int deleted;
+        try {
+            do {
+                // Vrstice, ki jih ravno uporablja shranjevanje (zaklenjene), preskočimo
+                deleted = jdbcTemplate.update("""
+                        DELETE FROM message_bodies WHERE hash IN (
+                            SELECT b.hash FROM message_bodies b
+                            WHERE b.last_used_at < ?
+                              AND NOT EXISTS (SELECT 1 FROM notification_logs l WHERE l.body_hash = b.hash)
+                              AND NOT EXISTS (SELECT 1 FROM in_app_notifications n WHERE n.message_hash = b.hash)
+                            LIMIT ?
+                            FOR UPDATE SKIP LOCKED)
+                        """, unusedSince, batchSize);
+                removed += deleted;
+            } while (deleted == batchSize);
+        } catch (Exception e) {
+            log.error("Failed to remove unreferenced message bodies", e);
+        }
+        if (removed > 0) {
+            log.info("Removed {} unreferenced message bodies", removed);
+        }
+    }
+
+    static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
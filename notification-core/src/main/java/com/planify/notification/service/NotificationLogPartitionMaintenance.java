@@ -0,0 +1,164 @@
+package com.planify.notification.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Vzdržuje mesečne particije notification_logs (V10__partition_notification_logs.sql): vnaprej ustvari particije
+ * za prihodnje mesece, particije starejše od retencije pa izbriše (DROP) ali odklopi (DETACH) in preimenuje
+ * v notification_logs_archive_YYYY_MM, da jih je mogoče arhivirati izven baze.
+ * Ob več replikah se job izvede le na tisti, ki dobi advisory lock.
+ */
+@Component
+@Slf4j
+public class NotificationLogPartitionMaintenance {
+
+    public enum RetentionMode {
+        DROP,
+        DETACH
+    }
+
+    /**
+     * Razpon created_at [from, to), ki ga pokrivajo obstoječe mesečne particije.
+     */
+    public record PartitionWindow(LocalDateTime from, LocalDateTime to) {
+    }
+
+    private static final PartitionWindow UNPARTITIONED =
+            new PartitionWindow(LocalDate.EPOCH.atStartOfDay(), LocalDate.of(9999, 1, 1).atStartOfDay());
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("notification_logs_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final RetentionMode retentionMode;
+
+    public NotificationLogPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                               TransactionOperations transactionOperations,
+                                               @Value("${notification.logs.partitions.enabled:true}") boolean enabled,
+                                               @Value("${notification.logs.partitions.months-ahead:3}") int monthsAhead,
+                                               @Value("${notification.logs.retention-months:12}") int retentionMonths,
+                                               @Value("${notification.logs.retention-mode:DROP}") RetentionMode retentionMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = retentionMonths;
+        this.retentionMode = retentionMode;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${notification.logs.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain(YearMonth.now());
+        } catch (Exception e) {
+            log.error("Notification log partition maintenance failed", e);
+        }
+    }
+
+    void maintain(YearMonth currentMonth) {
+        transactionOperations.executeWithoutResult(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(hashtext('notification_logs_partitions'))", Boolean.class);
+            if (!Boolean.TRUE.equals(locked)) {
+                log.debug("Notification log partition maintenance is running on another replica");
+                return;
+            }
+
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(currentMonth.plusMonths(i));
+            }
+
+            // retention-months <= 0: logi se hranijo neomejeno
+            if (retentionMonths > 0) {
+                YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+                for (String partition : existingPartitions()) {
+                    Matcher matcher = PARTITION_NAME.matcher(partition);
+                    if (matcher.matches()) {
+                        YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                        if (month.isBefore(oldestKept)) {
+                            retire(partition, month);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Okno od začetka najstarejše do konca najnovejše mesečne particije. Zajame vse hranjene loge (particija
+     * DEFAULT ostane prazna), poizvedba z njim pa ne bere particije DEFAULT. Brez mesečnih particij (npr. tabela,
+     * ki jo ustvari Hibernate v testih) vrne okno, ki ne omejuje ničesar.
+     */
+    public PartitionWindow retainedWindow() {
+        YearMonth oldest = null;
+        YearMonth newest = null;
+        for (String partition : existingPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches()) {
+                YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                oldest = oldest == null || month.isBefore(oldest) ? month : oldest;
+                newest = newest == null || month.isAfter(newest) ? month : newest;
+            }
+        }
+        if (oldest == null) {
+            return UNPARTITIONED;
+        }
+        return new PartitionWindow(oldest.atDay(1).atStartOfDay(), newest.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS notification_logs_p" + month.format(SUFFIX)
+                + " PARTITION OF notification_logs FOR VALUES FROM ('" + month.atDay(1)
+                + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private List<String> existingPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'notification_logs'
+                """, String.class);
+    }
+
+    private void retire(String partition, YearMonth month) {
+        // Sklici na loge niso tuji ključi (particionirana tabela), zato jih počistimo tu
+        jdbcTemplate.update("UPDATE event_attendee_reminders r SET notification_log_id = NULL FROM " + partition
+                + " l WHERE r.notification_log_id = l.id");
+        int tasks = jdbcTemplate.update("DELETE FROM delivery_tasks t USING " + partition
+                + " l WHERE t.notification_log_id = l.id");
+
+        if (retentionMode == RetentionMode.DETACH) {
+            String archive = "notification_logs_archive_" + month.format(SUFFIX);
+            jdbcTemplate.execute("ALTER TABLE notification_logs DETACH PARTITION " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archive);
+            log.info("Detached notification log partition {} as {} (removed {} delivery tasks)", partition, archive, tasks);
+        } else {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Dropped notification log partition {} (removed {} delivery tasks)", partition, tasks);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.dto.NotificationLogEntry;
+import com.planify.notification.dto.NotificationLogFilter;
+import com.planify.notification.dto.NotificationLogPage;
+import com.planify.notification.model.NotificationStatus;
+import com.planify.notification.model.NotificationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Admin poizvedbe po notification_logs: filtrirane strani s kazalcem (created_at, id) in pretočni izvoz.
+ * Izvoz bere vrstice prek JDBC kurzorja (fetch size znotraj transakcije), zato mesec logov ne pristane v heapu.
+ */
+@Service
+public class NotificationLogQueryService {
+
+    private static final String COLUMNS = """
+            l.id, l.event_id, l.user_id, l.recipient_email, l.recipient_phone, l.type, l.template_key, l.subject,
+            l.status, l.sent_at, l.error_message, l.retry_count, l.external_id, l.created_at""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate exportJdbcTemplate;
+
+    public NotificationLogQueryService(DataSource dataSource,
+                                       @Value("${notification.logs.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate export = new JdbcTemplate(dataSource);
+        export.setFetchSize(Math.max(1, fetchSize));
+        this.exportJdbcTemplate = new NamedParameterJdbcTemplate(export);
+    }
+
+    /**
+     * Stran logov, od najnovejših proti starejšim, za kazalcem (null = prva stran).
+     */
+    public NotificationLogPage findPage(NotificationLogFilter filter, FeedCursor cursor, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = pageQuery(filter, cursor, limit + 1, params);
+        List<NotificationLogEntry> rows = jdbcTemplate.query(sql, params, rowMapper(false));
+
+        if (rows.size() <= limit) {
+            return new NotificationLogPage(rows, null);
+        }
+        List<NotificationLogEntry> items = List.copyOf(rows.subList(0, limit));
+        NotificationLogEntry last = items.get(limit - 1);
+        return new NotificationLogPage(items, new FeedCursor(last.createdAt(), last.id()).encode());
+    }
+
+    /**
+     * Pošlje vse loge v oknu (od najstarejših) klicatelju, vrstico za vrstico.
+     * Transakcija je potrebna, da PostgreSQL driver bere po fetch size vrstic namesto celotnega rezultata.
+     */
+    @Transactional(readOnly = true)
+    public void export(NotificationLogFilter filter, boolean includeBody, Consumer<NotificationLogEntry> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = exportQuery(filter, includeBody, params);
+        RowMapper<NotificationLogEntry> mapper = rowMapper(includeBody);
+        exportJdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        });
+    }
+
+    static String pageQuery(NotificationLogFilter filter, FeedCursor cursor, int limit, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM notification_logs l");
+        where(filter, sql, params);
+        if (cursor != null) {
+            sql.append(" AND (l.created_at, l.id) < (:cursorCreatedAt, :cursorId)");
+            params.addValue("cursorCreatedAt", cursor.createdAt()).addValue("cursorId", cursor.id());
+        }
+        sql.append(" ORDER BY l.created_at DESC, l.id DESC LIMIT :limit");
+        params.addValue("limit", limit);
+        return sql.toString();
+    }
+
+    static String exportQuery(NotificationLogFilter filter, boolean includeBody, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS);
+        if (includeBody) {
+            sql.append(", b.content AS body FROM notification_logs l LEFT JOIN message_bodies b ON b.hash = l.body_hash");
+        } else {
+            sql.append(" FROM notification_logs l");
+        }
+        where(filter, sql, params);
+        sql.append(" ORDER BY l.created_at, l.id");
+        return sql.toString();
+    }
+
+    private static void where(NotificationLogFilter filter, StringBuilder sql, MapSqlParameterSource params) {
+        sql.append(" WHERE l.created_at >= :from AND l.created_at <= :to");
+        params.addValue("from", filter.from()).addValue("to", filter.to());
+        if (filter.status() != null) {
+            sql.append(" AND l.status = :status");
+            params.addValue("status", filter.status().name());
+        }
+        if (filter.type() != null) {
+            sql.append(" AND l.type = :type");
+            params.addValue("type", filter.type().name());
+        }
+        if (filter.templateKey() != null) {
+            sql.append(" AND l.template_key = :templateKey");
+            params.addValue("templateKey", filter.templateKey());
+        }
+        if (filter.userId() != null) {
+            sql.append(" AND l.user_id = :userId");
+            params.addValue("userId", filter.userId());
+        }
+        if (filter.eventId() != null) {
+            sql.append(" AND l.event_id = :eventId");
+            params.addValue("eventId", filter.eventId());
+        }
+    }
+
+    private static RowMapper<NotificationLogEntry> rowMapper(boolean includeBody) {
+        return (rs, rowNum) -> new NotificationLogEntry(
+                rs.getObject("id", UUID.class),
+                rs.getObject("event_id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                rs.getString("recipient_email"),
+                rs.getString("recipient_phone"),
+                NotificationType.valueOf(rs.getString("type")),
+                rs.getString("template_key"),
+                rs.getString("subject"),
+                NotificationStatus.valueOf(rs.getString("status")),
+                rs.getObject("sent_at", LocalDateTime.class),
+                rs.getString("error_message"),
+                rs.getObject("retry_count", Integer.class),
+                rs.getString("external_id"),
+                rs.getObject("created_at", LocalDateTime.class),
+                includeBody ? rs.getString("body") : null);
+    }
+}
@@ -1,8 +1,10 @@
 package com.planify.notification.service;
 
+import com.planify.notification.dto.OrganizationActivityDto;
 import com.planify.notification.event.*;
 import com.planify.notification.model.*;
 import com.planify.notification.repository.*;
+import com.planify.notification.websocket.WebSocketTopicAccess;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
@@ -21,17 +24,14 @@ import java.util.*;
 @Slf4j
 public class NotificationService {
 
-    private final NotificationTemplateRepository templateRepository;
+    private final TemplateCache templateCache;
     private final NotificationLogRepository logRepository;
-    private final EmailService emailService;
-    private final SmsService smsService;
+    private final DeliveryTaskRepository deliveryTaskRepository;
     private final TemplateService templateService;
     private final WebSocketNotificationService webSocketNotificationService;
     private final EventAttendeeReminderRepository eventAttendeeReminderRepository;
-    private final UserDirectoryClient userDirectoryClient;
-
-    @Value("${notification.email.retry-attempts:3}")
-    private int maxRetryAttempts;
+    private final MessageBodyStore messageBodyStore;
+    private final OrganizationAdminStore organizationAdminStore;
 
     @Value("${notification.reminder.advance-notice-hours:24}")
     private int reminderAdvanceHours;
@@ -40,70 +40,183 @@ public class NotificationService {
 
     @Transactional
     public void handleEventAttendanceAcceptedEvent(EventAttendanceAcceptedEvent event) {
-        log.info("Handling event attendance accepted: event {} by user {} at {}", event.getEventId(), event.getUserId(), event.getEventStartAt());
+        handleEventAttendanceAcceptedEvents(List.of(event));
+    }
 
-        // Idempotentnost (eventId, userId)
-        var existing = eventAttendeeReminderRepository.findByEventIdAndUserId(event.getEventId(), event.getUserId());
-        if (existing.isPresent()) {
-            log.info("EventAttendee already exists for event {} and user {} — skipping insert", event.getEventId(), event.getUserId());
-            return;
-        }
+    /**
+     * Obdela vse potrditve prisotnosti iz enega poll-a v eni transakciji.
+     */
+    @Transactional
+    public void handleEventAttendanceAcceptedEvents(List<EventAttendanceAcceptedEvent> events) {
+        List<EventAttendeeReminder> attendees = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (EventAttendanceAcceptedEvent event : events) {
+            log.info("Handling event attendance accepted: event {} by user {} at {}", event.getEventId(), event.getUserId(), event.getEventStartAt());
+
+            // Idempotentnost (eventId, userId) - tudi znotraj istega batcha
+            if (!seen.add(event.getEventId() + ":" + event.getUserId())
+                    || eventAttendeeReminderRepository.findByEventIdAndUserId(event.getEventId(), event.getUserId()).isPresent()) {
+                log.info("EventAttendee already exists for event {} and user {} — skipping insert", event.getEventId(), event.getUserId());
+                continue;
+            }
 
-        EventAttendeeReminder attendee = new EventAttendeeReminder();
-        attendee.setEventId(event.getEventId());
-        attendee.setEventTitle(event.getEventTitle());
-        attendee.setEventStartAt(event.getEventStartAt());
-        attendee.setUserId(event.getUserId());
+            EventAttendeeReminder attendee = new EventAttendeeReminder();
+            attendee.setEventId(event.getEventId());
+            attendee.setEventTitle(event.getEventTitle());
+            attendee.setEventStartAt(event.getEventStartAt());
+            attendee.setUserId(event.getUserId());
+            attendees.add(attendee);
+        }
 
-        eventAttendeeReminderRepository.save(attendee);
-        log.info("Stored attendee for event {} and user {}", event.getEventId(), event.getUserId());
+        if (!attendees.isEmpty()) {
+            eventAttendeeReminderRepository.saveAll(attendees);
+        }
+        log.info("Stored {} attendees", attendees.size());
     }
 
     @Transactional
     public void handleJoinRequestSentEvent(JoinRequestsSentEvent event) {
-        log.info("Handling join request {} from user {} to organization {}",
-                event.getJoinRequestId(), event.getRequesterUserId(), event.getOrganizationId());
-        sendJoinRequestSentNotification(event);
+        handleJoinRequestSentEvents(List.of(event));
     }
 
     @Transactional
-    public void handleJoinRequestRespondedEvent(JoinRequestRespondedEvent event) {
-        log.info("Handling responded join request {} from user {} to organization {}",
-                event.getJoinRequestId(), event.getRequesterUserId(), event.getOrganizationId());
+    public void handleJoinRequestSentEvents(List<JoinRequestsSentEvent> events) {
+        DeliveryBatch batch = new DeliveryBatch();
+        for (JoinRequestsSentEvent event : events) {
+            log.info("Handling join request {} from user {} to organization {}",
+                    event.getJoinRequestId(), event.getRequesterUserId(), event.getOrganizationId());
+            organizationAdminStore.replaceAdmins(event.getOrganizationId(), event.getAdminIds(), event.getOccurredAt());
+            sendJoinRequestSentNotification(event, batch);
+            sendOrganizationActivity(event.getOrganizationId(), "join_request_sent",
+                    event.getJoinRequestId(), "join_request", event.getOccurredAt());
+        }
+        flush(batch);
+    }
 
-        String eventType = event.getEventType();
+    @Transactional
+    public void handleJoinRequestRespondedEvent(JoinRequestRespondedEvent event) {
+        handleJoinRequestRespondedEvents(List.of(event));
+    }
 
-        if ("APPROVED".equals(eventType)) {
-            sendJoinRequestApprovedNotification(event);
-        } else if ("REJECTED".equals(eventType)) {
-            sendJoinRequestRejectedNotification(event);
+    @Transactional
+    public void handleJoinRequestRespondedEvents(List<JoinRequestRespondedEvent> events) {
+        DeliveryBatch batch = new DeliveryBatch();
+        for (JoinRequestRespondedEvent event : events) {
+            log.info("Handling responded join request {} from user {} to organization {}",
+                    event.getJoinRequestId(), event.getRequesterUserId(), event.getOrganizationId());
+
+            String eventType = event.getEventType();
+
+            if ("APPROVED".equals(eventType)) {
+                sendJoinRequestApprovedNotification(event, batch);
+            } else if ("REJECTED".equals(eventType)) {
+                sendJoinRequestRejectedNotification(event, batch);
+            }
         }
+        flush(batch);
     }
 
-
     @Transactional
     public void handleInvitationSentEvent(InvitationSentEvent event) {
-        log.info("Handling invitation {} for user {} from organization {}",
-                event.getInvitationId(), event.getInvitedUserId(), event.getOrganizationId());
+        handleInvitationSentEvents(List.of(event));
+    }
 
-        sendInvitationNotification(event);
+    @Transactional
+    public void handleInvitationSentEvents(List<InvitationSentEvent> events) {
+        DeliveryBatch batch = new DeliveryBatch();
+        for (InvitationSentEvent event : events) {
+            log.info("Handling invitation {} for user {} from organization {}",
+                    event.getInvitationId(), event.getInvitedUserId(), event.getOrganizationId());
+
+            sendInvitationNotification(event, batch);
+        }
+        flush(batch);
     }
 
     @Transactional
     public void handleInvitationRespondedEvent(InvitationRespondedEvent event) {
-        log.info("Handling responded invitation {} for user {} from organization {}",
-                event.getInvitationId(), event.getInvitedUserId(), event.getOrganizationId());
-
-        String eventType = event.getEventType();
-        if ("ACCEPTED".equals(eventType)) {
-            sendInvitationAcceptedNotification(event);
-        } else if ("DECLINED".equals(eventType)) {
-            sendInvitationDeclinedNotification(event);
+        handleInvitationRespondedEvents(List.of(event));
+    }
+
+    @Transactional
+    public void handleInvitationRespondedEvents(List<InvitationRespondedEvent> events) {
+        DeliveryBatch batch = new DeliveryBatch();
+        for (InvitationRespondedEvent event : events) {
+            log.info("Handling responded invitation {} for user {} from organization {}",
+                    event.getInvitationId(), event.getInvitedUserId(), event.getOrganizationId());
+
+            organizationAdminStore.replaceAdmins(event.getOrganizationId(), event.getAdminIds(), event.getOccurredAt());
+            String eventType = event.getEventType();
+            if ("ACCEPTED".equals(eventType)) {
+                sendInvitationAcceptedNotification(event, batch);
+                sendOrganizationActivity(event.getOrganizationId(), "invitation_accepted",
+                        event.getInvitationId(), "invitation", event.getOccurredAt());
+            } else if ("DECLINED".equals(eventType)) {
+                sendInvitationDeclinedNotification(event, batch);
+                sendOrganizationActivity(event.getOrganizationId(), "invitation_declined",
+                        event.getInvitationId(), "invitation", event.getOccurredAt());
+            }
+        }
+        flush(batch);
+    }
+
+    /**
+     * Shrani vsa obvestila batcha naenkrat. In-app obvestila se preko WebSocket-a pošljejo šele po potrditvi transakcije.
+     */
+    private void flush(DeliveryBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Besedila shranimo enkrat za cel batch (fan-out ima za vse prejemnike isto besedilo)
+        List<String> contents = new ArrayList<>();
+        batch.getLogs().forEach(notificationLog -> contents.add(notificationLog.getBody()));
+        batch.getInAppNotifications().forEach(notification -> contents.add(notification.getMessage()));
+        Map<String, String> hashes = messageBodyStore.storeAll(contents);
+        batch.getLogs().forEach(notificationLog -> notificationLog.setBodyHash(hashes.get(notificationLog.getBody())));
+        batch.getInAppNotifications().forEach(notification -> notification.setMessageHash(hashes.get(notification.getMessage())));
+
+        if (!batch.getLogs().isEmpty()) {
+            logRepository.saveAll(batch.getLogs());
+        }
+        if (!batch.getDeliveryTasks().isEmpty()) {
+            deliveryTaskRepository.saveAll(batch.getDeliveryTasks());
+        }
+        if (!batch.getInAppNotifications().isEmpty()) {
+            webSocketNotificationService.sendInAppNotifications(batch.getInAppNotifications());
         }
     }
 
-    private void sendJoinRequestSentNotification(JoinRequestsSentEvent event) {
-        Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("NEW_REQUEST");
+    /**
+     * Obvesti seje, naročene na temo organizacije (admine), da naj osvežijo sezname. Pošlje se po potrditvi transakcije.
+     */
+    private void sendOrganizationActivity(UUID organizationId, String activity, UUID referenceId, String referenceType,
+                                          Instant occurredAt) {
+        if (organizationId == null) {
+            return;
+        }
+        webSocketNotificationService.sendToTopic(WebSocketTopicAccess.organizationTopic(organizationId),
+                new OrganizationActivityDto(organizationId, activity, referenceId, referenceType, occurredAt));
+    }
+
+    private DeliveryTask newDeliveryTask(NotificationLog notificationLog, DeliveryChannel channel, String recipient, String subject, String body) {
+        DeliveryTask task = new DeliveryTask();
+        task.setNotificationLog(notificationLog);
+        task.setChannel(channel);
+        task.setRecipient(recipient);
+        task.setSubject(subject);
+        task.setBody(body);
+        task.setStatus(DeliveryTaskStatus.PENDING);
+        task.setNextAttemptAt(LocalDateTime.now());
+        return task;
+    }
+
+    private Optional<NotificationTemplate> findTemplate(DeliveryBatch batch, String templateKey) {
+        return batch.template(templateKey, templateCache::findByTemplateKey);
+    }
+
+    private void sendJoinRequestSentNotification(JoinRequestsSentEvent event, DeliveryBatch batch) {
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "NEW_REQUEST");
         if (templateOpt.isEmpty()) {
             log.error("NEW_REQUEST template not found");
             return;
@@ -117,26 +230,22 @@ public class NotificationService {
         variables.put("orgName", event.getOrganizationName());
         variables.put("requestReviewLink", "/organizations/admin");
 
-        List<String> adminIds = event.getAdminIds();
-        for (String adminId : adminIds) {
-            // Pošljemo obvestilo adminu organizacije
-            sendNotification(
-                    null,
-                    UUID.fromString(adminId),
-                    null, // Ne pošiljamo email obvestil
-                    null, // Ne pošiljamo SMS obvestil
-                    template,
-                    variables,
-                    "join_request_accepted",
-                    event.getJoinRequestId(),
-                    "join_request");
-        }
+        // Pošljemo obvestilo adminom organizacije (brez emaila in SMS-a); vsebina je za vse admine enaka
+        sendNotification(
+                batch,
+                null,
+                adminRecipients(event.getAdminIds()),
+                template,
+                variables,
+                "join_request_accepted",
+                event.getJoinRequestId(),
+                "join_request");
 
         log.info("Sent NEW_REQUEST notification to admins of organization {}", event.getOrganizationId());
     }
 
-    private void sendJoinRequestApprovedNotification(JoinRequestRespondedEvent event) {
-        Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("REQUEST_ACCEPTED");
+    private void sendJoinRequestApprovedNotification(JoinRequestRespondedEvent event, DeliveryBatch batch) {
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "REQUEST_ACCEPTED");
         if (templateOpt.isEmpty()) {
             log.error("REQUEST_ACCEPTED template not found");
             return;
@@ -150,6 +259,7 @@ public class NotificationService {
 
         // Pošljemo obvestilo uporabniku
         sendNotification(
+                batch,
                 null,
                 event.getRequesterUserId(),
                 event.getRequesterEmail(),
@@ -162,8 +272,8 @@ public class NotificationService {
         );
     }
 
-    private void sendJoinRequestRejectedNotification(JoinRequestRespondedEvent event) {
-        Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("REQUEST_DECLINED");
+    private void sendJoinRequestRejectedNotification(JoinRequestRespondedEvent event, DeliveryBatch batch) {
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "REQUEST_DECLINED");
         if (templateOpt.isEmpty()) {
             log.error("REQUEST_DECLINED template not found");
             return;
@@ -177,6 +287,7 @@ public class NotificationService {
 
         // Pošljemo obvestilo uporabniku
         sendNotification(
+                batch,
                 null,
                 event.getRequesterUserId(),
                 event.getRequesterEmail(),
@@ -189,8 +300,8 @@ public class NotificationService {
         );
     }
 
-    private void sendInvitationNotification(InvitationSentEvent event) {
-        Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("NEW_INVITATION");
+    private void sendInvitationNotification(InvitationSentEvent event, DeliveryBatch batch) {
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "NEW_INVITATION");
         if (templateOpt.isEmpty()) {
             log.error("NEW_INVITATION template not found");
             return;
@@ -205,6 +316,7 @@ public class NotificationService {
 
         // Pošljemo obvestilo povabljenemu uporabniku
         sendNotification(
+                batch,
                 null,
                 event.getInvitedUserId(),
                 event.getInvitedEmail(),
@@ -217,8 +329,8 @@ public class NotificationService {
         );
     }
 
-    private void sendInvitationAcceptedNotification(InvitationRespondedEvent event) {
-        Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("INVITATION_ACCEPTED");
+    private void sendInvitationAcceptedNotification(InvitationRespondedEvent event, DeliveryBatch batch) {
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "INVITATION_ACCEPTED");
         if (templateOpt.isEmpty()) {
             log.error("INVITATION_ACCEPTED template not found");
             return;
@@ -232,26 +344,22 @@ public class NotificationService {
         variables.put("orgName", event.getOrganizationName());
         variables.put("memberListLink", "/organizations/admin");
 
-        List<String> adminIds = event.getAdminIds();
-        for (String adminId : adminIds) {
-            // Pošljemo obvestilo adminu organizacije
-            sendNotification(
-                    null,
-                    UUID.fromString(adminId),
-                    null, // Ne pošiljamo email obvestil
-                    null, // Ne pošiljamo SMS obvestil
-                    template,
-                    variables,
-                    "invitation_accepted",
-                    event.getInvitationId(),
-                    "invitation");
-        }
+        // Pošljemo obvestilo adminom organizacije (brez emaila in SMS-a); vsebina je za vse admine enaka
+        sendNotification(
+                batch,
+                null,
+                adminRecipients(event.getAdminIds()),
+                template,
+                variables,
+                "invitation_accepted",
+                event.getInvitationId(),
+                "invitation");
 
         log.info("Sent INVITATION_ACCEPTED notification to admins of organization {}", event.getOrganizationId());
     }
 
-    private void sendInvitationDeclinedNotification(InvitationRespondedEvent event) {
-        Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("INVITATION_DECLINED");
+    private void sendInvitationDeclinedNotification(InvitationRespondedEvent event, DeliveryBatch batch) {
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "INVITATION_DECLINED");
         if (templateOpt.isEmpty()) {
             log.error("INVITATION_DECLINED template not found");
             return;
@@ -264,25 +372,22 @@ public class NotificationService {
         variables.put("userName", event.getInvitedUsername());
         variables.put("orgName", event.getOrganizationName());
 
-        List<String> adminIds = event.getAdminIds();
-        for (String adminId : adminIds) {
-            // Pošljemo obvestilo adminu organizacije
-            sendNotification(
-                    null,
-                    UUID.fromString(adminId),
-                    null, // Ne pošiljamo email obvestil
-                    null, // Ne pošiljamo SMS obvestil
-                    template,
-                    variables,
-                    "invitation_declined",
-                    event.getInvitationId(),
-                    "invitation");
-        }
+        // Pošljemo obvestilo adminom organizacije (brez emaila in SMS-a); vsebina je za vse admine enaka
+        sendNotification(
+                batch,
+                null,
+                adminRecipients(event.getAdminIds()),
+                template,
+                variables,
+                "invitation_declined",
+                event.getInvitationId(),
+                "invitation");
 
         log.info("Sent INVITATION_DECLINED notification to admins of organization {}", event.getOrganizationId());
     }
 
     private void sendNotification(
+            DeliveryBatch batch,
             UUID eventId,
             UUID userId,
             String email,
@@ -292,181 +397,208 @@ public class NotificationService {
             String notificationType,
             UUID referenceId,
             String referenceType) {
-        NotificationLog log = new NotificationLog();
-        log.setEventId(eventId);
-        log.setUserId(userId);
-        log.setRecipientEmail(email);
-        log.setRecipientPhone(phone);
-        log.setType(template.getType());
-        log.setTemplateKey(template.getTemplateKey());
-        log.setStatus(NotificationStatus.PENDING);
-
-        boolean sentSuccessfully = false;
+        sendNotification(batch, eventId, List.of(new Recipient(userId, email, phone)), template, variables,
+                notificationType, referenceId, referenceType);
+    }
 
+    /**
+     * Pošlje isto obvestilo več prejemnikom. Zadeva, telo in SMS se zrenderirajo enkrat, za vsakega prejemnika
+     * se pripravijo le njegove vrstice (log, in-app obvestilo, outbox naloge), ki se shranijo skupaj z batchem.
+     */
+    private void sendNotification(
+            DeliveryBatch batch,
+            UUID eventId,
+            List<Recipient> recipients,
+            NotificationTemplate template,
+            Map<String, Object> variables,
+            String notificationType,
+            UUID referenceId,
+            String referenceType) {
+        String subject;
+        String body;
+        String smsBody = null;
         try {
-            String subject = templateService.renderTemplate(template.getSubject(), variables);
-            String body = templateService.renderTemplate(template.getBodyTemplate(), variables);
+            subject = templateService.renderSubject(template, variables);
+            body = templateService.renderBody(template, variables);
+            if (sendsSms(template) && recipients.stream().anyMatch(recipient -> recipient.phone() != null)) {
+                smsBody = templateService.renderSmsTemplate(template.getSmsTemplate(), variables);
+            }
+        } catch (Exception e) {
+            log.error("Failed to render notification {}", template.getTemplateKey(), e);
+            for (Recipient recipient : recipients) {
+                NotificationLog notificationLog = newLog(eventId, recipient, template);
+                notificationLog.setStatus(NotificationStatus.FAILED);
+                notificationLog.setErrorMessage(e.getMessage());
+                batch.addLog(notificationLog);
+            }
+            return;
+        }
 
-            log.setSubject(subject);
-            log.setBody(body);
+        for (Recipient recipient : recipients) {
+            NotificationLog notificationLog = newLog(eventId, recipient, template);
+            notificationLog.setSubject(subject);
+            notificationLog.setBody(body);
+
+            boolean sentSuccessfully = false;
 
             // Pošljemo obvestilo v aplikaciji z uporabo WebSocket (za APP, EMAIL_APP, ali ALL tip)
-            if (userId != null &&
+            if (recipient.userId() != null &&
                     (template.getType() == NotificationType.APP ||
                             template.getType() == NotificationType.EMAIL_APP ||
                             template.getType() == NotificationType.ALL)) {
-                try {
-                    webSocketNotificationService.sendInAppNotification(
-                            userId,
-                            subject,
-                            body,
-                            notificationType,
-                            referenceId,
-                            referenceType
-                    );
-                    sentSuccessfully = true;
-                    this.log.info("Sent in-app notification to user {}", userId);
-                } catch (Exception e) {
-                    this.log.error("Failed to send in-app notification to user {}", userId, e);
-                }
+                // Shrani in pošlje se ob zaključku batcha
+                batch.addInAppNotification(newInAppNotification(
+                        recipient.userId(),
+                        subject,
+                        body,
+                        notificationType,
+                        referenceId,
+                        referenceType
+                ));
+                sentSuccessfully = true;
             }
 
+            // Email in SMS se ne pošiljata v tej transakciji: vstavimo outbox nalogo, ki jo dostavi DeliveryDispatcher
+            boolean queued = false;
+
             // Pošlji email (za EMAIL, EMAIL_APP, ali ALL tip)
             if ((template.getType() == NotificationType.EMAIL ||
                     template.getType() == NotificationType.EMAIL_APP ||
-                    template.getType() == NotificationType.ALL) && email != null) { // email uporabnika imamo le če je ta privolil k uporabi
-                try {
-                    String externalId = emailService.sendEmail(email, subject, body);
-                    log.setExternalId(externalId);
-                    sentSuccessfully = true;
-                    this.log.info("Sent email to {}", email);
-                } catch (Exception e) {
-                    this.log.error("Failed to send email to {}", email, e);
-                }
+                    template.getType() == NotificationType.ALL) && recipient.email() != null) { // email uporabnika imamo le če je ta privolil k uporabi
+                batch.addDeliveryTask(newDeliveryTask(notificationLog, DeliveryChannel.EMAIL, recipient.email(), subject, body));
+                queued = true;
             }
 
             // Pošiljanje SMS (za SMS ali ALL tip)
-            if ((template.getType() == NotificationType.SMS || template.getType() == NotificationType.ALL)
-                    && phone != null && template.getSmsTemplate() != null) { // tel. št. uporabnika pošljemo le če je ta privolil k uporabi
-                try {
-                    String smsBody = templateService.renderSmsTemplate(template.getSmsTemplate(), variables);
-                    String smsSid = smsService.sendSms(phone, smsBody, 160);
-
-                    if (log.getExternalId() == null) {
-                        log.setExternalId(smsSid);
-                    }
-                    sentSuccessfully = true;
-                    this.log.info("Sent SMS to {}", phone);
-                } catch (Exception e) {
-                    this.log.error("Failed to send SMS to {}", phone, e);
-                }
+            if (smsBody != null && recipient.phone() != null) { // tel. št. uporabnika pošljemo le če je ta privolil k uporabi
+                batch.addDeliveryTask(newDeliveryTask(notificationLog, DeliveryChannel.SMS, recipient.phone(), subject, smsBody));
+                queued = true;
             }
 
             if (sentSuccessfully) {
-                log.setStatus(NotificationStatus.SENT);
-                log.setSentAt(LocalDateTime.now());
+                notificationLog.setStatus(NotificationStatus.SENT);
+                notificationLog.setSentAt(LocalDateTime.now());
+            } else if (queued) {
+                // Status posodobi dispatcher, ko je naloga dostavljena
+                notificationLog.setStatus(NotificationStatus.PENDING);
             } else {
-                log.setStatus(NotificationStatus.FAILED);
-                log.setErrorMessage("No notification channels were successful");
+                notificationLog.setStatus(NotificationStatus.FAILED);
+                notificationLog.setErrorMessage("No notification channels were successful");
             }
 
-        } catch (Exception e) {
-            this.log.error("Failed to send notification", e);
-            log.setStatus(NotificationStatus.FAILED);
-            log.setErrorMessage(e.getMessage());
+            batch.addLog(notificationLog);
         }
+    }
 
-        logRepository.save(log);
+    private boolean sendsSms(NotificationTemplate template) {
+        return (template.getType() == NotificationType.SMS || template.getType() == NotificationType.ALL)
+                && template.getSmsTemplate() != null;
     }
 
-    @Transactional
-    public int sendScheduledReminders() {
-        // Izračunamo okno, ki predstavlja jutri po UTC [00:00, 24:00)
-        var now = java.time.OffsetDateTime.now(java.time.ZoneOffset.UTC);
-        var tomorrowStart = now.plusDays(1).toLocalDate().atStartOfDay().atOffset(java.time.ZoneOffset.UTC);
-        var tomorrowEnd = tomorrowStart.plusDays(1);
+    private NotificationLog newLog(UUID eventId, Recipient recipient, NotificationTemplate template) {
+        NotificationLog notificationLog = new NotificationLog();
+        notificationLog.setEventId(eventId);
+        notificationLog.setUserId(recipient.userId());
+        notificationLog.setRecipientEmail(recipient.email());
+        notificationLog.setRecipientPhone(recipient.phone());
+        notificationLog.setType(template.getType());
+        notificationLog.setTemplateKey(template.getTemplateKey());
+        notificationLog.setStatus(NotificationStatus.PENDING);
+        return notificationLog;
+    }
 
-        var attendees = eventAttendeeReminderRepository.findAllBetween(tomorrowStart, tomorrowEnd);
-        log.info("Found {} attendees with events tomorrow ({} to {})", attendees.size(), tomorrowStart, tomorrowEnd);
+    private List<Recipient> adminRecipients(List<String> adminIds) {
+        List<Recipient> recipients = new ArrayList<>(adminIds.size());
+        for (String adminId : adminIds) {
+            recipients.add(new Recipient(UUID.fromString(adminId), null, null));
+        }
+        return recipients;
+    }
+
+    /**
+     * Prejemnik obvestila; email in telefon sta null, če uporabnik ni privolil k temu kanalu.
+     */
+    private record Recipient(UUID userId, String email, String phone) {
+    }
 
-        int remindersSent = 0;
-        for (EventAttendeeReminder attendee : attendees) {
+    private InAppNotification newInAppNotification(
+            UUID userId,
+            String title,
+            String message,
+            String notificationType,
+            UUID referenceId,
+            String referenceType) {
+        InAppNotification notification = new InAppNotification();
+        notification.setUserId(userId);
+        notification.setTitle(title);
+        notification.setMessage(message);
+        notification.setNotificationType(notificationType);
+        notification.setReferenceId(referenceId);
+        notification.setReferenceType(referenceType);
+        notification.setIsRead(false);
+        return notification;
+    }
+
+    /**
+     * Zapiše rezultate enega chunka SMS opomnikov v eni transakciji: log za vsak poskus, poslane opomnike označi,
+     * za neuspele SMS-e pa pripravi email obvestilo (SMS_REMINDER_FALLBACK).
+     */
+    @Transactional
+    public void recordReminders(List<ReminderResult> results) {
+        DeliveryBatch batch = new DeliveryBatch();
+        List<UUID> sent = new ArrayList<>();
+        for (ReminderResult result : results) {
+            EventAttendeeReminder attendee = result.attendee();
             NotificationLog notificationLog = new NotificationLog();
             notificationLog.setEventId(attendee.getEventId());
             notificationLog.setUserId(attendee.getUserId());
             notificationLog.setType(NotificationType.SMS);
             notificationLog.setTemplateKey("EVENT_REMINDER_SMS");
             notificationLog.setSubject("Event Reminder");
+            notificationLog.setBody(result.body());
 
-            UserDirectoryClient.UserResponse user = userDirectoryClient.getUser(attendee.getUserId());
-            if (user == null) {
-                log.error("User {} not found", attendee.getUserId());
-                continue;
-            }
-            try {
-                if (attendee.getIsSent()) {
-                    log.info("Event {} reminder already sent to user {}", attendee.getEventId(), attendee.getUserId());
-                    continue;
-                }
-                Boolean smsConsent = user.getSmsConsent();
-                if (smsConsent == null || !smsConsent) {
-                    log.info("User {} has not given SMS consent, skipping SMS reminder for event {}", attendee.getUserId(), attendee.getEventId());
-                    continue;
-                }
-                String phone = user.getPhoneNumber();
-                if (phone == null || phone.isBlank()) {
-                    log.info("No phone for user {}, skipping SMS reminder for event {}", attendee.getUserId(), attendee.getEventId());
-                    continue;
-                }
-
-                String when = attendee.getEventStartAt().atZoneSameInstant(java.time.ZoneOffset.UTC).toLocalDateTime().format(DATE_FORMATTER);
-                String body = String.format("You have an event coming tomorrow! Event: %s Start time: %s", attendee.getEventTitle(), when);
-                notificationLog.setBody(body);
-
-                String smsSid = smsService.sendSms(phone, body, 160);
-
+            if (result.isSent()) {
                 notificationLog.setStatus(NotificationStatus.SENT);
                 notificationLog.setSentAt(LocalDateTime.now());
-                notificationLog.setExternalId(smsSid);
-                logRepository.save(notificationLog);
-
-                attendee.setIsSent(true);
-                attendee.setSentAt(OffsetDateTime.now(ZoneOffset.UTC));
-                eventAttendeeReminderRepository.save(attendee);
-                remindersSent++;
-            } catch (Exception ex) {
+                notificationLog.setExternalId(result.smsSid());
+                sent.add(attendee.getId());
+            } else {
                 notificationLog.setStatus(NotificationStatus.FAILED);
-                notificationLog.setErrorMessage(ex.getMessage());
-                logRepository.save(notificationLog);
-                log.error("Failed to send reminder for event {} to user {}", attendee.getEventId(), attendee.getUserId(), ex);
-
-                log.info("Trying to send email and in-app notification for user {}", attendee.getUserId());
-                Boolean emailConsent = user.getEmailConsent();
-                if (emailConsent == null || !emailConsent) {
-                    log.info("User {} has not given email consent, skipping email reminder for event {}", attendee.getUserId(), attendee.getEventId());
-                    continue;
-                }
-                String email = user.getEmail();
-                if (email == null || email.isBlank()) {
-                    log.info("No email for user {}, skipping email reminder for event {}", attendee.getUserId(), attendee.getEventId());
-                    continue;
-                }
-
-                Optional<NotificationTemplate> templateOpt = templateRepository.findByTemplateKey("SMS_REMINDER_FALLBACK");
-                if (templateOpt.isEmpty()) {
-                    log.error("SMS_REMINDER_FALLBACK template not found");
-                    continue;
-                }
-
-                NotificationTemplate template = templateOpt.get();
-
-                Map<String, Object> variables = new HashMap<>();
-                variables.put("event_title", attendee.getEventTitle());
-                variables.put("event_start_at", attendee.getEventStartAt().format(DATE_FORMATTER));
-
-                sendNotification(attendee.getEventId(), attendee.getUserId(), email, null, template, variables, "sms_reminder_fallback", attendee.getEventId(), "event");
+                notificationLog.setErrorMessage(result.error());
+                sendReminderFallback(batch, attendee, result.user());
             }
+            batch.addLog(notificationLog);
         }
-        return remindersSent;
+        flush(batch);
+
+        if (!sent.isEmpty()) {
+            eventAttendeeReminderRepository.markSent(sent, OffsetDateTime.now(ZoneOffset.UTC));
+        }
+    }
+
+    private void sendReminderFallback(DeliveryBatch batch, EventAttendeeReminder attendee, UserDirectoryClient.UserResponse user) {
+        log.info("Trying to send email and in-app notification for user {}", attendee.getUserId());
+        Boolean emailConsent = user.getEmailConsent();
+        if (emailConsent == null || !emailConsent) {
+            log.info("User {} has not given email consent, skipping email reminder for event {}", attendee.getUserId(), attendee.getEventId());
+            return;
+        }
+        String email = user.getEmail();
+        if (email == null || email.isBlank()) {
+            log.info("No email for user {}, skipping email reminder for event {}", attendee.getUserId(), attendee.getEventId());
+            return;
+        }
+
+        Optional<NotificationTemplate> templateOpt = findTemplate(batch, "SMS_REMINDER_FALLBACK");
+        if (templateOpt.isEmpty()) {
+            log.error("SMS_REMINDER_FALLBACK template not found");
+            return;
+        }
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("event_title", attendee.getEventTitle());
+        variables.put("event_start_at", attendee.getEventStartAt().format(DATE_FORMATTER));
+
+        sendNotification(batch, attendee.getEventId(), attendee.getUserId(), email, null, templateOpt.get(), variables, "sms_reminder_fallback", attendee.getEventId(), "event");
     }
-}
\ No newline at end of file
+}
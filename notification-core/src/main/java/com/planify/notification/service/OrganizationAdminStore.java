@@ -0,0 +1,105 @@
+package com.planify.notification.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Lokalna kopija adminov organizacij (organization_admins). Polni se iz seznamov adminIds v dogodkih prošenj
+ * za včlanitev in odgovorov na povabila; iz nje se ob naročilu in ob vsaki dostavi preverja, ali sme seja
+ * prejemati temo organizacije.
+ */
+@Service
+@Slf4j
+public class OrganizationAdminStore {
+
+    private static final String UPSERT_ADMIN = """
+            INSERT INTO organization_admins (organization_id, user_id, admin, updated_at)
+            VALUES (:organizationId, :userId, TRUE, :updatedAt)
+            ON CONFLICT (organization_id, user_id) DO UPDATE SET
+                admin = TRUE,
+                updated_at = EXCLUDED.updated_at
+            WHERE organization_admins.updated_at <= EXCLUDED.updated_at
+            """;
+
+    private static final String REVOKE_OTHERS = """
+            UPDATE organization_admins
+            SET admin = FALSE, updated_at = :updatedAt
+            WHERE organization_id = :organizationId
+              AND admin
+              AND updated_at < :updatedAt
+              AND user_id NOT IN (:userIds)
+            """;
+
+    private static final String IS_ADMIN = """
+            SELECT EXISTS (
+                SELECT 1 FROM organization_admins
+                WHERE organization_id = :organizationId AND user_id = :userId AND admin
+            )
+            """;
+
+    private static final String ADMINS_AMONG = """
+            SELECT user_id FROM organization_admins
+            WHERE organization_id = :organizationId AND admin AND user_id IN (:userIds)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OrganizationAdminStore(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Zapiše seznam adminov organizacije, kot velja ob času occurredAt. Admini, ki jih v seznamu ni, izgubijo
+     * pravico do teme organizacije; seznam, starejši od shranjenega, ničesar ne spremeni. Dogodki brez
+     * organizacije, časa ali adminov se preskočijo.
+     */
+    @Transactional
+    public void replaceAdmins(UUID organizationId, Collection<String> adminIds, Instant occurredAt) {
+        if (organizationId == null || occurredAt == null || adminIds == null || adminIds.isEmpty()) {
+            log.warn("Ignoring admin list of organization {} without occurredAt or admins", organizationId);
+            return;
+        }
+        List<UUID> userIds = adminIds.stream().map(UUID::fromString).distinct().sorted().toList();
+        SqlParameterSource[] rows = userIds.stream()
+                .map(userId -> new MapSqlParameterSource()
+                        .addValue("organizationId", organizationId)
+                        .addValue("userId", userId)
+                        .addValue("updatedAt", occurredAt.atOffset(ZoneOffset.UTC)))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPSERT_ADMIN, rows);
+        jdbcTemplate.update(REVOKE_OTHERS, new MapSqlParameterSource()
+                .addValue("organizationId", organizationId)
+                .addValue("userIds", userIds)
+                .addValue("updatedAt", occurredAt.atOffset(ZoneOffset.UTC)));
+    }
+
+    public boolean isAdmin(UUID organizationId, UUID userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_ADMIN, new MapSqlParameterSource()
+                .addValue("organizationId", organizationId)
+                .addValue("userId", userId), Boolean.class));
+    }
+
+    /**
+     * Tisti izmed danih uporabnikov, ki so trenutno admini organizacije.
+     */
+    public Set<UUID> adminsAmong(UUID organizationId, Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(ADMINS_AMONG, new MapSqlParameterSource()
+                .addValue("organizationId", organizationId)
+                .addValue("userIds", userIds), UUID.class));
+    }
+}
@@ -0,0 +1,67 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.ReminderJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Števci enega posla za opomnike; chunki jih posodabljajo sočasno.
+ */
+final class ReminderJob {
+
+    private final UUID id;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicInteger attendees = new AtomicInteger();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private volatile ReminderJobStatus.State state = ReminderJobStatus.State.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    ReminderJob(UUID id) {
+        this.id = id;
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    void read(int count) {
+        attendees.addAndGet(count);
+    }
+
+    void sent(int count) {
+        sent.addAndGet(count);
+    }
+
+    void failed(int count) {
+        failed.addAndGet(count);
+    }
+
+    void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        state = ReminderJobStatus.State.COMPLETED;
+    }
+
+    void fail(String reason) {
+        error = reason;
+        finishedAt = LocalDateTime.now();
+        state = ReminderJobStatus.State.FAILED;
+    }
+
+    boolean isRunning() {
+        return state == ReminderJobStatus.State.RUNNING;
+    }
+
+    ReminderJobStatus status() {
+        return new ReminderJobStatus(id, state, startedAt, finishedAt,
+                attendees.get(), sent.get(), failed.get(), skipped.get(), error);
+    }
+}
@@ -0,0 +1,273 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.ReminderJobStatus;
+import com.planify.notification.model.EventAttendeeReminder;
+import com.planify.notification.repository.EventAttendeeReminderRepository;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pošiljanje SMS opomnikov za jutrišnje dogodke kot posel v ozadju. Posel si neposlane opomnike prevzema po chunkih
+ * (claimUnsent, SKIP LOCKED), zato sočasni ali podvojeni sprožilci, tudi na drugih replikah, ne dobijo istih vrstic.
+ * Vsak chunk se obdela na svoji virtualni niti in potrdi v svoji transakciji. Sočasnih chunkov je največ
+ * max-concurrent-chunks, klici na user-service in SMS ponudnika pa so omejeni z rate limiterjema userDirectory in smsProvider.
+ * Prejemnike chunka bere iz lokalne kopije kontaktov (UserContactStore); user-service vpraša le za tiste, ki jih v njej še ni.
+ */
+@Service
+@Slf4j
+public class ReminderJobService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final int SMS_MAX_LENGTH = 160;
+    private static final int RETAINED_JOBS = 20;
+
+    private final EventAttendeeReminderRepository reminderRepository;
+    private final UserContactStore userContacts;
+    private final UserDirectoryCache userDirectory;
+    private final SmsService smsService;
+    private final NotificationService notificationService;
+    private final RateLimiter userDirectoryLimiter;
+    private final RateLimiter smsLimiter;
+    private final int chunkSize;
+    private final Duration claimLease;
+    private final Semaphore chunkPermits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicReference<ReminderJob> current = new AtomicReference<>();
+    // Zadnji posli (za GET /api/reminders/jobs/{id})
+    private final Map<UUID, ReminderJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, ReminderJob> eldest) {
+            return size() > RETAINED_JOBS;
+        }
+    };
+
+    public ReminderJobService(EventAttendeeReminderRepository reminderRepository,
+                              UserContactStore userContacts,
+                              UserDirectoryCache userDirectory,
+                              SmsService smsService,
+                              NotificationService notificationService,
+                              RateLimiterRegistry rateLimiterRegistry,
+                              @Value("${notification.reminder.chunk-size:100}") int chunkSize,
+                              @Value("${notification.reminder.max-concurrent-chunks:8}") int maxConcurrentChunks,
+                              @Value("${notification.reminder.claim-lease-minutes:15}") long claimLeaseMinutes) {
+        this.reminderRepository = reminderRepository;
+        this.userContacts = userContacts;
+        this.userDirectory = userDirectory;
+        this.smsService = smsService;
+        this.notificationService = notificationService;
+        this.userDirectoryLimiter = rateLimiterRegistry.rateLimiter("userDirectory");
+        this.smsLimiter = rateLimiterRegistry.rateLimiter("smsProvider");
+        this.chunkSize = Math.max(1, chunkSize);
+        this.claimLease = Duration.ofMinutes(claimLeaseMinutes);
+        this.chunkPermits = new Semaphore(Math.max(1, maxConcurrentChunks));
+    }
+
+    /**
+     * Zažene posel za jutrišnje dogodke (UTC) in takoj vrne njegovo stanje.
+     * Če posel že teče, vrne stanje tega posla.
+     */
+    public ReminderJobStatus start() {
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+        ReminderJob running = current.compareAndExchange(null, job);
+        if (running != null) {
+            log.info("Reminder job {} is already running", running.getId());
+            return running.status();
+        }
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime from = now.plusDays(1).toLocalDate().atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = from.plusDays(1);
+        executor.execute(() -> run(job, from, to));
+        return job.status();
+    }
+
+    public Optional<ReminderJobStatus> find(UUID jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(ReminderJob::status);
+        }
+    }
+
+    void run(ReminderJob job, OffsetDateTime from, OffsetDateTime to) {
+        log.info("Reminder job {} started for events between {} and {}", job.getId(), from, to);
+        List<Future<?>> chunks = new ArrayList<>();
+        try {
+            while (true) {
+                // Prevzamemo šele, ko je chunk prost, da prevzem ne poteka, medtem ko vrstice čakajo na obdelavo
+                chunkPermits.acquire();
+                OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+                List<EventAttendeeReminder> chunk;
+                try {
+                    chunk = reminderRepository.claimUnsent(from, to, now.minus(claimLease), now, chunkSize);
+                } catch (RuntimeException e) {
+                    chunkPermits.release();
+                    throw e;
+                }
+                if (chunk.isEmpty()) {
+                    chunkPermits.release();
+                    break;
+                }
+                job.read(chunk.size());
+                chunks.add(executor.submit(() -> {
+                    try {
+                        processChunk(job, chunk);
+                    } finally {
+                        chunkPermits.release();
+                    }
+                }));
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            job.complete();
+            ReminderJobStatus status = job.status();
+            log.info("Reminder job {} finished: {} attendees, {} sent, {} failed, {} skipped",
+                    job.getId(), status.attendees(), status.sent(), status.failed(), status.skipped());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted");
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Reminder job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            current.compareAndSet(job, null);
+        }
+    }
+
+    /**
+     * Pošlje SMS-e enega chunka (zaporedno, v okviru rate limitov) in rezultate potrdi v eni transakciji.
+     * Napaka pri potrditvi ne ustavi ostalih chunkov. Neposlani opomniki ostanejo prevzeti do poteka prevzema,
+     * zato jih posel ne poskuša znova v isti zanki.
+     */
+    void processChunk(ReminderJob job, List<EventAttendeeReminder> chunk) {
+        Map<UUID, UserDirectoryClient.UserResponse> users = findUsers(job, chunk);
+        if (users == null) {
+            job.failed(chunk.size());
+            return;
+        }
+
+        List<ReminderResult> results = new ArrayList<>(chunk.size());
+        for (EventAttendeeReminder attendee : chunk) {
+            try {
+                ReminderResult result = sendReminder(job, attendee, users.get(attendee.getUserId()));
+                if (result != null) {
+                    results.add(result);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to prepare reminder for event {} to user {}", attendee.getEventId(), attendee.getUserId(), e);
+                job.failed(1);
+            }
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+
+        int sent = (int) results.stream().filter(ReminderResult::isSent).count();
+        try {
+            notificationService.recordReminders(results);
+            job.sent(sent);
+            job.failed(results.size() - sent);
+        } catch (RuntimeException e) {
+            log.error("Failed to record {} reminders of job {}", results.size(), job.getId(), e);
+            job.failed(results.size());
+        }
+    }
+
+    /**
+     * Prejemniki chunka: vsi naenkrat iz user_contacts (en JOIN z event_attendee_reminders), uporabniki, ki jih
+     * v kopiji še ni (npr. pred backfillom), pa prek predpomnilnika z enim klicem na user-service.
+     * Če user-service ni dosegljiv, se pošlje vsem, ki so v kopiji.
+     *
+     * @return uporabniki po userId ali null, če kopije ni bilo mogoče prebrati
+     */
+    private Map<UUID, UserDirectoryClient.UserResponse> findUsers(ReminderJob job, List<EventAttendeeReminder> chunk) {
+        Map<UUID, UserDirectoryClient.UserResponse> users;
+        try {
+            users = new HashMap<>(userContacts.findForReminders(chunk.stream().map(EventAttendeeReminder::getId).toList()));
+        } catch (RuntimeException e) {
+            log.error("Failed to read contacts for {} reminders of job {}", chunk.size(), job.getId(), e);
+            return null;
+        }
+
+        List<UUID> missing = chunk.stream()
+                .map(EventAttendeeReminder::getUserId)
+                .filter(userId -> !users.containsKey(userId))
+                .distinct()
+                .toList();
+        if (missing.isEmpty()) {
+            return users;
+        }
+        log.debug("{} users of job {} are not in the contact projection, asking user-service", missing.size(), job.getId());
+        try {
+            users.putAll(userDirectoryLimiter.executeSupplier(() -> userDirectory.getUsers(missing)));
+        } catch (RuntimeException e) {
+            log.error("Failed to look up {} users missing from the contact projection for job {}", missing.size(), job.getId(), e);
+        }
+        return users;
+    }
+
+    /**
+     * @return rezultat pošiljanja ali null, če je bil udeleženec preskočen
+     */
+    private ReminderResult sendReminder(ReminderJob job, EventAttendeeReminder attendee, UserDirectoryClient.UserResponse user) {
+        if (user == null) {
+            log.error("User {} not found", attendee.getUserId());
+            job.failed(1);
+            return null;
+        }
+        Boolean smsConsent = user.getSmsConsent();
+        if (smsConsent == null || !smsConsent) {
+            log.info("User {} has not given SMS consent, skipping SMS reminder for event {}", attendee.getUserId(), attendee.getEventId());
+            job.skipped();
+            return null;
+        }
+        String phone = user.getPhoneNumber();
+        if (phone == null || phone.isBlank()) {
+            log.info("No phone for user {}, skipping SMS reminder for event {}", attendee.getUserId(), attendee.getEventId());
+            job.skipped();
+            return null;
+        }
+
+        String when = attendee.getEventStartAt().atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime().format(DATE_FORMATTER);
+        String body = String.format("You have an event coming tomorrow! Event: %s Start time: %s", attendee.getEventTitle(), when);
+        try {
+            String smsSid = smsLimiter.executeSupplier(() -> smsService.sendSms(phone, body, SMS_MAX_LENGTH));
+            return ReminderResult.sent(attendee, user, body, smsSid);
+        } catch (RuntimeException e) {
+            log.error("Failed to send reminder for event {} to user {}", attendee.getEventId(), attendee.getUserId(), e);
+            return ReminderResult.failed(attendee, user, body, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.EventAttendeeReminder;
+
+/**
+ * Izid pošiljanja SMS opomnika enemu udeležencu. smsSid je izpolnjen, če je SMS odšel, sicer error.
+ */
+record ReminderResult(EventAttendeeReminder attendee,
+                      UserDirectoryClient.UserResponse user,
+                      String body,
+                      String smsSid,
+                      String error) {
+
+    static ReminderResult sent(EventAttendeeReminder attendee, UserDirectoryClient.UserResponse user, String body, String smsSid) {
+        return new ReminderResult(attendee, user, body, smsSid, null);
+    }
+
+    static ReminderResult failed(EventAttendeeReminder attendee, UserDirectoryClient.UserResponse user, String body, String error) {
+        return new ReminderResult(attendee, user, body, null, error);
+    }
+
+    boolean isSent() {
+        return error == null;
+    }
+}
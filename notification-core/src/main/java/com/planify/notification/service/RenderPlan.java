@@ -0,0 +1,104 @@
+package com.planify.notification.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Predpripravljen načrt za izris predloge: zaporedje literalnih delov in mest za spremenljivke ({@code $${ime}}).
+ * Izris je le lepljenje nizov z HTML-escapanimi vrednostmi, enako kot bi jih izpisal Thymeleaf {@code [[${ime}]]}
+ * znotraj {@code <div th:inline="text">}, brez ponovnega razčlenjevanja predloge.
+ */
+final class RenderPlan {
+
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\$\\$\\{([^}]+)}");
+    private static final Pattern SIMPLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final String PREFIX = "<div>";
+    private static final String SUFFIX = "</div>";
+
+    private final String source;
+    private final String[] literals;
+    private final String[] slots;
+    private final int literalLength;
+    private final boolean compiled;
+
+    private RenderPlan(String source, String[] literals, String[] slots, boolean compiled) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        this.compiled = compiled;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Razčleni predlogo. Če vsebuje karkoli, kar bi Thymeleaf obdelal drugače kot preprosto zamenjavo
+     * (izraze, lastne th: atribute ali inline bloke), vrne načrt, ki ga je treba izrisati s Thymeleafom.
+     */
+    static RenderPlan compile(String source) {
+        if (source == null || source.contains("th:") || source.contains("[[") || source.contains("[(")) {
+            return new RenderPlan(source, new String[0], new String[0], false);
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        Matcher matcher = VAR_PATTERN.matcher(source);
+        int position = 0;
+        while (matcher.find()) {
+            String name = matcher.group(1).trim();
+            if (!SIMPLE_NAME.matcher(name).matches()) {
+                return new RenderPlan(source, new String[0], new String[0], false);
+            }
+            literals.add(source.substring(position, matcher.start()));
+            slots.add(name);
+            position = matcher.end();
+        }
+        literals.add(source.substring(position));
+        return new RenderPlan(source, literals.toArray(String[]::new), slots.toArray(String[]::new), true);
+    }
+
+    String source() {
+        return source;
+    }
+
+    /**
+     * false, če je predlogo treba izrisati s Thymeleafom.
+     */
+    boolean isCompiled() {
+        return compiled;
+    }
+
+    String render(Map<String, Object> variables) {
+        StringBuilder out = new StringBuilder(PREFIX.length() + literalLength + slots.length * 16 + SUFFIX.length());
+        out.append(PREFIX);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = variables == null ? null : variables.get(slots[i]);
+            if (value != null) {
+                escapeHtml(value.toString(), out);
+            }
+        }
+        out.append(literals[literals.length - 1]);
+        out.append(SUFFIX);
+        return out.toString();
+    }
+
+    private static void escapeHtml(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.planify.notification.service;
 import com.vonage.client.VonageClient;
 import com.vonage.client.sms.messages.TextMessage;
 import lombok.extern.slf4j.Slf4j;
-import io.github.resilience4j.retry.annotation.Retry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
@@ -34,7 +33,6 @@ public class SmsService {
         log.info("Vonage SMS service initialized");
     }
 
-    @Retry(name = "smsService")
     public String sendSms(String toPhoneNumber, String messageBody) {
         try {
             TextMessage message = new TextMessage(fromPhoneNumber, toPhoneNumber, messageBody);
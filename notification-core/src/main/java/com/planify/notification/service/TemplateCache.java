@@ -0,0 +1,110 @@
+package com.planify.notification.service;
+
+import com.planify.notification.kafka.TemplateChangeBroadcaster;
+import com.planify.notification.model.NotificationTemplate;
+import com.planify.notification.repository.NotificationTemplateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through predpomnilnik templatov po ključu. Templatov je malo in se redko spreminjajo, zato se ob zagonu
+ * naložijo vsi, pošiljanje obvestil pa do baze ne pride več. Zapomni si tudi ključe, ki jih ni (prazen Optional).
+ * Ob spremembi templata se vnos odstrani lokalno in na ostalih replikah (glej TemplateChangeBroadcaster).
+ */
+@Service
+@Slf4j
+public class TemplateCache {
+
+    /**
+     * Ključ, ki pomeni "vsi templati" (npr. po brisanju).
+     */
+    public static final String ALL = "*";
+
+    private final NotificationTemplateRepository templateRepository;
+    private final TemplateService templateService;
+    private final ObjectProvider<TemplateChangeBroadcaster> broadcaster;
+    private final Map<String, Optional<NotificationTemplate>> templates = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public TemplateCache(NotificationTemplateRepository templateRepository,
+                         TemplateService templateService,
+                         ObjectProvider<TemplateChangeBroadcaster> broadcaster,
+                         MeterRegistry meterRegistry) {
+        this.templateRepository = templateRepository;
+        this.templateService = templateService;
+        this.broadcaster = broadcaster;
+        this.hits = Counter.builder("notification.template.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("notification.template.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("notification.template.cache.size", templates, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ob zagonu naloži vse template, da prvi dogodki ne čakajo na bazo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            for (NotificationTemplate template : templateRepository.findAll()) {
+                templates.putIfAbsent(template.getTemplateKey(), Optional.of(template));
+            }
+            log.info("Template cache warmed with {} templates", templates.size());
+        } catch (Exception e) {
+            log.warn("Template cache warm-up failed, templates will be loaded on first use", e);
+        }
+    }
+
+    public Optional<NotificationTemplate> findByTemplateKey(String templateKey) {
+        Optional<NotificationTemplate> cached = templates.get(templateKey);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return templates.computeIfAbsent(templateKey, templateRepository::findByTemplateKey);
+    }
+
+    public Optional<NotificationTemplate> findByTemplateKeyAndIsActiveTrue(String templateKey) {
+        return findByTemplateKey(templateKey).filter(template -> Boolean.TRUE.equals(template.getIsActive()));
+    }
+
+    /**
+     * Template se je spremenil: odstrani ga iz predpomnilnika in o tem obvesti ostale replike.
+     */
+    public void evict(String templateKey) {
+        invalidateLocal(templateKey);
+        broadcaster.ifAvailable(b -> b.publish(templateKey));
+    }
+
+    public void evictAll() {
+        evict(ALL);
+    }
+
+    /**
+     * Odstrani template (ali vse, če je ključ ALL) samo na tej repliki, skupaj s prevedenimi render plani.
+     */
+    public void invalidateLocal(String templateKey) {
+        if (ALL.equals(templateKey)) {
+            templates.clear();
+            templateService.invalidateAll();
+        } else {
+            templates.remove(templateKey);
+            templateService.invalidate(templateKey);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.planify.notification.service;
 
+import com.planify.notification.model.NotificationTemplate;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
@@ -7,7 +8,10 @@ import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.StringTemplateResolver;
 
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -16,6 +20,9 @@ public class TemplateService {
 
     private final TemplateEngine templateEngine;
 
+    // Predpripravljeni načrti izrisa po (ključ predloge, del, verzija)
+    private final Map<PlanKey, RenderPlan> renderPlans = new ConcurrentHashMap<>();
+
     public TemplateService() {
         StringTemplateResolver templateResolver = new StringTemplateResolver();
         templateResolver.setTemplateMode(TemplateMode.HTML);
@@ -25,6 +32,50 @@ public class TemplateService {
         this.templateEngine.setTemplateResolver(templateResolver);
     }
 
+    public String renderSubject(NotificationTemplate template, Map<String, Object> variables) {
+        return render(template, "subject", template.getSubject(), variables);
+    }
+
+    public String renderBody(NotificationTemplate template, Map<String, Object> variables) {
+        return render(template, "body", template.getBodyTemplate(), variables);
+    }
+
+    /**
+     * Odstrani predpripravljene načrte predloge (ob spremembi ali brisanju predloge).
+     */
+    public void invalidate(String templateKey) {
+        renderPlans.keySet().removeIf(key -> key.templateKey().equals(templateKey));
+    }
+
+    public void invalidateAll() {
+        renderPlans.clear();
+    }
+
+    private String render(NotificationTemplate template, String part, String source, Map<String, Object> variables) {
+        if (template.getTemplateKey() == null) {
+            return renderTemplate(source, variables);
+        }
+        PlanKey key = new PlanKey(template.getTemplateKey(), part, version(template));
+        RenderPlan plan = renderPlans.get(key);
+        // Primerjava vira varuje pred spremembo predloge brez spremembe verzije (npr. ročni UPDATE v bazi)
+        if (plan == null || !Objects.equals(plan.source(), source)) {
+            plan = RenderPlan.compile(source);
+            renderPlans.keySet().removeIf(k -> k.templateKey().equals(key.templateKey()) && k.part().equals(part) && !k.equals(key));
+            renderPlans.put(key, plan);
+        }
+        return plan.isCompiled() ? plan.render(variables) : renderTemplate(source, variables);
+    }
+
+    private LocalDateTime version(NotificationTemplate template) {
+        return template.getUpdatedAt() != null ? template.getUpdatedAt() : template.getCreatedAt();
+    }
+
+    private record PlanKey(String templateKey, String part, LocalDateTime version) {
+    }
+
+    /**
+     * Izris poljubnega niza prek Thymeleafa (brez predpomnjenja).
+     */
     public String renderTemplate(String templateString, Map<String, Object> variables) {
         Context context = new Context();
         if (variables != null) {
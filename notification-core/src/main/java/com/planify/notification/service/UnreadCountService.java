@@ -0,0 +1,86 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.UnreadCounter;
+import com.planify.notification.repository.UnreadCounterRepository;
+import com.planify.notification.websocket.NotificationWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Števec neprebranih obvestil in pošiljanje njegovih posodobitev preko WebSocket-a.
+ * Števec se bere iz tabele in_app_unread_counters (vzdržujejo jo sprožilci), ne s COUNT(*).
+ * Posodobitve se zbirajo in pošiljajo v intervalih: niz sprememb istega uporabnika (npr. klikanje po seznamu)
+ * pošlje en sam okvir z zadnjim stanjem.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCountService {
+
+    static final String COUNT_UPDATE = "NOTIFICATION_COUNT_UPDATE";
+    private static final int READ_CHUNK = 500;
+
+    private final UnreadCounterRepository unreadCounterRepository;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final Set<UUID> pendingPushes = ConcurrentHashMap.newKeySet();
+
+    public long getUnreadCount(UUID userId) {
+        return unreadCounterRepository.findById(userId)
+                .map(UnreadCounter::getUnreadCount)
+                .orElse(0L);
+    }
+
+    /**
+     * Zahteva pošiljanje števca uporabniku; pošlje se ob naslednjem intervalu.
+     */
+    public void requestPush(UUID userId) {
+        pendingPushes.add(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.websocket.count-push-interval-ms:250}")
+    public void pushPendingCounts() {
+        if (pendingPushes.isEmpty()) {
+            return;
+        }
+        List<UUID> userIds = new ArrayList<>();
+        for (Iterator<UUID> it = pendingPushes.iterator(); it.hasNext(); ) {
+            userIds.add(it.next());
+            it.remove();
+        }
+
+        for (int from = 0; from < userIds.size(); from += READ_CHUNK) {
+            List<UUID> chunk = userIds.subList(from, Math.min(from + READ_CHUNK, userIds.size()));
+            try {
+                Map<UUID, Long> counts = new HashMap<>();
+                unreadCounterRepository.findAllById(chunk)
+                        .forEach(counter -> counts.put(counter.getUserId(), counter.getUnreadCount()));
+                chunk.forEach(userId -> push(userId, counts.getOrDefault(userId, 0L)));
+            } catch (Exception e) {
+                log.error("Failed to send notification counts to {} users", chunk.size(), e);
+            }
+        }
+    }
+
+    private void push(UUID userId, long unreadCount) {
+        // Ustvarimo objekt za posodabljanja števca obvestil
+        Map<String, Object> countUpdate = new HashMap<>();
+        countUpdate.put("unreadCount", unreadCount);
+        countUpdate.put("userId", userId.toString());
+        countUpdate.put("type", COUNT_UPDATE);
+
+        // Novejši števec nadomesti še neposlanega
+        webSocketHandler.sendNotificationToUser(userId.toString(), countUpdate, COUNT_UPDATE);
+        log.debug("Sent notification count update to user {}: {}", userId, unreadCount);
+    }
+}
@@ -0,0 +1,167 @@
+package com.planify.notification.service;
+
+import com.planify.notification.event.UserUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Lokalna kopija kontaktov in soglasij uporabnikov (user_contacts). Polni se iz topica user-updated in
+ * z backfillom; opomniki iz nje berejo prejemnike z enim JOIN-om namesto klica na user-service za vsakega.
+ */
+@Service
+@Slf4j
+public class UserContactStore {
+
+    private static final String UPSERT = """
+            INSERT INTO user_contacts (user_id, email, email_consent, phone_number, sms_consent, first_name, last_name,
+                                       deleted, updated_at, synced_at)
+            VALUES (:userId, :email, :emailConsent, :phoneNumber, :smsConsent, :firstName, :lastName,
+                    :deleted, :updatedAt, :syncedAt)
+            ON CONFLICT (user_id) DO UPDATE SET
+                email = EXCLUDED.email,
+                email_consent = EXCLUDED.email_consent,
+                phone_number = EXCLUDED.phone_number,
+                sms_consent = EXCLUDED.sms_consent,
+                first_name = EXCLUDED.first_name,
+                last_name = EXCLUDED.last_name,
+                deleted = EXCLUDED.deleted,
+                updated_at = EXCLUDED.updated_at,
+                synced_at = EXCLUDED.synced_at
+            WHERE user_contacts.updated_at <= EXCLUDED.updated_at
+            """;
+
+    private static final String FIND_FOR_REMINDERS = """
+            SELECT DISTINCT c.user_id, c.email, c.email_consent, c.phone_number, c.sms_consent, c.first_name, c.last_name
+            FROM event_attendee_reminders r
+            JOIN user_contacts c ON c.user_id = r.user_id
+            WHERE r.id IN (:reminderIds)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final UserDirectoryCache userDirectoryCache;
+
+    public UserContactStore(NamedParameterJdbcTemplate jdbcTemplate, UserDirectoryCache userDirectoryCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userDirectoryCache = userDirectoryCache;
+    }
+
+    @Transactional
+    public void apply(UserUpdatedEvent event) {
+        applyAll(List.of(event));
+    }
+
+    /**
+     * Zapiše spremembe uporabnikov v eni transakciji. Za vsakega uporabnika se upošteva le najnovejša sprememba;
+     * sprememba, starejša od shranjene, se ne zapiše (zapisi iz Kafke in backfilla lahko prihajajo v poljubnem vrstnem redu).
+     * Sprememba brez updatedAt se zavrne, saj je ne moremo urediti glede na ostale. Uporabniki sprememb se po potrditvi
+     * transakcije odstranijo iz lokalnega UserDirectoryCache (prej bi ga sočasno branje lahko napolnilo s starimi
+     * podatki); na ostalih replikah vnos poteče po ttl-seconds.
+     *
+     * @return število zapisanih vrstic
+     */
+    @Transactional
+    public int applyAll(Collection<UserUpdatedEvent> events) {
+        // Urejeno po userId: sočasni batchi zaklepajo vrstice v istem vrstnem redu
+        Map<UUID, UserUpdatedEvent> latest = new TreeMap<>();
+        for (UserUpdatedEvent event : events) {
+            if (event == null || event.getUserId() == null) {
+                log.warn("Ignoring user update without userId");
+                continue;
+            }
+            if (event.getUpdatedAt() == null) {
+                log.warn("Ignoring update of user {} without updatedAt", event.getUserId());
+                continue;
+            }
+            latest.merge(event.getUserId(), event,
+                    (current, next) -> next.getUpdatedAt().isBefore(current.getUpdatedAt()) ? current : next);
+        }
+        if (latest.isEmpty()) {
+            return 0;
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        SqlParameterSource[] rows = latest.values().stream()
+                .map(event -> params(event, now))
+                .toArray(SqlParameterSource[]::new);
+        int written = Arrays.stream(jdbcTemplate.batchUpdate(UPSERT, rows)).filter(count -> count > 0).sum();
+        log.debug("Applied {} of {} user contact updates", written, rows.length);
+        afterCommit(() -> latest.keySet().forEach(userDirectoryCache::invalidate));
+        return written;
+    }
+
+    /**
+     * Kontakti prejemnikov danih opomnikov, z enim JOIN-om med event_attendee_reminders in user_contacts.
+     * Uporabnikov, ki jih v kopiji (še) ni, v rezultatu ni; izbrisani uporabniki so vrnjeni brez kontaktov in soglasij.
+     *
+     * @return uporabniki po userId
+     */
+    public Map<UUID, UserDirectoryClient.UserResponse> findForReminders(Collection<UUID> reminderIds) {
+        if (reminderIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, UserDirectoryClient.UserResponse> users = new HashMap<>();
+        jdbcTemplate.query(FIND_FOR_REMINDERS, new MapSqlParameterSource("reminderIds", reminderIds), rs -> {
+            UserDirectoryClient.UserResponse user = mapUser(rs);
+            users.put(user.getId(), user);
+        });
+        return users;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static MapSqlParameterSource params(UserUpdatedEvent event, OffsetDateTime syncedAt) {
+        // Izbrisanemu uporabniku kontaktov ne hranimo, vrstica ostane le zaradi updated_at
+        boolean deleted = event.isDeleted();
+        return new MapSqlParameterSource()
+                .addValue("userId", event.getUserId())
+                .addValue("email", deleted ? null : event.getEmail())
+                .addValue("emailConsent", !deleted && Boolean.TRUE.equals(event.getEmailConsent()))
+                .addValue("phoneNumber", deleted ? null : event.getPhoneNumber())
+                .addValue("smsConsent", !deleted && Boolean.TRUE.equals(event.getSmsConsent()))
+                .addValue("firstName", deleted ? null : event.getFirstName())
+                .addValue("lastName", deleted ? null : event.getLastName())
+                .addValue("deleted", deleted)
+                .addValue("updatedAt", event.getUpdatedAt().atOffset(ZoneOffset.UTC))
+                .addValue("syncedAt", syncedAt);
+    }
+
+    private static UserDirectoryClient.UserResponse mapUser(ResultSet rs) throws SQLException {
+        UserDirectoryClient.UserResponse user = new UserDirectoryClient.UserResponse();
+        user.setId(rs.getObject("user_id", UUID.class));
+        user.setEmail(rs.getString("email"));
+        user.setEmailConsent(rs.getBoolean("email_consent"));
+        user.setPhoneNumber(rs.getString("phone_number"));
+        user.setSmsConsent(rs.getBoolean("sms_consent"));
+        user.setFirstName(rs.getString("first_name"));
+        user.setLastName(rs.getString("last_name"));
+        return user;
+    }
+}
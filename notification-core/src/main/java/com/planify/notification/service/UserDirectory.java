@@ -0,0 +1,17 @@
+package com.planify.notification.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Vir kontaktnih podatkov in privolitev uporabnikov (user-service).
+ */
+public interface UserDirectory {
+
+    /**
+     * Poišče več uporabnikov z enim klicem. Uporabnikov, ki jih ni, v rezultatu ni;
+     * napaka vira se posreduje klicatelju (ni prazen rezultat).
+     */
+    Map<UUID, UserDirectoryClient.UserResponse> findUsers(Collection<UUID> userIds);
+}
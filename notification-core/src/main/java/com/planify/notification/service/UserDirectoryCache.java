@@ -0,0 +1,192 @@
+package com.planify.notification.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lokalni predpomnilnik uporabnikov pred user-service. Vnosi potečejo po ttl-seconds, uporabniki, ki jih ni, pa po
+ * negative-ttl-seconds (negativni vnosi). Velikost je omejena na max-size (najdlje neuporabljeni vnosi gredo ven).
+ * Manjkajoči uporabniki se naložijo v paketih do batch-size ID-jev; sočasna iskanja istega uporabnika
+ * počakajo na isti klic namesto da bi vsak klical user-service.
+ */
+@Component
+public class UserDirectoryCache {
+
+    private final UserDirectory userDirectory;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int batchSize;
+    // Varovano z entries
+    private final Map<UUID, Entry> entries;
+    private final Map<UUID, CompletableFuture<UserDirectoryClient.UserResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public UserDirectoryCache(UserDirectory userDirectory,
+                              MeterRegistry meterRegistry,
+                              @Value("${notification.user-cache.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${notification.user-cache.negative-ttl-seconds:60}") long negativeTtlSeconds,
+                              @Value("${notification.user-cache.max-size:10000}") int maxSize,
+                              @Value("${user-service.lookup-batch-size:100}") int batchSize) {
+        this.userDirectory = userDirectory;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        this.batchSize = Math.max(1, batchSize);
+        int capacity = Math.max(1, maxSize);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = Counter.builder("notification.user.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("notification.user.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("notification.user.cache.requests")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("notification.user.cache.size", this, UserDirectoryCache::size)
+                .register(meterRegistry);
+    }
+
+    public Optional<UserDirectoryClient.UserResponse> getUser(UUID userId) {
+        return Optional.ofNullable(getUsers(List.of(userId)).get(userId));
+    }
+
+    /**
+     * Vrne najdene uporabnike po ID-ju. Napaka user-service se posreduje klicatelju in se ne shrani.
+     */
+    public Map<UUID, UserDirectoryClient.UserResponse> getUsers(Collection<UUID> userIds) {
+        Map<UUID, UserDirectoryClient.UserResponse> result = new HashMap<>();
+        Map<UUID, CompletableFuture<UserDirectoryClient.UserResponse>> owned = new LinkedHashMap<>();
+        Map<UUID, CompletableFuture<UserDirectoryClient.UserResponse>> waiting = new HashMap<>();
+
+        long now = System.nanoTime();
+        for (UUID userId : new LinkedHashSet<>(userIds)) {
+            Entry entry = cached(userId, now);
+            if (entry != null) {
+                hits.increment();
+                if (entry.user() != null) {
+                    result.put(userId, entry.user());
+                }
+                continue;
+            }
+            CompletableFuture<UserDirectoryClient.UserResponse> lookup = new CompletableFuture<>();
+            CompletableFuture<UserDirectoryClient.UserResponse> running = inFlight.putIfAbsent(userId, lookup);
+            if (running != null) {
+                coalesced.increment();
+                waiting.put(userId, running);
+            } else {
+                misses.increment();
+                owned.put(userId, lookup);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            load(owned, result);
+        }
+        waiting.forEach((userId, lookup) -> {
+            UserDirectoryClient.UserResponse user = await(lookup);
+            if (user != null) {
+                result.put(userId, user);
+            }
+        });
+        return result;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void invalidate(UUID userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    private void load(Map<UUID, CompletableFuture<UserDirectoryClient.UserResponse>> owned,
+                      Map<UUID, UserDirectoryClient.UserResponse> result) {
+        List<UUID> userIds = new ArrayList<>(owned.keySet());
+        try {
+            for (int from = 0; from < userIds.size(); from += batchSize) {
+                List<UUID> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+                Map<UUID, UserDirectoryClient.UserResponse> found = userDirectory.findUsers(batch);
+                long now = System.nanoTime();
+                for (UUID userId : batch) {
+                    UserDirectoryClient.UserResponse user = found.get(userId);
+                    // Najprej v predpomnilnik, nato iz inFlight: sočasni klic vidi enega od obeh
+                    synchronized (entries) {
+                        entries.put(userId, new Entry(user, now + (user != null ? ttlNanos : negativeTtlNanos)));
+                    }
+                    inFlight.remove(userId);
+                    owned.get(userId).complete(user);
+                    if (user != null) {
+                        result.put(userId, user);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            owned.forEach((userId, lookup) -> {
+                if (!lookup.isDone()) {
+                    inFlight.remove(userId, lookup);
+                    lookup.completeExceptionally(e);
+                }
+            });
+            throw e;
+        }
+    }
+
+    private Entry cached(UUID userId, long now) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() - now <= 0) {
+                entries.remove(userId);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private static UserDirectoryClient.UserResponse await(CompletableFuture<UserDirectoryClient.UserResponse> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param user null pomeni, da uporabnika ni (negativni vnos)
+     */
+    private record Entry(UserDirectoryClient.UserResponse user, long expiresAt) {
+    }
+}
@@ -3,38 +3,57 @@ package com.planify.notification.service;
 import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Klient za user-service. Bazni URL, pool povezav in timeouti so nastavljeni na userServiceRestClient (glej AppConfig).
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
-public class UserDirectoryClient {
+public class UserDirectoryClient implements UserDirectory {
 
-    private final RestTemplate restTemplate;
+    private final RestClient restClient;
+    private final MeterRegistry meterRegistry;
+    private final String userEndpoint;
+    private final String usersLookupEndpoint;
 
-    @Value("${user-service.base-url:http://localhost:8082}")
-    private String baseUrl;
-
-    @Value("${user-service.user-endpoint:/api/users/{id}}")
-    private String userEndpoint;
+    public UserDirectoryClient(RestClient userServiceRestClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${user-service.user-endpoint:/api/users/{id}}") String userEndpoint,
+                               @Value("${user-service.users-lookup-endpoint:/api/users/lookup}") String usersLookupEndpoint) {
+        this.restClient = userServiceRestClient;
+        this.meterRegistry = meterRegistry;
+        this.userEndpoint = userEndpoint;
+        this.usersLookupEndpoint = usersLookupEndpoint;
+    }
 
     @Retry(name = "defaultRetry")
     @Bulkhead(name = "defaultBulkhead")
     @CircuitBreaker(name = "defaultCircuitBreaker", fallbackMethod = "getUserPhoneFallback")
     public UserResponse getUser(UUID userId) {
         log.info("Fetching user for userId: {}", userId);
-        String url = baseUrl + userEndpoint.replace("{id}", userId.toString());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            ResponseEntity<UserResponse> response = restTemplate.getForEntity(url, UserResponse.class);
+            ResponseEntity<UserResponse> response = restClient.get()
+                    .uri(userEndpoint, userId)
+                    .retrieve()
+                    .toEntity(UserResponse.class);
+            outcome = "success";
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response.getBody();
             }
@@ -42,10 +61,59 @@ public class UserDirectoryClient {
         } catch (RestClientException ex) {
             log.error("Failed to fetch user {} from user-service", userId, ex);
             throw ex; // Re-throw, da sprožimo circuit breake
+        } finally {
+            sample.stop(requestTimer("get", outcome));
         }
         return null;
     }
 
+    /**
+     * Poišče več uporabnikov z enim POST klicem na user-service. Brez fallbacka: ko user-service ni dosegljiv,
+     * klicatelj dobi izjemo in ne prazen rezultat (ta bi pomenil, da uporabnikov ni).
+     */
+    @Override
+    @Retry(name = "defaultRetry")
+    @Bulkhead(name = "defaultBulkhead")
+    @CircuitBreaker(name = "defaultCircuitBreaker")
+    public Map<UUID, UserResponse> findUsers(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        log.debug("Fetching {} users from user-service", userIds.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            UserResponse[] users = restClient.post()
+                    .uri(usersLookupEndpoint)
+                    .body(new UserLookupRequest(List.copyOf(userIds)))
+                    .retrieve()
+                    .body(UserResponse[].class);
+            outcome = "success";
+            Map<UUID, UserResponse> found = new HashMap<>();
+            if (users != null) {
+                for (UserResponse user : users) {
+                    if (user != null && user.getId() != null) {
+                        found.put(user.getId(), user);
+                    }
+                }
+            }
+            return found;
+        } catch (RestClientException ex) {
+            log.error("Failed to fetch {} users from user-service", userIds.size(), ex);
+            throw ex;
+        } finally {
+            sample.stop(requestTimer("lookup", outcome));
+        }
+    }
+
+    private Timer requestTimer(String operation, String outcome) {
+        return Timer.builder("notification.user_service.request.time")
+                .description("Latency of user-service calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     private UserResponse getUserPhoneFallback(UUID userId, Exception ex) {
         log.error("User-service is unavailable. Cannot fetch phone for user {}. Error: {}",
                   userId, ex.getMessage());
@@ -53,8 +121,12 @@ public class UserDirectoryClient {
         return null;
     }
 
+    public record UserLookupRequest(List<UUID> ids) {
+    }
+
     @Data
     public static class UserResponse {
+        private UUID id;
         private String email;
         private Boolean emailConsent;
         private String phoneNumber;
@@ -9,8 +9,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -21,9 +24,11 @@ public class WebSocketNotificationService {
 
     private final InAppNotificationRepository inAppNotificationRepository;
     private final NotificationWebSocketHandler webSocketHandler;
+    private final UnreadCountService unreadCountService;
+    private final MessageBodyStore messageBodyStore;
 
     /**
-     * Pošlje in-app obvestilo in ga shrani v bazi
+     * Shrani in-app obvestilo v bazi in ga po potrditvi transakcije pošlje uporabniku
      */
     @Transactional
     public InAppNotification sendInAppNotification(
@@ -43,19 +48,34 @@ public class WebSocketNotificationService {
         notification.setReferenceId(referenceId);
         notification.setReferenceType(referenceType);
         notification.setIsRead(false);
+        notification.setMessageHash(messageBodyStore.store(message));
 
         InAppNotification saved = inAppNotificationRepository.save(notification);
         log.info("Saved in-app notification {} for user {}", saved.getId(), userId);
 
         // Preko WebSocket pošljemo obvesilo uporabniku
-        try {
-            InAppNotificationDto dto = convertToDto(saved);
-            sendToUser(String.valueOf(userId), dto);
-            log.info("Sent WebSocket notification to user {}", userId);
-        } catch (Exception e) {
-            log.error("Failed to send WebSocket notification to user {}", userId, e);
+        afterCommit(() -> push(List.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Shrani več in-app obvestil z enim batch insertom in jih po potrditvi transakcije pošlje preko WebSocket-a
+     */
+    @Transactional
+    public List<InAppNotification> sendInAppNotifications(List<InAppNotification> notifications) {
+        // Besedila, ki jih klicatelj še ni shranil v message_bodies
+        List<InAppNotification> unstored = notifications.stream()
+                .filter(notification -> notification.getMessageHash() == null)
+                .toList();
+        if (!unstored.isEmpty()) {
+            Map<String, String> hashes = messageBodyStore.storeAll(unstored.stream().map(InAppNotification::getMessage).toList());
+            unstored.forEach(notification -> notification.setMessageHash(hashes.get(notification.getMessage())));
         }
 
+        List<InAppNotification> saved = inAppNotificationRepository.saveAll(notifications);
+        log.info("Saved {} in-app notifications", saved.size());
+
+        afterCommit(() -> push(saved));
         return saved;
     }
 
@@ -67,6 +87,20 @@ public class WebSocketNotificationService {
         webSocketHandler.broadcastNotification(notification);
     }
 
+    /**
+     * Pošlje isto obvestilo več uporabnikom (obvestilo se serializira le enkrat), po potrditvi transakcije
+     */
+    public void sendToUsers(Collection<String> userIds, Object notification) {
+        afterCommit(() -> webSocketHandler.multicast(userIds, notification));
+    }
+
+    /**
+     * Pošlje obvestilo vsem, ki so naročeni na temo (npr. organization:{id}), po potrditvi transakcije
+     */
+    public void sendToTopic(String topic, Object notification) {
+        afterCommit(() -> webSocketHandler.sendToTopic(topic, notification));
+    }
+
     public boolean isUserOnline(String userId) {
         return webSocketHandler.isUserConnected(userId);
     }
@@ -75,22 +109,37 @@ public class WebSocketNotificationService {
         return webSocketHandler.getActiveConnectionCount();
     }
 
+    /**
+     * Pošlje števec neprebranih obvestil; več zahtev v kratkem času se združi v eno sporočilo
+     */
     public void sendNotificationCountUpdate(UUID userId) {
-        try {
-            long unreadCount = inAppNotificationRepository.countByUserIdAndIsReadFalse(userId);
-
-            // Ustvarimo objekt za posodabljanja števca obvestil
-            Map<String, Object> countUpdate = new HashMap<>();
-            countUpdate. put("unreadCount", unreadCount);
-            countUpdate.put("userId", userId.toString());
-            countUpdate.put("type", "NOTIFICATION_COUNT_UPDATE");
+        unreadCountService.requestPush(userId);
+    }
 
-            // Pošljemo preko WebSocket-a
-            webSocketHandler.sendNotificationToUser(userId.toString(), countUpdate);
+    /**
+     * Izvede akcijo šele po potrditvi trenutne transakcije: ob rollbacku (in ponovni obdelavi zapisov) uporabnik
+     * ne dobi obvestila, ki ga v bazi ni, ali istega obvestila dvakrat. Brez transakcije se akcija izvede takoj.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-            log.info("Sent notification count update to user {}: {}", userId, unreadCount);
-        } catch (Exception e) {
-            log.error("Failed to send notification count to user {}", userId, e);
+    private void push(List<InAppNotification> notifications) {
+        for (InAppNotification notification : notifications) {
+            try {
+                sendToUser(String.valueOf(notification.getUserId()), convertToDto(notification));
+            } catch (Exception e) {
+                log.error("Failed to send WebSocket notification to user {}", notification.getUserId(), e);
+            }
         }
     }
 
@@ -1,32 +1,58 @@
 package com.planify.notification.websocket;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket. WebSocketSession;
-import org. springframework.web.socket.handler. TextWebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
+@Slf4j
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
-    // Hranimo aktiven session glede na userId
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Seje na tej repliki (več sej na uporabnika)
+    private final WebSocketSessionRegistry registry;
+    // Izhodne vrste sej (pošiljanje ne blokira klicatelja)
+    private final WebSocketSender sender;
+    // Dostava na seje drugih replik (ni na voljo v profilu azure)
+    private final ObjectProvider<WebSocketBroadcastChannel> broadcastChannel;
+    // Kdo sme prejemati katero temo
+    private final WebSocketTopicAccess topicAccess;
+    private final ObjectMapper objectMapper;
+
+    public NotificationWebSocketHandler(WebSocketSessionRegistry registry,
+                                        WebSocketSender sender,
+                                        ObjectProvider<WebSocketBroadcastChannel> broadcastChannel,
+                                        WebSocketTopicAccess topicAccess,
+                                        ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.sender = sender;
+        this.broadcastChannel = broadcastChannel;
+        this.topicAccess = topicAccess;
+        this.objectMapper = objectMapper;
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String userId = (String) session.getAttributes().get("userId");
         if (userId != null) {
-            sessions.put(userId, session);
-            System.out.println("WebSocket connected for user: " + userId + " (Total connections: " + sessions.size() + ")");
+            registry.register(userId, sender.open(session));
+            log.info("WebSocket connected for user: {} (Total connections: {})", userId, registry.sessionCount());
         } else {
-            System.err.println("WebSocket connection without userId");
-            session.close(CloseStatus. POLICY_VIOLATION);
+            log.warn("WebSocket connection without userId");
+            session.close(CloseStatus.POLICY_VIOLATION);
         }
     }
 
@@ -34,78 +60,197 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String userId = (String) session.getAttributes().get("userId");
         if (userId != null) {
-            sessions.remove(userId);
-            System.out.println("WebSocket disconnected for user: " + userId + " (Total connections: " + sessions.size() + ")");
+            OutboundSession outbound = registry.unregister(userId, session.getId());
+            if (outbound != null) {
+                outbound.discard();
+            }
+            log.info("WebSocket disconnected for user: {} (Total connections: {})", userId, registry.sessionCount());
         }
     }
 
+    /**
+     * Klient se lahko naroči na temo ali se od nje odjavi:
+     * {"type": "SUBSCRIBE", "topic": "organization:{id}"} oz. {"type": "UNSUBSCRIBE", ...}
+     * Naročilo na temo, do katere uporabnik nima dostopa (glej WebSocketTopicAccess), se prezre; dostop se
+     * ponovno preveri ob vsaki dostavi na temo.
+     */
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        // Obravnavanje prihajajočih sporočil s client-a
         String userId = (String) session.getAttributes().get("userId");
-        System.out.println("Received message from user " + userId + ": " + message.getPayload());
+        JsonNode command;
+        try {
+            command = objectMapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable message from user {}", userId);
+            return;
+        }
+        String type = command.path("type").asText();
+        String topic = command.path("topic").asText(null);
+        if (topic == null || topic.isBlank()) {
+            log.debug("Received message from user {}: {}", userId, message.getPayload());
+            return;
+        }
+
+        if ("SUBSCRIBE".equals(type)) {
+            if (!topicAccess.canSubscribe(userId, topic)) {
+                log.warn("User {} is not allowed to subscribe to {}", userId, topic);
+                return;
+            }
+            OutboundSession outbound = registry.session(userId, session.getId());
+            if (outbound != null) {
+                registry.subscribe(topic, outbound);
+                log.debug("User {} subscribed to {}", userId, topic);
+            }
+        } else if ("UNSUBSCRIBE".equals(type)) {
+            registry.unsubscribe(topic, session.getId());
+            log.debug("User {} unsubscribed from {}", userId, topic);
+        }
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         String userId = (String) session.getAttributes().get("userId");
-        System.err.println("WebSocket error for user " + userId + ":  " + exception.getMessage());
+        log.warn("WebSocket error for user {}: {}", userId, exception.getMessage());
     }
 
     /**
-     * Pošlje obvestlo določenemu uporabniku
+     * Pošlje obvestlo vsem sejam uporabnika, na tej in na ostalih replikah
      */
     public void sendNotificationToUser(String userId, Object notification) {
-        WebSocketSession session = sessions.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                String json = objectMapper.writeValueAsString(notification);
-                session.sendMessage(new TextMessage(json));
-                System.out.println("Notification sent to user:  " + userId);
-            } catch (IOException e) {
-                System.err.println("Error sending notification to user " + userId + ":  " + e.getMessage());
-            }
-        } else {
-            System.out.println("User " + userId + " is not connected");
+        sendNotificationToUser(userId, notification, null);
+    }
+
+    /**
+     * Pošlje obvestilo, ki nadomesti še neposlano obvestilo z istim ključem (npr. posodobitev števca neprebranih)
+     */
+    public void sendNotificationToUser(String userId, Object notification, String coalesceKey) {
+        publish(WebSocketEnvelope.Scope.USER, List.of(userId), coalesceKey, notification);
+    }
+
+    /**
+     * Pošlje isto obvestilo več uporabnikom. Obvestilo se serializira enkrat.
+     */
+    public void multicast(Collection<String> userIds, Object notification) {
+        if (userIds.isEmpty()) {
+            return;
         }
+        publish(WebSocketEnvelope.Scope.USERS, List.copyOf(userIds), null, notification);
     }
 
     /**
-     * Broadcasta obvestilo vsem prijavljenim uporabnikom (trenutno se ne uporablja)
+     * Pošlje obvestilo vsem sejam, naročenim na temo (npr. vsem članom organizacije), na vseh replikah
+     */
+    public void sendToTopic(String topic, Object notification) {
+        publish(WebSocketEnvelope.Scope.TOPIC, List.of(topic), null, notification);
+    }
+
+    /**
+     * Broadcasta obvestilo vsem prijavljenim uporabnikom na vseh replikah (trenutno se ne uporablja)
      */
     public void broadcastNotification(Object notification) {
-        try {
-            String json = objectMapper.writeValueAsString(notification);
-            TextMessage message = new TextMessage(json);
-
-            sessions.values().forEach(session -> {
-                if (session.isOpen()) {
-                    try {
-                        session.sendMessage(message);
-                    } catch (IOException e) {
-                        System.err. println("Error broadcasting to session:  " + e.getMessage());
-                    }
-                }
-            });
+        publish(WebSocketEnvelope.Scope.ALL, List.of(), null, notification);
+    }
 
-            System.out.println("Notification broadcasted to " + sessions.size() + " users");
-        } catch (IOException e) {
-            System.err. println("Error creating broadcast message: " + e.getMessage());
-        }
+    /**
+     * Dostavi sporočilo sejam na tej repliki. Okvir (TextMessage) se pripravi enkrat in deli med vsemi sejami;
+     * seje ga pošljejo vzporedno, vsaka na svoji niti (glej OutboundSession).
+     *
+     * @return število sej, ki so sporočilo sprejele
+     */
+    public int deliver(WebSocketEnvelope envelope) {
+        return deliver(envelope, new TextMessage(envelope.payload()));
     }
 
     /**
-     * Pridobi število prijavljenih uporabnikov (aktivnih session-ov)
+     * Pridobi število aktivnih session-ov na tej repliki
      */
     public int getActiveConnectionCount() {
-        return sessions. size();
+        return registry.sessionCount();
     }
 
     /**
-     * Preveri ali je uporabnik prijavljen (aktivno)
+     * Preveri ali ima uporabnik odprto sejo na tej repliki
      */
     public boolean isUserConnected(String userId) {
-        WebSocketSession session = sessions.get(userId);
-        return session != null && session.isOpen();
+        return registry.isConnected(userId);
+    }
+
+    private void publish(WebSocketEnvelope.Scope scope, List<String> targets, String coalesceKey, Object notification) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(notification);
+        } catch (IOException e) {
+            log.error("Error serializing WebSocket notification", e);
+            return;
+        }
+        // Okvir iz že kodiranih bajtov: payload in UTF-8 oblika se ne računata ponovno za vsako sejo
+        TextMessage frame = new TextMessage(json);
+        WebSocketEnvelope envelope = new WebSocketEnvelope(null, scope, targets, coalesceKey, frame.getPayload());
+
+        int delivered = deliver(envelope, frame);
+        log.debug("{} notification queued on {} local sessions", scope, delivered);
+        broadcastChannel.ifAvailable(channel -> channel.publish(scope, targets, coalesceKey, frame.getPayload()));
+    }
+
+    private int deliver(WebSocketEnvelope envelope, TextMessage frame) {
+        return switch (envelope.scope()) {
+            case USER, USERS -> {
+                int delivered = 0;
+                for (String userId : envelope.targets()) {
+                    delivered += offerAll(registry.sessionsOf(userId), frame, envelope.coalesceKey());
+                }
+                yield delivered;
+            }
+            case TOPIC -> offerAll(permittedSubscribers(envelope.targets().get(0)), frame, null);
+            case ALL -> {
+                int[] delivered = new int[1];
+                registry.forEachSession(session -> {
+                    if (session.offer(frame, null)) {
+                        delivered[0]++;
+                    }
+                });
+                yield delivered[0];
+            }
+        };
+    }
+
+    /**
+     * Naročniki teme, ki jo še smejo prejemati. Seje uporabnikov, ki jim je bil dostop medtem odvzet
+     * (npr. admin ni več na seznamu adminov), se od teme odjavijo. Dostop se preveri z eno poizvedbo za vse
+     * naročnike; če preverjanje ne uspe, se sporočilo na temo ne dostavi nikomur.
+     */
+    private Collection<OutboundSession> permittedSubscribers(String topic) {
+        Collection<OutboundSession> subscribers = registry.subscribersOf(topic);
+        if (subscribers.isEmpty()) {
+            return subscribers;
+        }
+        Set<String> permitted;
+        try {
+            permitted = topicAccess.permittedUsers(topic,
+                    subscribers.stream().map(OutboundSession::getUserId).collect(Collectors.toSet()));
+        } catch (DataAccessException e) {
+            log.warn("Could not check access to {}, dropping topic message for {} sessions", topic, subscribers.size(), e);
+            return List.of();
+        }
+        List<OutboundSession> recipients = new ArrayList<>(subscribers.size());
+        for (OutboundSession session : subscribers) {
+            if (permitted.contains(session.getUserId())) {
+                recipients.add(session);
+            } else {
+                registry.unsubscribe(topic, session.getId());
+                log.info("User {} lost access to {}, session {} unsubscribed", session.getUserId(), topic, session.getId());
+            }
+        }
+        return recipients;
+    }
+
+    private int offerAll(Collection<OutboundSession> sessions, TextMessage frame, String coalesceKey) {
+        int delivered = 0;
+        for (OutboundSession session : sessions) {
+            if (session.offer(frame, coalesceKey)) {
+                delivered++;
+            }
+        }
+        return delivered;
     }
-}
\ No newline at end of file
+}
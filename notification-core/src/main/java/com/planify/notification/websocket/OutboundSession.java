@@ -0,0 +1,170 @@
+package com.planify.notification.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+
+/**
+ * WebSocket seja z omejeno izhodno vrsto. Pošiljatelji sporočilo le dodajo v vrsto in se takoj vrnejo;
+ * vrsto prazni ena virtualna nit naenkrat, zato se na sejo nikoli ne piše sočasno in počasen klient
+ * ne zadržuje Kafka consumerja. Ko je vrsta polna, odloča OverflowPolicy.
+ */
+@Slf4j
+public final class OutboundSession {
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final WebSocketSendMetrics metrics;
+
+    // Varovano z this
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    OutboundSession(WebSocketSession session, int capacity, OverflowPolicy overflowPolicy,
+                    Executor executor, WebSocketSendMetrics metrics) {
+        this.session = session;
+        this.capacity = Math.max(1, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    public String getId() {
+        return session.getId();
+    }
+
+    /**
+     * Uporabnik iz handshake-a (atribut userId, glej WebSocketAuthInterceptor).
+     */
+    public String getUserId() {
+        return (String) session.getAttributes().get("userId");
+    }
+
+    public boolean isOpen() {
+        return !closed && session.isOpen();
+    }
+
+    /**
+     * Doda sporočilo v vrsto seje.
+     *
+     * @param coalesceKey sporočila z istim ključem se pri politiki COALESCE nadomeščajo (null = ne nadomešča se)
+     * @return false, če je seja zaprta ali se je zaradi polne vrste zaprla
+     */
+    public boolean offer(TextMessage message, String coalesceKey) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        boolean startDrain = false;
+        boolean closeSession = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (overflowPolicy == OverflowPolicy.COALESCE && coalesceKey != null
+                    && queue.removeIf(pending -> coalesceKey.equals(pending.coalesceKey()))) {
+                metrics.queued(-1);
+                metrics.coalesced();
+            }
+            if (queue.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.CLOSE_SESSION) {
+                    closeSession = true;
+                } else {
+                    queue.pollFirst();
+                    metrics.queued(-1);
+                    metrics.dropped(1);
+                }
+            }
+            if (!closeSession) {
+                queue.addLast(new Pending(message, coalesceKey));
+                metrics.queued(1);
+                if (!draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            }
+        }
+
+        if (closeSession) {
+            log.warn("Send queue of WebSocket session {} is full, closing session", session.getId());
+            metrics.overflowClosed();
+            metrics.dropped(discard() + 1);
+            executor.execute(() -> closeQuietly(CloseStatus.SESSION_NOT_RELIABLE));
+            return false;
+        }
+        if (startDrain) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * Zavrže čakajoča sporočila in ne sprejema novih (seja je zaprta).
+     *
+     * @return število zavrženih sporočil
+     */
+    public int discard() {
+        int discarded;
+        synchronized (this) {
+            closed = true;
+            discarded = queue.size();
+            queue.clear();
+        }
+        metrics.queued(-discarded);
+        return discarded;
+    }
+
+    synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            metrics.queued(-1);
+
+            if (!session.isOpen()) {
+                metrics.dropped(discard() + 1);
+                synchronized (this) {
+                    draining = false;
+                }
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                session.sendMessage(next.message());
+                metrics.sent(System.nanoTime() - start);
+            } catch (IOException | IllegalStateException e) {
+                log.warn("Error sending notification to session {}: {}", session.getId(), e.getMessage());
+                metrics.dropped(1);
+            }
+        }
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Error closing WebSocket session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private record Pending(TextMessage message, String coalesceKey) {
+    }
+}
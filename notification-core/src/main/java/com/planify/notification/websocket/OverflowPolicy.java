@@ -0,0 +1,19 @@
+package com.planify.notification.websocket;
+
+/**
+ * Kaj narediti, ko je izhodna vrsta seje polna (klient ne bere dovolj hitro).
+ */
+public enum OverflowPolicy {
+    /**
+     * Zavrže najstarejše sporočilo v vrsti.
+     */
+    DROP_OLDEST,
+    /**
+     * Sporočilo z istim ključem (npr. posodobitev števca) nadomesti čakajočega; ob polni vrsti zavrže najstarejše.
+     */
+    COALESCE,
+    /**
+     * Zapre sejo; klient se ponovno poveže in stanje pridobi preko REST-a.
+     */
+    CLOSE_SESSION
+}
@@ -0,0 +1,79 @@
+package com.planify.notification.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kanal med replikami za WebSocket obvestila. Replika, ki obvestilo pošilja, ga dostavi svojim sejam in ga
+ * objavi na Kafka topic; vse ostale replike (vsaka si dodeli vse particije, brez consumer skupine) ga dostavijo le
+ * svojim lokalnim sejam.
+ */
+@Component
+@Profile("!azure")
+@Slf4j
+public class WebSocketBroadcastChannel {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+
+    public WebSocketBroadcastChannel(KafkaTemplate<String, Object> kafkaTemplate,
+                                     @Lazy NotificationWebSocketHandler webSocketHandler,
+                                     ObjectMapper objectMapper,
+                                     @Value("${kafka.topics.websocket-broadcast}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.webSocketHandler = webSocketHandler;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+    }
+
+    public void publish(WebSocketEnvelope.Scope scope, List<String> targets, String coalesceKey, String payload) {
+        WebSocketEnvelope envelope = new WebSocketEnvelope(nodeId, scope, targets, coalesceKey, payload);
+        String key = targets.size() == 1 ? targets.get(0) : null;
+        kafkaTemplate.send(topic, key, envelope)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Failed to publish {} WebSocket message to other replicas", scope, ex);
+                    }
+                });
+    }
+
+    @KafkaListener(
+            id = "notification-websocket-broadcast",
+            // Vse particije topica, npr. "0-2" pri kafka.websocket.partitions=3
+            topicPartitions = @TopicPartition(topic = "${kafka.topics.websocket-broadcast}",
+                    partitions = "#{'0-' + (${kafka.websocket.partitions:3} - 1)}"),
+            containerFactory = "assignedKafkaListenerContainerFactory",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onMessage(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            return;
+        }
+        WebSocketEnvelope envelope;
+        try {
+            envelope = objectMapper.readValue(record.value(), WebSocketEnvelope.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable WebSocket broadcast at offset {}", record.offset(), e);
+            return;
+        }
+        if (nodeId.equals(envelope.origin())) {
+            return;
+        }
+        webSocketHandler.deliver(envelope);
+    }
+}
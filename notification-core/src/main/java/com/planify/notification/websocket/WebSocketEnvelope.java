@@ -0,0 +1,22 @@
+package com.planify.notification.websocket;
+
+import java.util.List;
+
+/**
+ * Sporočilo za dostavo na WebSocket seje drugih replik. Payload je že serializiran JSON, kot gre klientu.
+ *
+ * @param origin      ID replike, ki je sporočilo objavila (ta ga je lokalno že dostavila)
+ * @param scope       komu je sporočilo namenjeno
+ * @param targets     userId-ji pri USER/USERS, ime teme pri TOPIC, prazno pri ALL
+ * @param coalesceKey ključ za nadomeščanje še neposlanih sporočil (glej OutboundSession), lahko null
+ * @param payload     JSON za klienta
+ */
+public record WebSocketEnvelope(String origin, Scope scope, List<String> targets, String coalesceKey, String payload) {
+
+    public enum Scope {
+        USER,
+        USERS,
+        TOPIC,
+        ALL
+    }
+}
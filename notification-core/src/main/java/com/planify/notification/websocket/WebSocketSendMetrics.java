@@ -0,0 +1,59 @@
+package com.planify.notification.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrike izhodnih vrst WebSocket sej: čas pošiljanja, skupna globina vrst in zavržena sporočila.
+ */
+public class WebSocketSendMetrics {
+
+    private final Timer sendTime;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter dropped;
+    private final Counter coalesced;
+    private final Counter overflowCloses;
+
+    public WebSocketSendMetrics(MeterRegistry meterRegistry) {
+        this.sendTime = Timer.builder("notification.websocket.send.time")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("notification.websocket.send.queue.depth", queued, AtomicInteger::get)
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notification.websocket.send.dropped")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("notification.websocket.send.coalesced")
+                .register(meterRegistry);
+        this.overflowCloses = Counter.builder("notification.websocket.send.overflow.closes")
+                .register(meterRegistry);
+    }
+
+    void sent(long nanos) {
+        sendTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void queued(int delta) {
+        queued.addAndGet(delta);
+    }
+
+    void dropped(int count) {
+        dropped.increment(count);
+    }
+
+    void coalesced() {
+        coalesced.increment();
+    }
+
+    void overflowClosed() {
+        overflowCloses.increment();
+    }
+
+    int queueDepth() {
+        return queued.get();
+    }
+}
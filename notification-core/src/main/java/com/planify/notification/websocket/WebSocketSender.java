@@ -0,0 +1,40 @@
+package com.planify.notification.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ustvarja izhodne vrste za nove WebSocket seje. Vrste praznijo virtualne niti (ena na sejo, le dokler je
+ * v vrsti kaj za poslati).
+ */
+@Component
+public class WebSocketSender {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final WebSocketSendMetrics metrics;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+
+    public WebSocketSender(MeterRegistry meterRegistry,
+                           @Value("${notification.websocket.send-queue-capacity:256}") int queueCapacity,
+                           @Value("${notification.websocket.overflow-policy:COALESCE}") OverflowPolicy overflowPolicy) {
+        this.metrics = new WebSocketSendMetrics(meterRegistry);
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public OutboundSession open(WebSocketSession session) {
+        return new OutboundSession(session, queueCapacity, overflowPolicy, executor, metrics);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
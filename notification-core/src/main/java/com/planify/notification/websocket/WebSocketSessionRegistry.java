@@ -0,0 +1,120 @@
+package com.planify.notification.websocket;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Lokalni register WebSocket sej na tej repliki. En uporabnik ima lahko več sej (zavihki, naprave),
+ * vsaka se doda in odstrani posebej po ID-ju seje. Dodajanje in odstranjevanje za istega uporabnika
+ * poteka atomarno (compute), različni uporabniki pa se ne zaklepajo med sabo.
+ * Seja je lahko naročena tudi na teme (npr. organization:{id}), ki omogočajo multicast brez seznama prejemnikov.
+ */
+@Component
+public class WebSocketSessionRegistry {
+
+    private final Map<String, Map<String, OutboundSession>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, OutboundSession>> sessionsByTopic = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> topicsBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    public void register(String userId, OutboundSession session) {
+        sessionsByUser.compute(userId, (key, sessions) -> {
+            Map<String, OutboundSession> userSessions = sessions != null ? sessions : new ConcurrentHashMap<>();
+            if (userSessions.put(session.getId(), session) == null) {
+                sessionCount.incrementAndGet();
+            }
+            return userSessions;
+        });
+    }
+
+    /**
+     * Odstrani eno sejo uporabnika (tudi iz vseh tem); ostale seje istega uporabnika ostanejo.
+     *
+     * @return odstranjena seja ali null, če je ni bilo
+     */
+    public OutboundSession unregister(String userId, String sessionId) {
+        OutboundSession[] removed = new OutboundSession[1];
+        sessionsByUser.computeIfPresent(userId, (key, sessions) -> {
+            removed[0] = sessions.remove(sessionId);
+            if (removed[0] != null) {
+                sessionCount.decrementAndGet();
+            }
+            return sessions.isEmpty() ? null : sessions;
+        });
+
+        Set<String> topics = topicsBySession.remove(sessionId);
+        if (topics != null) {
+            topics.forEach(topic -> removeFromTopic(topic, sessionId));
+        }
+        return removed[0];
+    }
+
+    public void subscribe(String topic, OutboundSession session) {
+        sessionsByTopic.compute(topic, (key, sessions) -> {
+            Map<String, OutboundSession> topicSessions = sessions != null ? sessions : new ConcurrentHashMap<>();
+            topicSessions.put(session.getId(), session);
+            return topicSessions;
+        });
+        topicsBySession.computeIfAbsent(session.getId(), key -> ConcurrentHashMap.newKeySet()).add(topic);
+        // Seja se je medtem zaprla: unregister je teme morda že počistil
+        if (!session.isOpen()) {
+            unsubscribe(topic, session.getId());
+        }
+    }
+
+    public void unsubscribe(String topic, String sessionId) {
+        Set<String> topics = topicsBySession.get(sessionId);
+        if (topics != null) {
+            topics.remove(topic);
+        }
+        removeFromTopic(topic, sessionId);
+    }
+
+    public Collection<OutboundSession> sessionsOf(String userId) {
+        Map<String, OutboundSession> sessions = sessionsByUser.get(userId);
+        return sessions != null ? sessions.values() : List.of();
+    }
+
+    /**
+     * Seja uporabnika po ID-ju ali null.
+     */
+    public OutboundSession session(String userId, String sessionId) {
+        Map<String, OutboundSession> sessions = sessionsByUser.get(userId);
+        return sessions != null ? sessions.get(sessionId) : null;
+    }
+
+    public Collection<OutboundSession> subscribersOf(String topic) {
+        Map<String, OutboundSession> sessions = sessionsByTopic.get(topic);
+        return sessions != null ? sessions.values() : List.of();
+    }
+
+    public void forEachSession(Consumer<OutboundSession> action) {
+        sessionsByUser.values().forEach(sessions -> sessions.values().forEach(action));
+    }
+
+    public boolean isConnected(String userId) {
+        return sessionsOf(userId).stream().anyMatch(OutboundSession::isOpen);
+    }
+
+    public int sessionCount() {
+        return sessionCount.get();
+    }
+
+    public int userCount() {
+        return sessionsByUser.size();
+    }
+
+    private void removeFromTopic(String topic, String sessionId) {
+        sessionsByTopic.computeIfPresent(topic, (key, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.planify.notification.websocket;
+
+import com.planify.notification.service.OrganizationAdminStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Preveri, ali sme uporabnik prejemati temo. Temo organization:{id} prejemajo le admini organizacije
+ * (glej OrganizationAdminStore); drugih tem ni. Dostop se preveri ob naročilu in ponovno ob vsaki dostavi,
+ * zato odvzem pravic velja takoj, tudi za že naročene seje.
+ * Uporabnik je zaenkrat le parameter userId iz handshake-a, ki ga nihče ne preveri (JWT se še ne validira,
+ * glej WebSocketAuthInterceptor); to preverjanje zato ni avtorizacija, le filter po tem, kar seja trdi.
+ */
+@Component
+@Slf4j
+public class WebSocketTopicAccess {
+
+    private static final String ORGANIZATION_PREFIX = "organization:";
+
+    private final OrganizationAdminStore organizationAdminStore;
+
+    public WebSocketTopicAccess(OrganizationAdminStore organizationAdminStore) {
+        this.organizationAdminStore = organizationAdminStore;
+    }
+
+    public static String organizationTopic(UUID organizationId) {
+        return ORGANIZATION_PREFIX + organizationId;
+    }
+
+    public boolean canSubscribe(String userId, String topic) {
+        if (userId == null || !topic.startsWith(ORGANIZATION_PREFIX)) {
+            return false;
+        }
+        try {
+            return organizationAdminStore.isAdmin(
+                    UUID.fromString(topic.substring(ORGANIZATION_PREFIX.length())), UUID.fromString(userId));
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Could not check access of user {} to {}, refusing subscription", userId, topic, e);
+            return false;
+        }
+    }
+
+    /**
+     * Tisti izmed danih uporabnikov, ki smejo prejemati temo. Neznana tema ali neveljaven ID ne dobi ničesar;
+     * napaka baze se propagira, da klicatelj ne zamenja nedostopne baze z odvzemom pravic.
+     */
+    public Set<String> permittedUsers(String topic, Collection<String> userIds) {
+        if (!topic.startsWith(ORGANIZATION_PREFIX)) {
+            return Set.of();
+        }
+        UUID organizationId;
+        try {
+            organizationId = UUID.fromString(topic.substring(ORGANIZATION_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return Set.of();
+        }
+        List<UUID> candidates = new ArrayList<>();
+        for (String userId : userIds) {
+            if (userId == null) {
+                continue;
+            }
+            try {
+                candidates.add(UUID.fromString(userId));
+            } catch (IllegalArgumentException e) {
+                // neveljaven ID ne prejme ničesar
+            }
+        }
+        return organizationAdminStore.adminsAmong(organizationId, candidates).stream()
+                .map(UUID::toString)
+                .collect(Collectors.toSet());
+    }
+}
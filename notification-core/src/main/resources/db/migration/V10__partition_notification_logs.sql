@@ -0,0 +1,64 @@
+-- notification_logs razdelimo na mesečne particije po created_at. Stare mesece odstrani (ali odklopi za arhiv)
+-- NotificationLogPartitionMaintenance, ki sproti ustvarja tudi particije za prihodnje mesece.
+
+-- Tuji ključ na particionirano tabelo bi zahteval tudi created_at v tabelah, ki se sklicujejo na log;
+-- sklice ob odstranitvi particije počisti vzdrževalni job.
+ALTER TABLE delivery_tasks DROP CONSTRAINT IF EXISTS fk_delivery_tasks_notification_log;
+ALTER TABLE event_attendee_reminders DROP CONSTRAINT IF EXISTS fk_event_attendees_reminders_notification_log;
+
+ALTER TABLE notification_logs RENAME TO notification_logs_legacy;
+ALTER TABLE notification_logs_legacy RENAME CONSTRAINT notification_logs_pkey TO notification_logs_legacy_pkey;
+DROP INDEX IF EXISTS idx_notification_event_id;
+DROP INDEX IF EXISTS idx_notification_user_id;
+DROP INDEX IF EXISTS idx_notification_status;
+DROP INDEX IF EXISTS idx_notification_created_at;
+
+CREATE TABLE notification_logs (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    event_id UUID,
+    user_id UUID,
+    recipient_email VARCHAR(255),
+    recipient_phone VARCHAR(50),
+    type VARCHAR(50) NOT NULL,
+    template_key VARCHAR(100),
+    subject VARCHAR(200) NOT NULL,
+    body TEXT,
+    status VARCHAR(20) NOT NULL,
+    sent_at TIMESTAMP,
+    error_message TEXT,
+    retry_count INTEGER DEFAULT 0,
+    next_attempt_at TIMESTAMP,
+    external_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Admin poizvedbe vedno omejijo created_at, zato indeksi vsebujejo created_at; status le za nedokončana obvestila
+CREATE INDEX idx_notification_logs_created_at ON notification_logs(created_at DESC);
+CREATE INDEX idx_notification_logs_user_created ON notification_logs(user_id, created_at DESC);
+CREATE INDEX idx_notification_logs_event_id ON notification_logs(event_id);
+CREATE INDEX idx_notification_logs_open_status ON notification_logs(status) WHERE status IN ('PENDING', 'RETRYING');
+
+-- Varovalo, če vzdrževalni job nekaj časa ne teče; ostati mora prazna
+CREATE TABLE notification_logs_default PARTITION OF notification_logs DEFAULT;
+
+DO $$
+DECLARE
+    m DATE;
+    last_month DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months');
+BEGIN
+    SELECT date_trunc('month', COALESCE(min(created_at), CURRENT_DATE)) INTO m FROM notification_logs_legacy;
+    WHILE m <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF notification_logs FOR VALUES FROM (%L) TO (%L)',
+                       'notification_logs_p' || to_char(m, 'YYYY_MM'), m, (m + INTERVAL '1 month')::date);
+        m := (m + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO notification_logs (id, event_id, user_id, recipient_email, recipient_phone, type, template_key, subject,
+                               body, status, sent_at, error_message, retry_count, next_attempt_at, external_id, created_at)
+SELECT id, event_id, user_id, recipient_email, recipient_phone, type, template_key, subject,
+       body, status, sent_at, error_message, retry_count, next_attempt_at, external_id, created_at
+FROM notification_logs_legacy;
+
+DROP TABLE notification_logs_legacy;
@@ -0,0 +1,6 @@
+-- Retencijski sweeper išče prebrana obvestila po naraščajočem (created_at, id).
+CREATE INDEX idx_in_app_notification_read_created ON in_app_notifications(created_at, id) WHERE is_read = true;
+
+-- Neprebrana obvestila po uporabniku pokrije delni indeks iz V9, vrstni red po created_at pa zgornji in feed indeks
+DROP INDEX IF EXISTS idx_in_app_notification_user_read;
+DROP INDEX IF EXISTS idx_in_app_notification_created_at;
@@ -0,0 +1,33 @@
+-- Izrisana besedila obvestil shranimo enkrat, naslovljena s SHA-256 vsebine; logi in in-app obvestila
+-- hranijo le hash. toast_tuple_target = 128: PostgreSQL stisne (TOAST) že besedila, daljša od ~128 bajtov.
+CREATE TABLE message_bodies (
+    hash VARCHAR(64) PRIMARY KEY,
+    content TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_used_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) WITH (toast_tuple_target = 128);
+
+-- Čiščenje neuporabljenih besedil
+CREATE INDEX idx_message_bodies_last_used_at ON message_bodies(last_used_at);
+
+INSERT INTO message_bodies (hash, content)
+SELECT encode(sha256(convert_to(body, 'UTF8')), 'hex'), body
+FROM notification_logs
+WHERE body IS NOT NULL
+ON CONFLICT (hash) DO NOTHING;
+
+INSERT INTO message_bodies (hash, content)
+SELECT encode(sha256(convert_to(message, 'UTF8')), 'hex'), message
+FROM in_app_notifications
+ON CONFLICT (hash) DO NOTHING;
+
+ALTER TABLE notification_logs ADD COLUMN body_hash VARCHAR(64);
+UPDATE notification_logs SET body_hash = encode(sha256(convert_to(body, 'UTF8')), 'hex') WHERE body IS NOT NULL;
+ALTER TABLE notification_logs DROP COLUMN body;
+CREATE INDEX idx_notification_logs_body_hash ON notification_logs(body_hash);
+
+ALTER TABLE in_app_notifications ADD COLUMN message_hash VARCHAR(64);
+UPDATE in_app_notifications SET message_hash = encode(sha256(convert_to(message, 'UTF8')), 'hex');
+ALTER TABLE in_app_notifications ALTER COLUMN message_hash SET NOT NULL;
+ALTER TABLE in_app_notifications DROP COLUMN message;
+CREATE INDEX idx_in_app_notification_message_hash ON in_app_notifications(message_hash);
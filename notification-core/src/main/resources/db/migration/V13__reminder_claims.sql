@@ -0,0 +1,8 @@
+-- Posel za opomnike si vrstice najprej prevzame (claimed_at); ostali posli jih preskočijo, dokler prevzem ne poteče.
+ALTER TABLE event_attendee_reminders ADD COLUMN claimed_at TIMESTAMPTZ;
+
+-- Prevzem bere le neposlane opomnike v oknu, po (event_start_at, id); poslane vrstice indeks izpusti.
+CREATE INDEX idx_event_attendees_unsent_start ON event_attendee_reminders(event_start_at, id) WHERE is_sent = false;
+
+-- Poslane opomnike je pokrival le ta indeks, neposlane zdaj pokriva delni indeks
+DROP INDEX IF EXISTS idx_event_attendees_event_start_at;
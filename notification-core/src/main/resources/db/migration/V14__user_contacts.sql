@@ -0,0 +1,16 @@
+-- Lokalna kopija kontaktov in soglasij uporabnikov (iz topica user-updated in backfilla), da opomniki
+-- ne kličejo user-servicea za vsakega prejemnika. updated_at je čas spremembe v user-serviceu:
+-- starejši zapis nikoli ne prepiše novejšega. Izbrisan uporabnik ostane kot vrstica brez kontaktov.
+CREATE TABLE user_contacts (
+    user_id UUID PRIMARY KEY,
+    email VARCHAR(255),
+    email_consent BOOLEAN NOT NULL DEFAULT FALSE,
+    phone_number VARCHAR(50),
+    sms_consent BOOLEAN NOT NULL DEFAULT FALSE,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMPTZ NOT NULL,
+    synced_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
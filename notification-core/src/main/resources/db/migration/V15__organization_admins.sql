@@ -0,0 +1,10 @@
+-- Admini organizacij, kot jih sporočajo dogodki prošenj za včlanitev in odgovorov na povabila (adminIds).
+-- Služi preverjanju naročnin na WebSocket temo organization:{id}. updated_at je occurredAt dogodka:
+-- starejši dogodek ne prepiše novejšega. Admin, ki ga v novejšem dogodku ni več, ostane kot vrstica z admin = FALSE.
+CREATE TABLE organization_admins (
+    organization_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    admin BOOLEAN NOT NULL DEFAULT TRUE,
+    updated_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (organization_id, user_id)
+);
@@ -0,0 +1,41 @@
+-- Število vseh in-app obvestil na uporabnika. Retencijski sweeper iz njega izbere uporabnike nad omejitvijo,
+-- namesto da bi z GROUP BY štel celotno tabelo obvestil. Vzdržujejo ga sprožilci na ravni stavka kot števec
+-- neprebranih (V7); UPDATE ne spremeni števila obvestil, zato zanj sprožilca ni.
+CREATE TABLE in_app_notification_counts (
+    user_id UUID PRIMARY KEY,
+    total_count BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO in_app_notification_counts (user_id, total_count)
+SELECT user_id, count(*)
+FROM in_app_notifications
+GROUP BY user_id;
+
+-- Uporabnikov nad omejitvijo je malo: sweeper jih najde po tem indeksu
+CREATE INDEX idx_in_app_notification_counts_total ON in_app_notification_counts(total_count);
+
+CREATE OR REPLACE FUNCTION in_app_notification_counts_apply() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO in_app_notification_counts AS c (user_id, total_count)
+        SELECT user_id, count(*) FROM new_rows GROUP BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET total_count = c.total_count + EXCLUDED.total_count;
+    ELSE
+        UPDATE in_app_notification_counts c
+        SET total_count = GREATEST(c.total_count - d.removed, 0)
+        FROM (SELECT user_id, count(*) AS removed FROM old_rows GROUP BY user_id) d
+        WHERE c.user_id = d.user_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_in_app_count_insert
+    AFTER INSERT ON in_app_notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION in_app_notification_counts_apply();
+
+CREATE TRIGGER trg_in_app_count_delete
+    AFTER DELETE ON in_app_notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION in_app_notification_counts_apply();
@@ -0,0 +1,22 @@
+-- Outbox za dostavo po zunanjih kanalih (email, SMS).
+-- Handlerji naloge vstavijo v isti transakciji kot notification_logs, dispatcherji pa jih prevzamejo s FOR UPDATE SKIP LOCKED.
+CREATE TABLE delivery_tasks (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    notification_log_id UUID NOT NULL,
+    channel VARCHAR(20) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(200),
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    locked_at TIMESTAMP,
+    last_error TEXT,
+    external_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_delivery_tasks_notification_log FOREIGN KEY (notification_log_id) REFERENCES notification_logs(id) ON DELETE CASCADE
+);
+
+-- Dispatcher bere le čakajoče naloge v vrstnem redu nastanka
+CREATE INDEX idx_delivery_tasks_pending ON delivery_tasks(created_at) WHERE status = 'PENDING';
+CREATE INDEX idx_delivery_tasks_in_progress ON delivery_tasks(locked_at) WHERE status = 'IN_PROGRESS';
+CREATE INDEX idx_delivery_tasks_notification_log_id ON delivery_tasks(notification_log_id);
@@ -0,0 +1,7 @@
+-- Ponovni poskusi dostave z eksponentnim zamikom
+ALTER TABLE delivery_tasks ADD COLUMN next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE notification_logs ADD COLUMN next_attempt_at TIMESTAMP;
+
+-- Dispatcher bere le čakajoče naloge, ki so že na vrsti
+DROP INDEX IF EXISTS idx_delivery_tasks_pending;
+CREATE INDEX idx_delivery_tasks_due ON delivery_tasks(next_attempt_at) WHERE status = 'PENDING';
@@ -0,0 +1,66 @@
+-- Števec neprebranih in-app obvestil na uporabnika, da branje števca ni COUNT(*) po vseh obvestilih.
+-- Vzdržujejo ga sprožilci na ravni stavka (transition tables): en batch insert ali bulk update
+-- posodobi vsakega uporabnika enkrat, ne za vsako vrstico posebej.
+CREATE TABLE in_app_unread_counters (
+    user_id UUID PRIMARY KEY,
+    unread_count BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO in_app_unread_counters (user_id, unread_count)
+SELECT user_id, count(*)
+FROM in_app_notifications
+WHERE is_read = false
+GROUP BY user_id;
+
+CREATE OR REPLACE FUNCTION in_app_unread_counters_apply() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO in_app_unread_counters AS c (user_id, unread_count)
+        SELECT user_id, count(*) FROM new_rows WHERE is_read = false GROUP BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET unread_count = c.unread_count + EXCLUDED.unread_count;
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE in_app_unread_counters c
+        SET unread_count = GREATEST(c.unread_count - d.removed, 0)
+        FROM (SELECT user_id, count(*) AS removed FROM old_rows WHERE is_read = false GROUP BY user_id) d
+        WHERE c.user_id = d.user_id;
+    ELSE
+        -- Sprememba is_read (ali user_id): razlika med novimi in starimi neprebranimi vrsticami po uporabniku
+        WITH changes AS (
+            SELECT user_id, sum(delta) AS delta
+            FROM (
+                SELECT user_id, 1 AS delta FROM new_rows WHERE is_read = false
+                UNION ALL
+                SELECT user_id, -1 AS delta FROM old_rows WHERE is_read = false
+            ) deltas
+            GROUP BY user_id
+            HAVING sum(delta) <> 0
+        ), updated AS (
+            UPDATE in_app_unread_counters c
+            SET unread_count = GREATEST(c.unread_count + changes.delta, 0)
+            FROM changes
+            WHERE c.user_id = changes.user_id
+            RETURNING c.user_id
+        )
+        INSERT INTO in_app_unread_counters AS c (user_id, unread_count)
+        SELECT user_id, delta FROM changes
+        WHERE delta > 0 AND user_id NOT IN (SELECT user_id FROM updated)
+        ON CONFLICT (user_id) DO UPDATE SET unread_count = c.unread_count + EXCLUDED.unread_count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_in_app_unread_insert
+    AFTER INSERT ON in_app_notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION in_app_unread_counters_apply();
+
+CREATE TRIGGER trg_in_app_unread_update
+    AFTER UPDATE ON in_app_notifications
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION in_app_unread_counters_apply();
+
+CREATE TRIGGER trg_in_app_unread_delete
+    AFTER DELETE ON in_app_notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION in_app_unread_counters_apply();
@@ -0,0 +1,5 @@
+-- Indeks za feed s kazalcem (created_at, id): stran je en range scan po uporabniku, brez OFFSET in COUNT.
+-- Pokrije tudi iskanje po user_id, zato ločen indeks ni več potreben.
+CREATE INDEX idx_in_app_notification_user_feed ON in_app_notifications(user_id, created_at DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_in_app_notification_user_id;
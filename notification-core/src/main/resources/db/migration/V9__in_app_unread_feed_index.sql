@@ -0,0 +1,3 @@
+-- Delni indeks za stran neprebranih obvestil s kazalcem (created_at, id); vsebuje le neprebrane vrstice.
+CREATE INDEX idx_in_app_notification_user_unread_feed ON in_app_notifications(user_id, created_at DESC, id DESC)
+    WHERE is_read = false;
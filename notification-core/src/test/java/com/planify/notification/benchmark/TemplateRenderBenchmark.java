@@ -0,0 +1,66 @@
+package com.planify.notification.benchmark;
+
+import com.planify.notification.model.NotificationTemplate;
+import com.planify.notification.service.TemplateService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primerjava izrisa predloge prek Thymeleafa (razčlenjevanje ob vsakem klicu) in prek predpripravljenega načrta.
+ * Zagon: {@code mvn -pl notification-core test-compile} in nato main() iz IDE-ja ali
+ * {@code java -cp target/test-classes:<classpath> com.planify.notification.benchmark.TemplateRenderBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderBenchmark {
+
+    private TemplateService templateService;
+    private NotificationTemplate template;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        templateService = new TemplateService();
+
+        template = new NotificationTemplate();
+        template.setTemplateKey("NEW_REQUEST");
+        template.setUpdatedAt(LocalDateTime.now());
+        template.setBodyTemplate("<h2>Nova prošnja za članstvo</h2>"
+                + "<p>Pozdravljeni,</p>"
+                + "<p>uporabnik <b>$${userName}</b> želi postati član organizacije <b>$${orgName}</b>.</p>"
+                + "<p>Prošnjo lahko potrdite ali zavrnete v aplikaciji Planify.</p>");
+
+        variables = new HashMap<>();
+        variables.put("userName", "Ana Novak");
+        variables.put("orgName", "Planify & Co");
+    }
+
+    @Benchmark
+    public String thymeleafPerCall() {
+        return templateService.renderTemplate(template.getBodyTemplate(), variables);
+    }
+
+    @Benchmark
+    public String cachedRenderPlan() {
+        return templateService.renderBody(template, variables);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TemplateRenderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
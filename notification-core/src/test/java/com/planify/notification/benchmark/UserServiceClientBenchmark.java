@@ -0,0 +1,99 @@
+package com.planify.notification.benchmark;
+
+import com.planify.notification.config.AppConfig;
+import com.planify.notification.service.UserDirectoryClient;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Obremenitev user-service klienta s 25 sočasnimi klici (toliko jih dovoli defaultBulkhead) proti lokalnemu
+ * stub strežniku: prejšnji SimpleClientHttpRequestFactory brez timeoutov proti poolu Apache HttpClient in
+ * JDK HttpClientu na virtualnih nitih. serverDelayMillis simulira odzivni čas user-servicea.
+ * Zagon: {@code mvn -pl notification-core test-compile} in nato main() iz IDE-ja.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(25)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceClientBenchmark {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @Param({"simple", "pooled", "jdk"})
+    public String client;
+
+    @Param({"0", "5"})
+    public long serverDelayMillis;
+
+    private HttpServer server;
+    private UserDirectoryClient userDirectoryClient;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] body = ("{\"id\":\"" + USER_ID + "\",\"email\":\"ana@example.com\",\"emailConsent\":true,"
+                + "\"phoneNumber\":\"+38640111222\",\"smsConsent\":true}").getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        server.createContext("/api/users/", exchange -> {
+            if (serverDelayMillis > 0) {
+                try {
+                    Thread.sleep(serverDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AppConfig.HttpClientSettings settings = new AppConfig.HttpClientSettings(1000, 2000, 500, 50, 25, 30_000, false);
+        ClientHttpRequestFactory requestFactory = switch (client) {
+            case "pooled" -> AppConfig.pooledRequestFactory(settings, meterRegistry);
+            case "jdk" -> AppConfig.jdkRequestFactory(settings);
+            default -> new SimpleClientHttpRequestFactory();
+        };
+        RestClient restClient = RestClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .requestFactory(requestFactory)
+                .build();
+        userDirectoryClient = new UserDirectoryClient(restClient, meterRegistry, "/api/users/{id}", "/api/users/lookup");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public UserDirectoryClient.UserResponse getUser() {
+        return userDirectoryClient.getUser(USER_ID);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserServiceClientBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
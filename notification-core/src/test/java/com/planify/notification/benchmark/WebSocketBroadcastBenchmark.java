@@ -0,0 +1,207 @@
+package com.planify.notification.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planify.notification.websocket.NotificationWebSocketHandler;
+import com.planify.notification.websocket.OverflowPolicy;
+import com.planify.notification.websocket.WebSocketBroadcastChannel;
+import com.planify.notification.websocket.WebSocketSender;
+import com.planify.notification.websocket.WebSocketSessionRegistry;
+import com.planify.notification.websocket.WebSocketTopicAccess;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Broadcast enega obvestila na 10.000 simuliranih WebSocket sej: prejšnji način (serializacija in blokirajoče
+ * pošiljanje za vsako sejo na klicateljevi niti) proti enkratni serializaciji in vzporednemu praznjenju vrst sej.
+ * sendDelayMicros simulira počasno omrežje klienta.
+ * Zagon: {@code mvn -pl notification-core test-compile} in nato main() iz IDE-ja.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebSocketBroadcastBenchmark {
+
+    private static final int SESSIONS = 10_000;
+
+    @Param({"0", "50"})
+    public long sendDelayMicros;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<SimulatedSession> sessions;
+    private NotificationWebSocketHandler handler;
+    private WebSocketSender sender;
+    private Map<String, Object> payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        sender = new WebSocketSender(new SimpleMeterRegistry(), 256, OverflowPolicy.COALESCE);
+        handler = new NotificationWebSocketHandler(new WebSocketSessionRegistry(), sender,
+                new StaticListableBeanFactory().getBeanProvider(WebSocketBroadcastChannel.class),
+                new WebSocketTopicAccess(null), objectMapper);
+
+        sessions = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            SimulatedSession session = new SimulatedSession("user-" + i);
+            sessions.add(session);
+            handler.afterConnectionEstablished(session);
+        }
+
+        payload = new HashMap<>();
+        payload.put("id", UUID.randomUUID().toString());
+        payload.put("title", "Nova prošnja za članstvo");
+        payload.put("message", "Uporabnik Ana Novak želi postati član organizacije Planify & Co.");
+        payload.put("notificationType", "join_request_accepted");
+    }
+
+    @TearDown
+    public void tearDown() {
+        sender.shutdown();
+    }
+
+    @Benchmark
+    public void serializePerSessionSequential() throws Exception {
+        for (SimulatedSession session : sessions) {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+        }
+    }
+
+    @Benchmark
+    public void serializeOnceParallelFanOut() {
+        long target = sent.get() + SESSIONS;
+        handler.broadcastNotification(payload);
+        while (sent.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WebSocketBroadcastBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Seja brez omrežja: pošiljanje le prešteje sporočilo (po želji z zamikom).
+     */
+    private final class SimulatedSession implements WebSocketSession {
+
+        private final String id = UUID.randomUUID().toString();
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        SimulatedSession(String userId) {
+            attributes.put("userId", userId);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (sendDelayMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(sendDelayMicros));
+            }
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 8192;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 8192;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.planify.notification.controller;
 
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.dto.InAppNotificationFeed;
+import com.planify.notification.dto.InAppNotificationSummary;
 import com.planify.notification.model.InAppNotification;
 import com.planify.notification.repository.InAppNotificationRepository;
+import com.planify.notification.service.UnreadCountService;
 import com.planify.notification.service.WebSocketNotificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -19,11 +24,15 @@ import org.springframework.http.ResponseEntity;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +44,9 @@ class InAppNotificationControllerTest {
     @Mock
     private WebSocketNotificationService webSocketNotificationService;
 
+    @Mock
+    private UnreadCountService unreadCountService;
+
     @InjectMocks
     private InAppNotificationController controller;
 
@@ -77,27 +89,94 @@ class InAppNotificationControllerTest {
     }
 
     @Test
-    void getUserUnreadNotifications_shouldReturnUnreadOnly() {
+    void getUserNotificationFeed_shouldReturnFirstPageWithCursor() {
         // Given
-        List<InAppNotification> unreadNotifications = Arrays.asList(notification);
-        when(inAppNotificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId))
-            .thenReturn(unreadNotifications);
+        InAppNotificationSummary newest = summary(notificationId, notification.getCreatedAt(), false);
+        InAppNotificationSummary older = summary(UUID.randomUUID(), notification.getCreatedAt().minusMinutes(1), true);
+        when(inAppNotificationRepository.findFeed(userId, Limit.of(2))).thenReturn(List.of(newest, older));
 
         // When
-        ResponseEntity<List<InAppNotification>> response = controller.getUserUnreadNotifications(userId);
+        ResponseEntity<InAppNotificationFeed> response = controller.getUserNotificationFeed(userId, null, 1);
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
-        assertEquals(1, response.getBody().size());
-        verify(inAppNotificationRepository).findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
+        assertEquals(List.of(newest), response.getBody().getItems());
+        assertEquals(new FeedCursor(notification.getCreatedAt(), notificationId).encode(), response.getBody().getNextCursor());
+    }
+
+    @Test
+    void getUserNotificationFeed_shouldContinueAfterCursor() {
+        // Given
+        FeedCursor cursor = new FeedCursor(LocalDateTime.now(), UUID.randomUUID());
+        InAppNotificationSummary older = summary(notificationId, cursor.createdAt().minusMinutes(1), false);
+        when(inAppNotificationRepository.findFeedAfter(userId, cursor.createdAt(), cursor.id(), Limit.of(21)))
+            .thenReturn(List.of(older));
+
+        // When
+        ResponseEntity<InAppNotificationFeed> response = controller.getUserNotificationFeed(userId, cursor.encode(), 20);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(older), response.getBody().getItems());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void getUserNotificationFeed_shouldRejectInvalidCursor() {
+        // When
+        ResponseEntity<InAppNotificationFeed> response = controller.getUserNotificationFeed(userId, "not-a-cursor", 20);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(inAppNotificationRepository);
+    }
+
+    @Test
+    void getUserUnreadNotifications_shouldReturnBoundedSummaries() {
+        // Given
+        InAppNotificationSummary unread = summary(notificationId, notification.getCreatedAt(), false);
+        when(inAppNotificationRepository.findUnread(userId, Limit.of(101)))
+            .thenReturn(List.of(unread));
+
+        // When
+        ResponseEntity<InAppNotificationFeed> response = controller.getUserUnreadNotifications(userId, null, 500);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(unread), response.getBody().getItems());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void getNotification_shouldReturnFullNotification() {
+        // Given
+        when(inAppNotificationRepository.findById(notificationId)).thenReturn(Optional.of(notification));
+
+        // When
+        ResponseEntity<InAppNotification> response = controller.getNotification(notificationId);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(notification, response.getBody());
+    }
+
+    @Test
+    void getNotification_shouldReturnNotFound() {
+        // Given
+        when(inAppNotificationRepository.findById(notificationId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<InAppNotification> response = controller.getNotification(notificationId);
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
     @Test
     void getUserUnreadNotificationCount_shouldReturnCorrectCount() {
         // Given
         long expectedCount = 5L;
-        when(inAppNotificationRepository.countByUserIdAndIsReadFalse(userId))
+        when(unreadCountService.getUnreadCount(userId))
             .thenReturn(expectedCount);
 
         // When
@@ -106,7 +185,8 @@ class InAppNotificationControllerTest {
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(expectedCount, response.getBody());
-        verify(inAppNotificationRepository).countByUserIdAndIsReadFalse(userId);
+        verify(unreadCountService).getUnreadCount(userId);
+        verifyNoInteractions(inAppNotificationRepository);
     }
 
     @Test
@@ -146,26 +226,61 @@ class InAppNotificationControllerTest {
     @Test
     void markAllAsRead_shouldUpdateAllUnreadNotifications() {
         // Given
-        InAppNotification notification2 = new InAppNotification();
-        notification2.setId(UUID.randomUUID());
-        notification2.setUserId(userId);
-        notification2.setIsRead(false);
-        
-        List<InAppNotification> unreadNotifications = Arrays.asList(notification, notification2);
-        when(inAppNotificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId))
-            .thenReturn(unreadNotifications);
+        when(inAppNotificationRepository.markAllAsRead(eq(userId), any(LocalDateTime.class)))
+            .thenReturn(2);
 
         // When
-        ResponseEntity<Void> response = controller.markAllAsRead(userId);
+        ResponseEntity<Map<String, Integer>> response = controller.markAllAsRead(userId);
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertTrue(notification.getIsRead());
-        assertTrue(notification2.getIsRead());
-        verify(inAppNotificationRepository).saveAll(unreadNotifications);
+        assertEquals(Map.of("updated", 2), response.getBody());
+        verify(inAppNotificationRepository, never()).saveAll(any());
         verify(webSocketNotificationService).sendNotificationCountUpdate(userId);
     }
 
+    @Test
+    void markAllAsRead_shouldNotSendUpdateWhenNothingChanged() {
+        // Given
+        when(inAppNotificationRepository.markAllAsRead(eq(userId), any(LocalDateTime.class)))
+            .thenReturn(0);
+
+        // When
+        ResponseEntity<Map<String, Integer>> response = controller.markAllAsRead(userId);
+
+        // Then
+        assertEquals(Map.of("updated", 0), response.getBody());
+        verify(webSocketNotificationService, never()).sendNotificationCountUpdate(any());
+    }
+
+    @Test
+    void markSelectedAsRead_shouldUpdateGivenIds() {
+        // Given
+        UUID otherId = UUID.randomUUID();
+        when(inAppNotificationRepository.markAsRead(eq(userId), eq(Set.of(notificationId, otherId)), any(LocalDateTime.class)))
+            .thenReturn(2);
+
+        // When
+        ResponseEntity<Map<String, Integer>> response =
+            controller.markSelectedAsRead(userId, List.of(notificationId, otherId, notificationId));
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("updated", 2), response.getBody());
+        verify(webSocketNotificationService).sendNotificationCountUpdate(userId);
+    }
+
+    @Test
+    void markSelectedAsRead_shouldRejectEmptyAndOversizedRequests() {
+        // Given
+        List<UUID> tooMany = Stream.generate(UUID::randomUUID).limit(501).toList();
+
+        // When & Then
+        assertEquals(HttpStatus.BAD_REQUEST, controller.markSelectedAsRead(userId, List.of()).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.markSelectedAsRead(userId, tooMany).getStatusCode());
+        verifyNoInteractions(inAppNotificationRepository, webSocketNotificationService);
+    }
+
     @Test
     void deleteNotification_shouldDeleteAndSendWebSocketUpdate() {
         // Given
@@ -197,4 +312,22 @@ class InAppNotificationControllerTest {
         verify(inAppNotificationRepository, never()).deleteById(any());
         verify(webSocketNotificationService, never()).sendNotificationCountUpdate(any());
     }
+
+    @Test
+    void deleteAllUserNotifications_shouldDeleteWithSingleStatement() {
+        // Given
+        when(inAppNotificationRepository.deleteAllByUserId(userId)).thenReturn(3);
+
+        // When
+        ResponseEntity<Void> response = controller.deleteAllUserNotifications(userId);
+
+        // Then
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(inAppNotificationRepository, never()).deleteAll(any());
+        verify(webSocketNotificationService).sendNotificationCountUpdate(userId);
+    }
+
+    private static InAppNotificationSummary summary(UUID id, LocalDateTime createdAt, boolean isRead) {
+        return new InAppNotificationSummary(id, "Test Notification", "Test message", null, null, null, null, isRead, createdAt);
+    }
 }
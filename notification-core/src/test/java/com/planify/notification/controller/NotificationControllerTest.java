@@ -1,27 +1,49 @@
 package com.planify.notification.controller;
 
+import com.planify.notification.dto.NotificationLogEntry;
+import com.planify.notification.dto.NotificationLogPage;
 import com.planify.notification.dto.NotificationTemplateRequest;
+import com.planify.notification.dto.UserContactBackfillResult;
+import com.planify.notification.event.UserUpdatedEvent;
+import com.planify.notification.model.NotificationLog;
+import com.planify.notification.model.NotificationStatus;
 import com.planify.notification.model.NotificationTemplate;
 import com.planify.notification.model.NotificationType;
 import com.planify.notification.repository.NotificationLogRepository;
 import com.planify.notification.repository.NotificationTemplateRepository;
+import com.planify.notification.service.NotificationLogPartitionMaintenance;
+import com.planify.notification.service.NotificationLogPartitionMaintenance.PartitionWindow;
+import com.planify.notification.service.NotificationLogQueryService;
 import com.planify.notification.service.NotificationService;
+import com.planify.notification.service.TemplateCache;
+import com.planify.notification.service.UserContactStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +58,18 @@ class NotificationControllerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private TemplateCache templateCache;
+
+    @Mock
+    private NotificationLogQueryService logQueryService;
+
+    @Mock
+    private NotificationLogPartitionMaintenance partitionMaintenance;
+
+    @Mock
+    private UserContactStore userContactStore;
+
     @InjectMocks
     private NotificationController controller;
 
@@ -123,6 +157,7 @@ class NotificationControllerTest {
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(response.getBody());
         verify(templateRepository).save(any(NotificationTemplate.class));
+        verify(templateCache).evict("TEST_TEMPLATE");
     }
 
     @Test
@@ -140,6 +175,7 @@ class NotificationControllerTest {
         assertEquals("New Subject", template.getSubject());
         assertEquals("New Body", template.getBodyTemplate());
         verify(templateRepository).save(template);
+        verify(templateCache).evict("TEST_TEMPLATE");
     }
 
     @Test
@@ -185,6 +221,7 @@ class NotificationControllerTest {
         // Then
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(templateRepository).deleteById(templateId);
+        verify(templateCache).evictAll();
     }
 
     @Test
@@ -199,4 +236,153 @@ class NotificationControllerTest {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         verify(templateRepository, never()).deleteById(any());
     }
+
+    @Test
+    void getLogsByUser_shouldReturnAllLogsOfUserWithinPartitionWindow() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        List<NotificationLog> logs = List.of(new NotificationLog(), new NotificationLog());
+        PartitionWindow window = new PartitionWindow(
+                LocalDateTime.of(2024, 4, 1, 0, 0), LocalDateTime.of(2025, 7, 1, 0, 0));
+        when(partitionMaintenance.retainedWindow()).thenReturn(window);
+        when(logRepository.findByUserIdAndCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByCreatedAtAsc(
+                userId, window.from(), window.to())).thenReturn(logs);
+
+        // When
+        ResponseEntity<List<NotificationLog>> response = controller.getLogsByUser(userId);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(logs, response.getBody());
+    }
+
+    @Test
+    void getAllLogs_shouldPageWithinPartitionWindow() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 20);
+        PartitionWindow window = new PartitionWindow(
+                LocalDateTime.of(2024, 4, 1, 0, 0), LocalDateTime.of(2025, 7, 1, 0, 0));
+        when(partitionMaintenance.retainedWindow()).thenReturn(window);
+        when(logRepository.findByCreatedAtGreaterThanEqualAndCreatedAtLessThan(window.from(), window.to(), pageable))
+                .thenReturn(Page.empty(pageable));
+
+        // When
+        ResponseEntity<Page<NotificationLog>> response = controller.getAllLogs(pageable);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(logRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void searchLogs_shouldPassFiltersToQueryService() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 2, 1, 0, 0);
+        NotificationLogPage page = new NotificationLogPage(List.of(), null);
+        when(logQueryService.findPage(argThat(filter -> filter.from().equals(from) && filter.to().equals(to)
+                && filter.status() == NotificationStatus.FAILED && filter.type() == NotificationType.EMAIL), isNull(), eq(50)))
+            .thenReturn(page);
+
+        // When
+        ResponseEntity<NotificationLogPage> response = controller.searchLogs(
+                NotificationStatus.FAILED, NotificationType.EMAIL, null, null, null, from, to, null, 50);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(page, response.getBody());
+    }
+
+    @Test
+    void searchLogs_shouldRejectInvalidCursor() {
+        // When
+        ResponseEntity<NotificationLogPage> response = controller.searchLogs(
+                null, null, null, null, null, null, null, "not-a-cursor", 50);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(logQueryService);
+    }
+
+    @Test
+    void exportLogs_shouldStreamCsvRows() throws Exception {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 15, 10, 30);
+        NotificationLogEntry entry = new NotificationLogEntry(UUID.randomUUID(), null, UUID.randomUUID(), "user@example.com",
+                null, NotificationType.EMAIL, "event_reminder", "Hello, \"world\"", NotificationStatus.SENT,
+                createdAt, null, 0, null, createdAt, null);
+        doAnswer(invocation -> {
+            Consumer<NotificationLogEntry> consumer = invocation.getArgument(2);
+            consumer.accept(entry);
+            return null;
+        }).when(logQueryService).export(any(), anyBoolean(), any());
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = controller.exportLogs(
+                null, null, null, null, null, null, null, "csv", false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,eventId,userId"));
+        assertTrue(lines[1].contains(",\"Hello, \"\"world\"\"\",SENT,"));
+    }
+
+    @Test
+    void exportLogs_shouldRejectUnknownFormat() {
+        // When
+        ResponseEntity<StreamingResponseBody> response = controller.exportLogs(
+                null, null, null, null, null, null, null, "xml", false);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void backfillUserContacts_shouldApplyContacts() {
+        // Given
+        List<UserUpdatedEvent> contacts = List.of(new UserUpdatedEvent(), new UserUpdatedEvent());
+        when(userContactStore.applyAll(contacts)).thenReturn(1);
+
+        // When
+        ResponseEntity<UserContactBackfillResult> response = controller.backfillUserContacts(contacts);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new UserContactBackfillResult(2, 1), response.getBody());
+    }
+
+    @Test
+    void backfillUserContacts_shouldRejectTooManyContacts() {
+        // When
+        ResponseEntity<UserContactBackfillResult> response = controller.backfillUserContacts(
+                Collections.nCopies(1001, new UserUpdatedEvent()));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(userContactStore);
+    }
+
+    @Test
+    void backfillUserContacts_shouldRejectMissingOrEmptyBody() {
+        // When
+        ResponseEntity<UserContactBackfillResult> missing = controller.backfillUserContacts(null);
+        ResponseEntity<UserContactBackfillResult> empty = controller.backfillUserContacts(List.of());
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+        verifyNoInteractions(userContactStore);
+    }
+
+    @Test
+    void csvValue_shouldQuoteOnlyWhenNeeded() {
+        assertEquals("", NotificationController.csvValue(null));
+        assertEquals("plain", NotificationController.csvValue("plain"));
+        assertEquals("\"a,b\"", NotificationController.csvValue("a,b"));
+        assertEquals("\"line\nbreak\"", NotificationController.csvValue("line\nbreak"));
+    }
 }
@@ -0,0 +1,25 @@
+package com.planify.notification.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedCursorTest {
+
+    @Test
+    void encode_shouldRoundTrip() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123456000), UUID.randomUUID());
+
+        assertEquals(Optional.of(cursor), FeedCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_shouldRejectInvalidCursor() {
+        assertTrue(FeedCursor.decode("not-a-cursor").isEmpty());
+        assertTrue(FeedCursor.decode("%%%").isEmpty());
+    }
+}
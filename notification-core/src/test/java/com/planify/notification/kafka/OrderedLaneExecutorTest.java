@@ -0,0 +1,26 @@
+package com.planify.notification.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderedLaneExecutorTest {
+
+    @Test
+    void lanes_shouldKeepConfiguredLanesWhenPoolIsLargeEnough() {
+        // 2 x 3 x 4 + 4 + 8 + 4 = 40
+        assertEquals(4, OrderedLaneExecutor.lanes(4, 3, 40, 4, 8));
+    }
+
+    @Test
+    void lanes_shouldCapLanesToConnectionPool() {
+        // Za Kafko ostane 20 - 4 - 4 - 8 = 4 povezav, za 2 listenerja x 2 niti je to ena lana na nit
+        assertEquals(1, OrderedLaneExecutor.lanes(4, 2, 20, 4, 8));
+        assertEquals(2, OrderedLaneExecutor.lanes(4, 3, 28, 4, 8));
+    }
+
+    @Test
+    void lanes_shouldAlwaysKeepOneLane() {
+        assertEquals(1, OrderedLaneExecutor.lanes(4, 3, 5, 4, 8));
+    }
+}
@@ -0,0 +1,92 @@
+package com.planify.notification.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.serializer.DeserializationException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetryTopicsTest {
+
+    @Mock
+    private NotificationTopics topics;
+
+    private RetryTopics retryTopics;
+
+    @BeforeEach
+    void setUp() {
+        retryTopics = new RetryTopics(topics, List.of(1000L, 5000L));
+    }
+
+    @Test
+    void destination_shouldWalkRetryChainAndEndInDlt() {
+        // Given
+        RuntimeException failure = new RuntimeException("db down");
+
+        // When / Then
+        assertEquals("user.invitation-sent.retry-1", retryTopics.destination(record("user.invitation-sent"), failure).topic());
+        assertEquals("user.invitation-sent.retry-2", retryTopics.destination(record("user.invitation-sent.retry-1"), failure).topic());
+        assertEquals("user.invitation-sent.dlt", retryTopics.destination(record("user.invitation-sent.retry-2"), failure).topic());
+    }
+
+    @Test
+    void destination_shouldSendUnreadableRecordsStraightToDlt() {
+        // Given
+        DeserializationException poison = new DeserializationException("bad json", new byte[0], false, new RuntimeException());
+
+        // When
+        TopicPartition destination = retryTopics.destination(record("user.invitation-sent"), poison);
+
+        // Then
+        assertEquals("user.invitation-sent.dlt", destination.topic());
+        assertEquals(-1, destination.partition());
+    }
+
+    @Test
+    void retryHeaders_shouldCarryDueTime() {
+        // Given
+        ConsumerRecord<String, Object> original = record("user.invitation-sent");
+        long before = System.currentTimeMillis();
+
+        // When
+        Headers headers = retryHeaders(original);
+        ConsumerRecord<String, Object> retried = record("user.invitation-sent.retry-1");
+        headers.forEach(header -> retried.headers().add(header));
+
+        // Then
+        assertTrue(retryTopics.dueAt(retried) >= before + 1000L);
+        assertEquals(0L, retryTopics.dueAt(original));
+        assertEquals("user.invitation-sent", retryTopics.baseTopic("user.invitation-sent.retry-1"));
+        assertEquals(1, retryTopics.level("user.invitation-sent.retry-1"));
+    }
+
+    @Test
+    void retryTopics_shouldListEveryLevelForEveryInputTopic() {
+        // Given
+        when(topics.all()).thenReturn(new String[]{"a", "b"});
+
+        // When
+        String[] result = retryTopics.retryTopics();
+
+        // Then
+        assertArrayEquals(new String[]{"a.retry-1", "a.retry-2", "b.retry-1", "b.retry-2"}, result);
+    }
+
+    private Headers retryHeaders(ConsumerRecord<String, Object> record) {
+        return retryTopics.retryHeaders(record, new RuntimeException("db down"));
+    }
+
+    private ConsumerRecord<String, Object> record(String topic) {
+        return new ConsumerRecord<>(topic, 0, 0L, "key", "value");
+    }
+}
@@ -0,0 +1,158 @@
+package com.planify.notification.repository;
+
+import com.planify.notification.model.EventAttendeeReminder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prevzem opomnikov (claimUnsent) proti Postgresu iz testnega profila: SKIP LOCKED in UPDATE ... RETURNING
+ * brez baze nista preverljiva. Shemo ustvari Hibernate (create-drop), zato delnega indeksa iz V13 ni.
+ * Posli se potrjujejo, da jih vidijo tudi sočasni prevzemi; test se preskoči, če baza ni dosegljiva.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("postgresAvailable")
+class EventAttendeeReminderRepositoryTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2025, 3, 10, 9, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime FROM = NOW.plusHours(23);
+    private static final OffsetDateTime TO = NOW.plusHours(25);
+    private static final OffsetDateTime STALE_BEFORE = NOW.minusMinutes(10);
+
+    @Autowired
+    private EventAttendeeReminderRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        repository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void claimUnsent_concurrentClaimsShouldGetDisjointRows() throws Exception {
+        // Given
+        Set<UUID> unsent = ids(repository.saveAll(List.of(
+                reminder(FROM.plusMinutes(1), false, null),
+                reminder(FROM.plusMinutes(2), false, null),
+                reminder(FROM.plusMinutes(3), false, null),
+                reminder(FROM.plusMinutes(4), false, null))));
+        repository.save(reminder(FROM.plusMinutes(5), true, null));
+
+        // When: drugi prevzem teče, medtem ko prvi še drži zaklenjene vrstice
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Set<UUID>> claims;
+        try {
+            claims = transactionTemplate.execute(status -> {
+                Set<UUID> first = ids(repository.claimUnsent(FROM, TO, STALE_BEFORE, NOW, 2));
+                Future<Set<UUID>> second = executor.submit(() -> transactionTemplate.execute(
+                        inner -> ids(repository.claimUnsent(FROM, TO, STALE_BEFORE, NOW, 10))));
+                try {
+                    return List.of(first, second.get(10, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    throw new IllegalStateException("Second claim did not skip locked rows", e);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        Set<UUID> first = claims.get(0);
+        Set<UUID> second = claims.get(1);
+        assertEquals(2, first.size());
+        assertEquals(2, second.size());
+        assertTrue(first.stream().noneMatch(second::contains));
+        Set<UUID> all = new HashSet<>(first);
+        all.addAll(second);
+        assertEquals(unsent, all);
+    }
+
+    @Test
+    void claimUnsent_shouldSkipSentAndFreshlyClaimedRows() {
+        // Given
+        EventAttendeeReminder sent = repository.save(reminder(FROM.plusMinutes(1), true, null));
+        EventAttendeeReminder claimed = repository.save(reminder(FROM.plusMinutes(2), false, NOW.minusMinutes(1)));
+        EventAttendeeReminder stale = repository.save(reminder(FROM.plusMinutes(3), false, NOW.minusHours(1)));
+        EventAttendeeReminder outsideWindow = repository.save(reminder(TO.plusMinutes(1), false, null));
+
+        // When
+        Set<UUID> claimedIds = transactionTemplate.execute(
+                status -> ids(repository.claimUnsent(FROM, TO, STALE_BEFORE, NOW, 10)));
+
+        // Then
+        assertEquals(Set.of(stale.getId()), claimedIds);
+        assertFalse(claimedIds.contains(sent.getId()));
+        assertFalse(claimedIds.contains(claimed.getId()));
+        assertFalse(claimedIds.contains(outsideWindow.getId()));
+        assertEquals(NOW.toInstant(), repository.findById(stale.getId()).orElseThrow().getClaimedAt().toInstant());
+    }
+
+    static boolean postgresAvailable() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yaml"));
+        Properties properties = yaml.getObject();
+        try (Connection ignored = DriverManager.getConnection(properties.getProperty("spring.datasource.url"),
+                properties.getProperty("spring.datasource.username"),
+                properties.getProperty("spring.datasource.password"))) {
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static EventAttendeeReminder reminder(OffsetDateTime eventStartAt, boolean sent, OffsetDateTime claimedAt) {
+        EventAttendeeReminder reminder = new EventAttendeeReminder();
+        reminder.setEventId(UUID.randomUUID());
+        reminder.setEventTitle("Planify meetup");
+        reminder.setEventStartAt(eventStartAt);
+        reminder.setUserId(UUID.randomUUID());
+        reminder.setIsSent(sent);
+        reminder.setSentAt(sent ? NOW.minusHours(2) : null);
+        reminder.setClaimedAt(claimedAt);
+        return reminder;
+    }
+
+    private static Set<UUID> ids(List<EventAttendeeReminder> reminders) {
+        return reminders.stream().map(EventAttendeeReminder::getId).collect(Collectors.toSet());
+    }
+}
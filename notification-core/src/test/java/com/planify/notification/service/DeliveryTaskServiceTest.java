@@ -0,0 +1,102 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.DeliveryChannel;
+import com.planify.notification.model.DeliveryTask;
+import com.planify.notification.model.DeliveryTaskStatus;
+import com.planify.notification.model.NotificationLog;
+import com.planify.notification.model.NotificationStatus;
+import com.planify.notification.repository.DeliveryTaskRepository;
+import com.planify.notification.repository.NotificationLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryTaskServiceTest {
+
+    @Mock
+    private DeliveryTaskRepository deliveryTaskRepository;
+
+    @Mock
+    private NotificationLogRepository logRepository;
+
+    private DeliveryTaskService deliveryTaskService;
+    private NotificationLog notificationLog;
+    private DeliveryTask task;
+
+    @BeforeEach
+    void setUp() {
+        deliveryTaskService = new DeliveryTaskService(deliveryTaskRepository, logRepository, 3, 3, 30, 2.0, 3600);
+
+        notificationLog = new NotificationLog();
+        notificationLog.setId(UUID.randomUUID());
+        notificationLog.setStatus(NotificationStatus.PENDING);
+
+        task = new DeliveryTask();
+        task.setId(UUID.randomUUID());
+        task.setNotificationLog(notificationLog);
+        task.setChannel(DeliveryChannel.EMAIL);
+        task.setStatus(DeliveryTaskStatus.IN_PROGRESS);
+    }
+
+    private void givenStoredTask() {
+        when(deliveryTaskRepository.findById(task.getId())).thenReturn(Optional.of(task));
+        when(logRepository.lockById(notificationLog.getId())).thenReturn(Optional.of(notificationLog));
+    }
+
+    @Test
+    void fail_shouldRescheduleWithBackoffWhileAttemptsRemain() {
+        // Given
+        givenStoredTask();
+        task.setAttempts(1);
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        deliveryTaskService.fail(task.getId(), "timeout");
+
+        // Then
+        assertEquals(DeliveryTaskStatus.PENDING, task.getStatus());
+        assertFalse(task.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+        assertEquals(NotificationStatus.RETRYING, notificationLog.getStatus());
+        assertEquals(1, notificationLog.getRetryCount());
+        assertEquals(task.getNextAttemptAt(), notificationLog.getNextAttemptAt());
+    }
+
+    @Test
+    void fail_shouldMarkLogFailedWhenAttemptsAreExhausted() {
+        // Given
+        givenStoredTask();
+        task.setAttempts(3);
+        when(deliveryTaskRepository.existsByNotificationLogIdAndStatusIn(any(), anyCollection())).thenReturn(false);
+
+        // When
+        deliveryTaskService.fail(task.getId(), "rejected");
+
+        // Then
+        assertEquals(DeliveryTaskStatus.FAILED, task.getStatus());
+        assertEquals(NotificationStatus.FAILED, notificationLog.getStatus());
+        assertEquals("rejected", notificationLog.getErrorMessage());
+        assertNull(notificationLog.getNextAttemptAt());
+    }
+
+    @Test
+    void backoff_shouldGrowExponentiallyUpToCap() {
+        // 30s, 60s, 120s ... (+ do 20 % raztrosa), omejeno na 3600s
+        assertTrue(deliveryTaskService.backoff(1).compareTo(Duration.ofSeconds(30)) >= 0);
+        assertTrue(deliveryTaskService.backoff(1).compareTo(Duration.ofSeconds(36)) <= 0);
+        assertTrue(deliveryTaskService.backoff(3).compareTo(Duration.ofSeconds(120)) >= 0);
+        assertTrue(deliveryTaskService.backoff(20).compareTo(Duration.ofSeconds(4320)) <= 0);
+    }
+}
@@ -0,0 +1,179 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.repository.InAppNotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InAppRetentionSweeperTest {
+
+    @Mock
+    private InAppNotificationRepository inAppNotificationRepository;
+
+    @Mock
+    private UnreadCountService unreadCountService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<Collection<UUID>> deletedIds;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InAppRetentionSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new InAppRetentionSweeper(inAppNotificationRepository, unreadCountService, jdbcTemplate,
+                transactionManager, meterRegistry, true, 90, 100, 2);
+    }
+
+    @Test
+    void removeExpiredRead_shouldDeleteInBatchesAfterCursor() {
+        // Given
+        LocalDateTime cutoff = LocalDateTime.of(2025, 1, 1, 0, 0);
+        FeedCursor first = new FeedCursor(cutoff.minusDays(3), UUID.randomUUID());
+        FeedCursor second = new FeedCursor(cutoff.minusDays(2), UUID.randomUUID());
+        FeedCursor third = new FeedCursor(cutoff.minusDays(1), UUID.randomUUID());
+        when(inAppNotificationRepository.findReadBefore(eq(cutoff), any(), any(), eq(Limit.of(2))))
+            .thenReturn(List.of(first, second))
+            .thenReturn(List.of(third));
+        when(inAppNotificationRepository.deleteByIds(any())).thenReturn(2, 1);
+
+        // When
+        int removed = sweeper.removeExpiredRead(cutoff);
+
+        // Then
+        assertEquals(3, removed);
+        verify(inAppNotificationRepository).findReadBefore(cutoff, second.createdAt(), second.id(), Limit.of(2));
+        verify(inAppNotificationRepository, times(2)).deleteByIds(deletedIds.capture());
+        assertEquals(List.of(List.of(first.id(), second.id()), List.of(third.id())), deletedIds.getAllValues());
+        assertEquals(3.0, meterRegistry.get("notification.in_app.retention.removed").tag("reason", "read_expired").counter().count());
+    }
+
+    @Test
+    void removeOverCap_shouldTrimOldestAndPushCount() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UUID oldest = UUID.randomUUID();
+        FeedCursor oldestKept = new FeedCursor(LocalDateTime.of(2025, 1, 1, 0, 0), UUID.randomUUID());
+        when(inAppNotificationRepository.findUsersWithMoreThan(100, new UUID(0, 0), 2)).thenReturn(List.of(userId));
+        when(inAppNotificationRepository.findCursorsNewestFirst(userId, PageRequest.of(99, 1))).thenReturn(List.of(oldestKept));
+        when(inAppNotificationRepository.findIdsOlderThan(userId, oldestKept.createdAt(), oldestKept.id(), Limit.of(2)))
+                .thenReturn(List.of(oldest));
+        when(inAppNotificationRepository.deleteByIds(List.of(oldest))).thenReturn(1);
+
+        // When
+        int removed = sweeper.removeOverCap();
+
+        // Then
+        assertEquals(1, removed);
+        verify(unreadCountService).requestPush(userId);
+        assertEquals(1.0, meterRegistry.get("notification.in_app.retention.removed").tag("reason", "user_cap").counter().count());
+    }
+
+    @Test
+    void removeOverCap_shouldPageUsersAfterLastUser() {
+        // Given
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        UUID third = new UUID(0, 3);
+        when(inAppNotificationRepository.findUsersWithMoreThan(100, new UUID(0, 0), 2)).thenReturn(List.of(first, second));
+        when(inAppNotificationRepository.findUsersWithMoreThan(100, second, 2)).thenReturn(List.of(third));
+        FeedCursor oldestKept = new FeedCursor(LocalDateTime.of(2025, 1, 1, 0, 0), UUID.randomUUID());
+        when(inAppNotificationRepository.findCursorsNewestFirst(any(), eq(PageRequest.of(99, 1)))).thenReturn(List.of(oldestKept));
+        when(inAppNotificationRepository.findIdsOlderThan(any(), any(), any(), eq(Limit.of(2)))).thenReturn(List.of());
+
+        // When
+        int removed = sweeper.removeOverCap();
+
+        // Then
+        assertEquals(0, removed);
+        verify(inAppNotificationRepository, times(3)).findIdsOlderThan(any(), any(), any(), eq(Limit.of(2)));
+        verify(unreadCountService).requestPush(third);
+    }
+
+    @Test
+    void removeOverCap_shouldDeleteOlderThanBoundaryInBatches() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        FeedCursor oldestKept = new FeedCursor(LocalDateTime.of(2025, 1, 1, 0, 0), UUID.randomUUID());
+        List<UUID> firstBatch = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> secondBatch = List.of(UUID.randomUUID());
+        when(inAppNotificationRepository.findUsersWithMoreThan(100, new UUID(0, 0), 2)).thenReturn(List.of(userId));
+        when(inAppNotificationRepository.findCursorsNewestFirst(userId, PageRequest.of(99, 1))).thenReturn(List.of(oldestKept));
+        when(inAppNotificationRepository.findIdsOlderThan(userId, oldestKept.createdAt(), oldestKept.id(), Limit.of(2)))
+                .thenReturn(firstBatch)
+                .thenReturn(secondBatch);
+        when(inAppNotificationRepository.deleteByIds(any())).thenReturn(2, 1);
+
+        // When
+        int removed = sweeper.removeOverCap();
+
+        // Then: meja se poišče enkrat, vsak paket se potrdi v svoji transakciji
+        assertEquals(3, removed);
+        verify(inAppNotificationRepository, times(1)).findCursorsNewestFirst(any(), any());
+        verify(inAppNotificationRepository, times(2)).deleteByIds(deletedIds.capture());
+        assertEquals(List.of(firstBatch, secondBatch), deletedIds.getAllValues());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void sweep_shouldRecordDuration() {
+        // Given
+        givenSweepLock(true);
+        when(inAppNotificationRepository.findReadBefore(any(), any(), any(), any())).thenReturn(List.of());
+        when(inAppNotificationRepository.findUsersWithMoreThan(eq(100L), any(), eq(2))).thenReturn(List.of());
+
+        // When
+        sweeper.sweep();
+
+        // Then
+        assertEquals(1, meterRegistry.get("notification.in_app.retention.sweep.time").timer().count());
+        verify(inAppNotificationRepository, never()).deleteByIds(any());
+    }
+
+    @Test
+    void sweep_shouldSkipWhenAnotherReplicaHoldsLock() {
+        // Given
+        givenSweepLock(false);
+
+        // When
+        sweeper.sweep();
+
+        // Then
+        verifyNoInteractions(inAppNotificationRepository);
+        assertEquals(1, meterRegistry.get("notification.in_app.retention.sweep.time").timer().count());
+    }
+
+    private void givenSweepLock(boolean acquired) {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class)))
+                .thenReturn(acquired);
+    }
+}
@@ -0,0 +1,58 @@
+package com.planify.notification.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Lokalni nadomestek user-service za teste: uporabniki v pomnilniku, zabeleženi klici in simulirana napaka.
+ */
+class InMemoryUserDirectory implements UserDirectory {
+
+    private final Map<UUID, UserDirectoryClient.UserResponse> users = new ConcurrentHashMap<>();
+    private final List<List<UUID>> requests = new CopyOnWriteArrayList<>();
+    private volatile RuntimeException failure;
+    private volatile Runnable beforeLookup = () -> { };
+
+    UserDirectoryClient.UserResponse add(UUID userId, String phone, boolean smsConsent) {
+        UserDirectoryClient.UserResponse user = new UserDirectoryClient.UserResponse();
+        user.setId(userId);
+        user.setPhoneNumber(phone);
+        user.setSmsConsent(smsConsent);
+        users.put(userId, user);
+        return user;
+    }
+
+    void failWith(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    void beforeLookup(Runnable beforeLookup) {
+        this.beforeLookup = beforeLookup;
+    }
+
+    List<List<UUID>> requests() {
+        return requests;
+    }
+
+    @Override
+    public Map<UUID, UserDirectoryClient.UserResponse> findUsers(Collection<UUID> userIds) {
+        requests.add(List.copyOf(userIds));
+        beforeLookup.run();
+        if (failure != null) {
+            throw failure;
+        }
+        Map<UUID, UserDirectoryClient.UserResponse> found = new HashMap<>();
+        for (UUID userId : userIds) {
+            UserDirectoryClient.UserResponse user = users.get(userId);
+            if (user != null) {
+                found.put(userId, user);
+            }
+        }
+        return found;
+    }
+}
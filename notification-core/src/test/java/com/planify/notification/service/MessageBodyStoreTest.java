@@ -0,0 +1,100 @@
+package com.planify.notification.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageBodyStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private MessageBodyStore messageBodyStore;
+
+    @BeforeEach
+    void setUp() {
+        messageBodyStore = new MessageBodyStore(jdbcTemplate, 1, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void storeAll_shouldWriteEachDistinctBodyOnce() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of(MessageBodyStore.hash("<p>A</p>"), MessageBodyStore.hash("<p>B</p>")));
+
+        // When
+        Map<String, String> hashes = messageBodyStore.storeAll(Arrays.asList("<p>A</p>", "<p>B</p>", "<p>A</p>", null));
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(2, hashes.size());
+        assertEquals(MessageBodyStore.hash("<p>A</p>"), hashes.get("<p>A</p>"));
+        assertNotEquals(hashes.get("<p>A</p>"), hashes.get("<p>B</p>"));
+        verify(jdbcTemplate).batchUpdate(contains("DO NOTHING"), anyList());
+        verify(jdbcTemplate).queryForList(contains("FOR KEY SHARE"), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void storeAll_shouldReinsertBodyRemovedBeforeLock() {
+        // Given
+        String kept = MessageBodyStore.hash("<p>A</p>");
+        String removed = MessageBodyStore.hash("<p>B</p>");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of(kept))
+            .thenReturn(List.of(removed));
+
+        // When
+        messageBodyStore.storeAll(List.of("<p>A</p>", "<p>B</p>"));
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getAllValues().get(1).size());
+        assertEquals(removed, rows.getAllValues().get(1).get(0)[0]);
+    }
+
+    @Test
+    void hash_shouldBeSha256Hex() {
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", MessageBodyStore.hash("hello"));
+    }
+
+    @Test
+    void store_shouldSkipNullBody() {
+        // When & Then
+        assertNull(messageBodyStore.store(null));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void removeUnreferenced_shouldDeleteInBatches() {
+        // Given
+        when(jdbcTemplate.update(anyString(), any(), eq(2))).thenReturn(2, 1);
+
+        // When
+        messageBodyStore.removeUnreferenced();
+
+        // Then
+        verify(jdbcTemplate, times(2)).update(anyString(), any(), eq(2));
+    }
+}
@@ -0,0 +1,128 @@
+package com.planify.notification.service;
+
+import com.planify.notification.service.NotificationLogPartitionMaintenance.PartitionWindow;
+import com.planify.notification.service.NotificationLogPartitionMaintenance.RetentionMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationLogPartitionMaintenanceTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2025, 3);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private NotificationLogPartitionMaintenance maintenance(RetentionMode mode) {
+        return new NotificationLogPartitionMaintenance(jdbcTemplate, TransactionOperations.withoutTransaction(),
+                true, 2, 12, mode);
+    }
+
+    private void givenPartitions(String... partitions) {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class)))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(partitions));
+    }
+
+    @Test
+    void maintain_shouldCreateUpcomingPartitions() {
+        // Given
+        givenPartitions("notification_logs_default", "notification_logs_p2025_03");
+
+        // When
+        maintenance(RetentionMode.DROP).maintain(CURRENT);
+
+        // Then
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS notification_logs_p2025_03 PARTITION OF notification_logs"
+                + " FOR VALUES FROM ('2025-03-01') TO ('2025-04-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS notification_logs_p2025_05 PARTITION OF notification_logs"
+                + " FOR VALUES FROM ('2025-05-01') TO ('2025-06-01')");
+        verify(jdbcTemplate, times(3)).execute(startsWith("CREATE TABLE"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void maintain_shouldDropPartitionsOlderThanRetention() {
+        // Given
+        givenPartitions("notification_logs_default", "notification_logs_p2024_02", "notification_logs_p2024_03");
+
+        // When
+        maintenance(RetentionMode.DROP).maintain(CURRENT);
+
+        // Then
+        verify(jdbcTemplate).update("DELETE FROM delivery_tasks t USING notification_logs_p2024_02 l WHERE t.notification_log_id = l.id");
+        verify(jdbcTemplate).execute("DROP TABLE notification_logs_p2024_02");
+        verify(jdbcTemplate, never()).execute("DROP TABLE notification_logs_p2024_03");
+        verify(jdbcTemplate, never()).execute("DROP TABLE notification_logs_default");
+    }
+
+    @Test
+    void maintain_shouldDetachPartitionsForArchive() {
+        // Given
+        givenPartitions("notification_logs_p2023_12");
+
+        // When
+        maintenance(RetentionMode.DETACH).maintain(CURRENT);
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE notification_logs DETACH PARTITION notification_logs_p2023_12");
+        verify(jdbcTemplate).execute("ALTER TABLE notification_logs_p2023_12 RENAME TO notification_logs_archive_2023_12");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void maintain_shouldSkipWhenAnotherReplicaHoldsLock() {
+        // Given
+        when(jdbcTemplate.queryForObject(startsWith("SELECT pg_try_advisory_xact_lock"), eq(Boolean.class)))
+                .thenReturn(false);
+
+        // When
+        maintenance(RetentionMode.DROP).maintain(CURRENT);
+
+        // Then
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    void retainedWindow_shouldSpanOldestToNewestMonthlyPartition() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "notification_logs_p2025_02", "notification_logs_default", "notification_logs_p2024_04",
+                "notification_logs_p2025_06"));
+
+        // When
+        PartitionWindow window = maintenance(RetentionMode.DROP).retainedWindow();
+
+        // Then
+        assertEquals(LocalDateTime.of(2024, 4, 1, 0, 0), window.from());
+        assertEquals(LocalDateTime.of(2025, 7, 1, 0, 0), window.to());
+    }
+
+    @Test
+    void retainedWindow_shouldNotBoundUnpartitionedTable() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of());
+
+        // When
+        PartitionWindow window = maintenance(RetentionMode.DROP).retainedWindow();
+
+        // Then
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), window.from());
+        assertEquals(LocalDateTime.of(9999, 1, 1, 0, 0), window.to());
+    }
+}
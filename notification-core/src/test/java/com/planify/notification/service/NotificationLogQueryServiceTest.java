@@ -0,0 +1,74 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.FeedCursor;
+import com.planify.notification.dto.NotificationLogFilter;
+import com.planify.notification.model.NotificationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationLogQueryServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 2, 1, 0, 0);
+
+    @Test
+    void pageQuery_shouldOnlyFilterOnGivenFields() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        NotificationLogFilter filter = new NotificationLogFilter(FROM, TO, NotificationStatus.FAILED, null, null, userId, null);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        // When
+        String sql = NotificationLogQueryService.pageQuery(filter, null, 101, params);
+
+        // Then
+        assertTrue(sql.contains("l.created_at >= :from AND l.created_at <= :to"));
+        assertTrue(sql.contains("l.status = :status"));
+        assertTrue(sql.contains("l.user_id = :userId"));
+        assertFalse(sql.contains(":type"));
+        assertFalse(sql.contains(":templateKey"));
+        assertFalse(sql.contains(":cursorId"));
+        assertTrue(sql.endsWith("ORDER BY l.created_at DESC, l.id DESC LIMIT :limit"));
+        assertEquals("FAILED", params.getValue("status"));
+        assertEquals(userId, params.getValue("userId"));
+        assertEquals(101, params.getValue("limit"));
+    }
+
+    @Test
+    void pageQuery_shouldContinueAfterCursor() {
+        // Given
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 1, 20, 8, 0), UUID.randomUUID());
+        NotificationLogFilter filter = new NotificationLogFilter(FROM, TO, null, null, null, null, null);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        // When
+        String sql = NotificationLogQueryService.pageQuery(filter, cursor, 51, params);
+
+        // Then
+        assertTrue(sql.contains("(l.created_at, l.id) < (:cursorCreatedAt, :cursorId)"));
+        assertEquals(cursor.createdAt(), params.getValue("cursorCreatedAt"));
+        assertEquals(cursor.id(), params.getValue("cursorId"));
+    }
+
+    @Test
+    void exportQuery_shouldJoinBodiesOnlyWhenRequested() {
+        // Given
+        NotificationLogFilter filter = new NotificationLogFilter(FROM, TO, null, null, "event_reminder", null, null);
+
+        // When
+        String withoutBody = NotificationLogQueryService.exportQuery(filter, false, new MapSqlParameterSource());
+        String withBody = NotificationLogQueryService.exportQuery(filter, true, new MapSqlParameterSource());
+
+        // Then
+        assertFalse(withoutBody.contains("message_bodies"));
+        assertTrue(withBody.contains("LEFT JOIN message_bodies b ON b.hash = l.body_hash"));
+        assertTrue(withBody.contains("l.template_key = :templateKey"));
+        assertTrue(withBody.endsWith("ORDER BY l.created_at, l.id"));
+        assertFalse(withBody.contains("LIMIT"));
+    }
+}
@@ -1,42 +1,56 @@
 package com.planify.notification.service;
 
+import com.planify.notification.dto.OrganizationActivityDto;
 import com.planify.notification.event.*;
+import com.planify.notification.model.DeliveryChannel;
+import com.planify.notification.model.DeliveryTask;
+import com.planify.notification.model.DeliveryTaskStatus;
 import com.planify.notification.model.EventAttendeeReminder;
+import com.planify.notification.model.NotificationLog;
+import com.planify.notification.model.NotificationStatus;
 import com.planify.notification.model.NotificationTemplate;
 import com.planify.notification.model.NotificationType;
+import com.planify.notification.repository.DeliveryTaskRepository;
 import com.planify.notification.repository.EventAttendeeReminderRepository;
 import com.planify.notification.repository.NotificationLogRepository;
-import com.planify.notification.repository.NotificationTemplateRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
 
     @Mock
-    private NotificationTemplateRepository templateRepository;
+    private TemplateCache templateCache;
 
     @Mock
     private NotificationLogRepository logRepository;
 
     @Mock
-    private EmailService emailService;
+    private DeliveryTaskRepository deliveryTaskRepository;
 
     @Mock
-    private SmsService smsService;
+    private EmailService emailService;
 
     @Mock
     private TemplateService templateService;
@@ -48,7 +62,10 @@ class NotificationServiceTest {
     private EventAttendeeReminderRepository eventAttendeeReminderRepository;
 
     @Mock
-    private UserDirectoryClient userDirectoryClient;
+    private MessageBodyStore messageBodyStore;
+
+    @Mock
+    private OrganizationAdminStore organizationAdminStore;
 
     @InjectMocks
     private NotificationService notificationService;
@@ -84,15 +101,13 @@ class NotificationServiceTest {
 
         when(eventAttendeeReminderRepository.findByEventIdAndUserId(eventId, userId))
             .thenReturn(Optional.empty());
-        when(eventAttendeeReminderRepository.save(any(EventAttendeeReminder.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         notificationService.handleEventAttendanceAcceptedEvent(event);
 
         // Then
         verify(eventAttendeeReminderRepository).findByEventIdAndUserId(eventId, userId);
-        verify(eventAttendeeReminderRepository).save(any(EventAttendeeReminder.class));
+        verify(eventAttendeeReminderRepository).saveAll(anyList());
     }
 
     @Test
@@ -114,7 +129,7 @@ class NotificationServiceTest {
 
         // Then
         verify(eventAttendeeReminderRepository).findByEventIdAndUserId(eventId, userId);
-        verify(eventAttendeeReminderRepository, never()).save(any());
+        verify(eventAttendeeReminderRepository, never()).saveAll(anyList());
     }
 
     @Test
@@ -127,16 +142,86 @@ class NotificationServiceTest {
         event.setOrganizationName("Test Org");
         event.setRequesterUsername("testuser");
         event.setAdminIds(Arrays.asList(UUID.randomUUID().toString()));
+        event.setOccurredAt(Instant.parse("2025-03-01T10:00:00Z"));
 
         template.setTemplateKey("NEW_REQUEST");
-        when(templateRepository.findByTemplateKey("NEW_REQUEST"))
+        when(templateCache.findByTemplateKey("NEW_REQUEST"))
             .thenReturn(Optional.of(template));
 
         // When
         notificationService.handleJoinRequestSentEvent(event);
 
         // Then
-        verify(templateRepository).findByTemplateKey("NEW_REQUEST");
+        verify(templateCache).findByTemplateKey("NEW_REQUEST");
+        verify(organizationAdminStore).replaceAdmins(organizationId, event.getAdminIds(), event.getOccurredAt());
+        verify(webSocketNotificationService).sendToTopic(eq("organization:" + organizationId),
+                argThat((OrganizationActivityDto activity) -> "join_request_sent".equals(activity.activity())
+                        && event.getJoinRequestId().equals(activity.referenceId())));
+    }
+
+    @Test
+    void handleJoinRequestSentEvents_shouldResolveTemplateOnceAndPersistBatchTogether() {
+        // Given
+        template.setTemplateKey("NEW_REQUEST");
+        template.setType(NotificationType.APP);
+        when(templateCache.findByTemplateKey("NEW_REQUEST"))
+            .thenReturn(Optional.of(template));
+
+        List<JoinRequestsSentEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            JoinRequestsSentEvent event = new JoinRequestsSentEvent();
+            event.setJoinRequestId(UUID.randomUUID());
+            event.setRequesterUserId(UUID.randomUUID());
+            event.setOrganizationId(organizationId);
+            event.setOrganizationName("Test Org");
+            event.setRequesterUsername("user" + i);
+            event.setAdminIds(Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+            events.add(event);
+        }
+
+        // When
+        notificationService.handleJoinRequestSentEvents(events);
+
+        // Then - 3 dogodki x 2 admina = 6 obvestil, vendar le en lookup predloge in en batch insert na tabelo
+        verify(templateCache, times(1)).findByTemplateKey("NEW_REQUEST");
+        // Logi se shranijo pred in-app obvestili, ki se pošljejo šele po potrditvi transakcije
+        InOrder order = inOrder(logRepository, webSocketNotificationService);
+        order.verify(logRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 6));
+        order.verify(webSocketNotificationService, times(1)).sendInAppNotifications(argThat(list -> list.size() == 6));
+        verify(logRepository, never()).save(any());
+    }
+
+    @Test
+    void handleInvitationRespondedEvent_shouldRenderOnceForAllAdmins() {
+        // Given
+        template.setTemplateKey("INVITATION_ACCEPTED");
+        template.setType(NotificationType.APP);
+        when(templateCache.findByTemplateKey("INVITATION_ACCEPTED"))
+            .thenReturn(Optional.of(template));
+        when(templateService.renderSubject(any(), any())).thenReturn("subject");
+        when(templateService.renderBody(any(), any())).thenReturn("body");
+        when(messageBodyStore.storeAll(any())).thenReturn(Map.of("body", "hash"));
+
+        InvitationRespondedEvent event = new InvitationRespondedEvent();
+        event.setInvitationId(UUID.randomUUID());
+        event.setOrganizationId(organizationId);
+        event.setOrganizationName("Test Org");
+        event.setInvitedUsername("testuser");
+        event.setEventType("ACCEPTED");
+        event.setAdminIds(Arrays.asList(UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+        // When
+        notificationService.handleInvitationRespondedEvent(event);
+
+        // Then - trije admini, vsebina pa se zrenderira le enkrat
+        verify(templateService, times(1)).renderSubject(any(), any());
+        verify(templateService, times(1)).renderBody(any(), any());
+        verify(webSocketNotificationService, times(1)).sendInAppNotifications(argThat(list -> list.size() == 3
+                && list.stream().allMatch(n -> "subject".equals(n.getTitle()) && "body".equals(n.getMessage())
+                        && "hash".equals(n.getMessageHash()))));
+        verify(logRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 3));
+        // Besedilo se shrani enkrat za vse vrstice batcha
+        verify(messageBodyStore, times(1)).storeAll(any());
     }
 
     @Test
@@ -153,14 +238,54 @@ class NotificationServiceTest {
         event.setRequesterEmail("john@example.com");
 
         template.setTemplateKey("REQUEST_ACCEPTED");
-        when(templateRepository.findByTemplateKey("REQUEST_ACCEPTED"))
+        when(templateCache.findByTemplateKey("REQUEST_ACCEPTED"))
             .thenReturn(Optional.of(template));
 
         // When
         notificationService.handleJoinRequestRespondedEvent(event);
 
         // Then
-        verify(templateRepository).findByTemplateKey("REQUEST_ACCEPTED");
+        verify(templateCache).findByTemplateKey("REQUEST_ACCEPTED");
+    }
+
+    @Test
+    void handleJoinRequestRespondedEvent_shouldQueueEmailInsteadOfSendingInline() throws Exception {
+        // Given
+        JoinRequestRespondedEvent event = new JoinRequestRespondedEvent();
+        event.setJoinRequestId(UUID.randomUUID());
+        event.setRequesterUserId(userId);
+        event.setOrganizationId(organizationId);
+        event.setOrganizationName("Test Org");
+        event.setEventType("APPROVED");
+        event.setRequesterFirstName("John");
+        event.setRequesterLastName("Doe");
+        event.setRequesterEmail("john@example.com");
+
+        template.setTemplateKey("REQUEST_ACCEPTED");
+        when(templateCache.findByTemplateKey("REQUEST_ACCEPTED"))
+            .thenReturn(Optional.of(template));
+        when(templateService.renderSubject(any(), any())).thenReturn("rendered");
+        when(templateService.renderBody(any(), any())).thenReturn("rendered");
+
+        // When
+        notificationService.handleJoinRequestRespondedEvent(event);
+
+        // Then - email se ne pošlje v transakciji handlerja, ampak se vstavi outbox naloga
+        verify(emailService, never()).sendEmail(any(), any(), any());
+        verify(deliveryTaskRepository).saveAll(argThat(tasks -> {
+            List<DeliveryTask> list = (List<DeliveryTask>) tasks;
+            if (list.size() != 1) {
+                return false;
+            }
+            DeliveryTask task = list.get(0);
+            return task.getChannel() == DeliveryChannel.EMAIL
+                    && "john@example.com".equals(task.getRecipient())
+                    && task.getStatus() == DeliveryTaskStatus.PENDING;
+        }));
+        verify(logRepository).saveAll(argThat(logs -> {
+            NotificationLog log = ((List<NotificationLog>) logs).get(0);
+            return log.getStatus() == NotificationStatus.PENDING;
+        }));
     }
 
     @Test
@@ -177,14 +302,14 @@ class NotificationServiceTest {
         event.setRequesterEmail("john@example.com");
 
         template.setTemplateKey("REQUEST_DECLINED");
-        when(templateRepository.findByTemplateKey("REQUEST_DECLINED"))
+        when(templateCache.findByTemplateKey("REQUEST_DECLINED"))
             .thenReturn(Optional.of(template));
 
         // When
         notificationService.handleJoinRequestRespondedEvent(event);
 
         // Then
-        verify(templateRepository).findByTemplateKey("REQUEST_DECLINED");
+        verify(templateCache).findByTemplateKey("REQUEST_DECLINED");
     }
 
     @Test
@@ -197,14 +322,14 @@ class NotificationServiceTest {
         event.setOrganizationName("Test Org");
 
         template.setTemplateKey("NEW_INVITATION");
-        when(templateRepository.findByTemplateKey("NEW_INVITATION"))
+        when(templateCache.findByTemplateKey("NEW_INVITATION"))
             .thenReturn(Optional.of(template));
 
         // When
         notificationService.handleInvitationSentEvent(event);
 
         // Then
-        verify(templateRepository).findByTemplateKey("NEW_INVITATION");
+        verify(templateCache).findByTemplateKey("NEW_INVITATION");
     }
 
     @Test
@@ -220,14 +345,14 @@ class NotificationServiceTest {
         event.setAdminIds(Arrays.asList(UUID.randomUUID().toString()));
 
         template.setTemplateKey("INVITATION_ACCEPTED");
-        when(templateRepository.findByTemplateKey("INVITATION_ACCEPTED"))
+        when(templateCache.findByTemplateKey("INVITATION_ACCEPTED"))
             .thenReturn(Optional.of(template));
 
         // When
         notificationService.handleInvitationRespondedEvent(event);
 
         // Then
-        verify(templateRepository).findByTemplateKey("INVITATION_ACCEPTED");
+        verify(templateCache).findByTemplateKey("INVITATION_ACCEPTED");
     }
 
     @Test
@@ -243,13 +368,40 @@ class NotificationServiceTest {
         event.setAdminIds(Arrays.asList(UUID.randomUUID().toString()));
 
         template.setTemplateKey("INVITATION_DECLINED");
-        when(templateRepository.findByTemplateKey("INVITATION_DECLINED"))
+        when(templateCache.findByTemplateKey("INVITATION_DECLINED"))
             .thenReturn(Optional.of(template));
 
         // When
         notificationService.handleInvitationRespondedEvent(event);
 
         // Then
-        verify(templateRepository).findByTemplateKey("INVITATION_DECLINED");
+        verify(templateCache).findByTemplateKey("INVITATION_DECLINED");
+    }
+
+    @Test
+    void recordReminders_shouldLogChunkAndMarkSentRemindersTogether() {
+        // Given
+        EventAttendeeReminder sent = new EventAttendeeReminder();
+        sent.setId(UUID.randomUUID());
+        sent.setEventId(eventId);
+        sent.setUserId(userId);
+        EventAttendeeReminder failed = new EventAttendeeReminder();
+        failed.setId(UUID.randomUUID());
+        failed.setEventId(eventId);
+        failed.setUserId(UUID.randomUUID());
+        UserDirectoryClient.UserResponse noEmailConsent = new UserDirectoryClient.UserResponse();
+        noEmailConsent.setEmailConsent(false);
+
+        // When
+        notificationService.recordReminders(List.of(
+                ReminderResult.sent(sent, new UserDirectoryClient.UserResponse(), "body", "sid-1"),
+                ReminderResult.failed(failed, noEmailConsent, "body", "Failed to send SMS")));
+
+        // Then
+        verify(logRepository).saveAll(argThat((List<NotificationLog> logs) -> logs.size() == 2
+                && logs.stream().anyMatch(log -> log.getStatus() == NotificationStatus.SENT && "sid-1".equals(log.getExternalId()))
+                && logs.stream().anyMatch(log -> log.getStatus() == NotificationStatus.FAILED)));
+        verify(eventAttendeeReminderRepository).markSent(eq(List.of(sent.getId())), any());
+        verify(messageBodyStore, times(1)).storeAll(any());
     }
 }
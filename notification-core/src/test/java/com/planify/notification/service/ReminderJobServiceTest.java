@@ -0,0 +1,247 @@
+package com.planify.notification.service;
+
+import com.planify.notification.dto.ReminderJobStatus;
+import com.planify.notification.model.EventAttendeeReminder;
+import com.planify.notification.repository.EventAttendeeReminderRepository;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReminderJobServiceTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime TO = FROM.plusDays(1);
+
+    @Mock
+    private EventAttendeeReminderRepository reminderRepository;
+
+    @Mock
+    private UserContactStore userContacts;
+
+    @Mock
+    private SmsService smsService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private InMemoryUserDirectory userDirectory;
+    private ReminderJobService service;
+
+    @BeforeEach
+    void setUp() {
+        userDirectory = new InMemoryUserDirectory();
+        UserDirectoryCache userDirectoryCache = new UserDirectoryCache(userDirectory, new SimpleMeterRegistry(), 300, 60, 1000, 100);
+        service = new ReminderJobService(reminderRepository, userContacts, userDirectoryCache, smsService, notificationService,
+                RateLimiterRegistry.ofDefaults(), 2, 2, 15);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void processChunk_shouldSendSmsAndRecordChunkOnce() {
+        // Given
+        EventAttendeeReminder first = attendee(false, FROM.plusHours(9));
+        EventAttendeeReminder second = attendee(false, FROM.plusHours(10));
+        userDirectory.add(first.getUserId(), "+38640111222", true);
+        userDirectory.add(second.getUserId(), "+38640111222", true);
+        when(smsService.sendSms(eq("+38640111222"), anyString(), eq(160))).thenReturn("sid-1", "sid-2");
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(first, second));
+
+        // Then
+        verify(notificationService, times(1)).recordReminders(argThat(results ->
+                results.size() == 2 && results.stream().allMatch(ReminderResult::isSent)));
+        assertEquals(2, job.status().sent());
+        assertEquals(0, job.status().failed());
+        // Oba uporabnika z enim klicem na user-service
+        assertEquals(1, userDirectory.requests().size());
+    }
+
+    @Test
+    void processChunk_shouldReadRecipientsFromContactProjection() {
+        // Given
+        EventAttendeeReminder first = attendee(false, FROM.plusHours(9));
+        EventAttendeeReminder second = attendee(false, FROM.plusHours(10));
+        when(userContacts.findForReminders(List.of(first.getId(), second.getId())))
+                .thenReturn(Map.of(first.getUserId(), contact(first.getUserId()), second.getUserId(), contact(second.getUserId())));
+        when(smsService.sendSms(eq("+38640111222"), anyString(), eq(160))).thenReturn("sid-1", "sid-2");
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(first, second));
+
+        // Then
+        assertEquals(2, job.status().sent());
+        assertTrue(userDirectory.requests().isEmpty());
+    }
+
+    @Test
+    void processChunk_shouldAskUserServiceOnlyForUsersMissingFromProjection() {
+        // Given
+        EventAttendeeReminder known = attendee(false, FROM.plusHours(9));
+        EventAttendeeReminder missing = attendee(false, FROM.plusHours(10));
+        when(userContacts.findForReminders(any())).thenReturn(Map.of(known.getUserId(), contact(known.getUserId())));
+        userDirectory.add(missing.getUserId(), "+38640111222", true);
+        when(smsService.sendSms(eq("+38640111222"), anyString(), eq(160))).thenReturn("sid-1", "sid-2");
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(known, missing));
+
+        // Then
+        assertEquals(2, job.status().sent());
+        assertEquals(List.of(List.of(missing.getUserId())), userDirectory.requests());
+    }
+
+    @Test
+    void processChunk_shouldSendToProjectedUsersWhenUserServiceIsDown() {
+        // Given
+        EventAttendeeReminder known = attendee(false, FROM.plusHours(9));
+        EventAttendeeReminder missing = attendee(false, FROM.plusHours(10));
+        when(userContacts.findForReminders(any())).thenReturn(Map.of(known.getUserId(), contact(known.getUserId())));
+        userDirectory.failWith(new IllegalStateException("user-service unavailable"));
+        when(smsService.sendSms(eq("+38640111222"), anyString(), eq(160))).thenReturn("sid-1");
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(known, missing));
+
+        // Then
+        verify(notificationService).recordReminders(argThat(results ->
+                results.size() == 1 && results.get(0).attendee() == known));
+        assertEquals(1, job.status().sent());
+        assertEquals(1, job.status().failed());
+    }
+
+    @Test
+    void processChunk_shouldFailChunkWhenUserLookupFails() {
+        // Given
+        userDirectory.failWith(new IllegalStateException("user-service unavailable"));
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(attendee(false, FROM.plusHours(9)), attendee(false, FROM.plusHours(10))));
+
+        // Then
+        verifyNoInteractions(smsService, notificationService);
+        assertEquals(2, job.status().failed());
+    }
+
+    @Test
+    void processChunk_shouldSkipUsersWithoutSmsConsent() {
+        // Given
+        EventAttendeeReminder attendee = attendee(false, FROM.plusHours(9));
+        userDirectory.add(attendee.getUserId(), "+38640111222", false);
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(attendee));
+
+        // Then
+        verifyNoInteractions(smsService, notificationService);
+        assertEquals(1, job.status().skipped());
+    }
+
+    @Test
+    void processChunk_shouldRecordFailedSms() {
+        // Given
+        EventAttendeeReminder attendee = attendee(false, FROM.plusHours(9));
+        userDirectory.add(attendee.getUserId(), "+38640111222", true);
+        when(smsService.sendSms(anyString(), anyString(), anyInt())).thenThrow(new RuntimeException("Failed to send SMS"));
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.processChunk(job, List.of(attendee));
+
+        // Then
+        verify(notificationService).recordReminders(argThat(results ->
+                results.size() == 1 && "Failed to send SMS".equals(results.get(0).error())));
+        assertEquals(1, job.status().failed());
+    }
+
+    @Test
+    void run_shouldClaimChunksUntilWindowIsDrained() {
+        // Given
+        EventAttendeeReminder first = attendee(false, FROM.plusHours(9));
+        EventAttendeeReminder second = attendee(false, FROM.plusHours(10));
+        EventAttendeeReminder third = attendee(false, FROM.plusHours(11));
+        for (EventAttendeeReminder attendee : List.of(first, second, third)) {
+            userDirectory.add(attendee.getUserId(), null, false);
+        }
+        when(reminderRepository.claimUnsent(eq(FROM), eq(TO), any(), any(), eq(2)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.run(job, FROM, TO);
+
+        // Then
+        ReminderJobStatus status = job.status();
+        assertEquals(ReminderJobStatus.State.COMPLETED, status.state());
+        assertEquals(3, status.attendees());
+        assertEquals(3, status.skipped());
+        assertNotNull(status.finishedAt());
+        // Zadnji chunk je bil krajši od chunk-size, zato ponovnega prevzema ni
+        verify(reminderRepository, times(2)).claimUnsent(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void run_shouldStopWhenNothingIsLeftToClaim() {
+        // Given
+        when(reminderRepository.claimUnsent(any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+        ReminderJob job = new ReminderJob(UUID.randomUUID());
+
+        // When
+        service.run(job, FROM, TO);
+
+        // Then
+        assertEquals(ReminderJobStatus.State.COMPLETED, job.status().state());
+        assertEquals(0, job.status().attendees());
+        verifyNoInteractions(notificationService);
+        assertTrue(userDirectory.requests().isEmpty());
+    }
+
+    private static UserDirectoryClient.UserResponse contact(UUID userId) {
+        UserDirectoryClient.UserResponse user = new UserDirectoryClient.UserResponse();
+        user.setId(userId);
+        user.setPhoneNumber("+38640111222");
+        user.setSmsConsent(true);
+        return user;
+    }
+
+    private EventAttendeeReminder attendee(boolean sent, OffsetDateTime startAt) {
+        EventAttendeeReminder attendee = new EventAttendeeReminder();
+        attendee.setId(UUID.randomUUID());
+        attendee.setEventId(UUID.randomUUID());
+        attendee.setUserId(UUID.randomUUID());
+        attendee.setEventTitle("Conference");
+        attendee.setEventStartAt(startAt);
+        attendee.setIsSent(sent);
+        return attendee;
+    }
+}
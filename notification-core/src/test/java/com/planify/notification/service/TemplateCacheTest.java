@@ -0,0 +1,121 @@
+package com.planify.notification.service;
+
+import com.planify.notification.kafka.TemplateChangeBroadcaster;
+import com.planify.notification.model.NotificationTemplate;
+import com.planify.notification.repository.NotificationTemplateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TemplateCacheTest {
+
+    @Mock
+    private NotificationTemplateRepository templateRepository;
+
+    @Mock
+    private TemplateService templateService;
+
+    @Mock
+    private ObjectProvider<TemplateChangeBroadcaster> broadcaster;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TemplateCache templateCache;
+    private NotificationTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        templateCache = new TemplateCache(templateRepository, templateService, broadcaster, meterRegistry);
+
+        template = new NotificationTemplate();
+        template.setTemplateKey("NEW_REQUEST");
+        template.setIsActive(true);
+    }
+
+    @Test
+    void warmUp_shouldServeTemplatesWithoutDatabase() {
+        // Given
+        when(templateRepository.findAll()).thenReturn(List.of(template));
+        templateCache.warmUp();
+
+        // When
+        Optional<NotificationTemplate> result = templateCache.findByTemplateKey("NEW_REQUEST");
+
+        // Then
+        assertEquals(Optional.of(template), result);
+        verify(templateRepository, never()).findByTemplateKey(any());
+        assertEquals(1.0, meterRegistry.get("notification.template.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void findByTemplateKey_shouldLoadOnceAndRememberMissingKeys() {
+        // Given
+        when(templateRepository.findByTemplateKey("MISSING")).thenReturn(Optional.empty());
+
+        // When
+        Optional<NotificationTemplate> first = templateCache.findByTemplateKey("MISSING");
+        Optional<NotificationTemplate> second = templateCache.findByTemplateKey("MISSING");
+
+        // Then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(templateRepository, times(1)).findByTemplateKey("MISSING");
+        assertEquals(1.0, meterRegistry.get("notification.template.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void findByTemplateKeyAndIsActiveTrue_shouldSkipInactiveTemplate() {
+        // Given
+        template.setIsActive(false);
+        when(templateRepository.findByTemplateKey("NEW_REQUEST")).thenReturn(Optional.of(template));
+
+        // When
+        Optional<NotificationTemplate> result = templateCache.findByTemplateKeyAndIsActiveTrue("NEW_REQUEST");
+
+        // Then
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void evict_shouldReloadTemplateAndNotifyOtherReplicas() {
+        // Given
+        when(templateRepository.findByTemplateKey("NEW_REQUEST")).thenReturn(Optional.of(template));
+        templateCache.findByTemplateKey("NEW_REQUEST");
+
+        // When
+        templateCache.evict("NEW_REQUEST");
+        templateCache.findByTemplateKey("NEW_REQUEST");
+
+        // Then
+        verify(templateRepository, times(2)).findByTemplateKey("NEW_REQUEST");
+        verify(templateService).invalidate("NEW_REQUEST");
+        verify(broadcaster).ifAvailable(any());
+    }
+
+    @Test
+    void invalidateLocal_shouldClearEverythingForAllKey() {
+        // Given
+        when(templateRepository.findAll()).thenReturn(List.of(template));
+        templateCache.warmUp();
+
+        // When
+        templateCache.invalidateLocal(TemplateCache.ALL);
+
+        // Then
+        assertEquals(0.0, meterRegistry.get("notification.template.cache.size").gauge().value());
+        verify(templateService).invalidateAll();
+        verifyNoInteractions(broadcaster);
+    }
+}
@@ -0,0 +1,83 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.NotificationTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateServiceTest {
+
+    private TemplateService templateService;
+    private NotificationTemplate template;
+    private Map<String, Object> variables;
+
+    @BeforeEach
+    void setUp() {
+        templateService = new TemplateService();
+
+        template = new NotificationTemplate();
+        template.setTemplateKey("NEW_REQUEST");
+        template.setSubject("Nova prošnja za $${orgName}");
+        template.setBodyTemplate("<h2>Pozdravljeni!</h2><p>Uporabnik <b>$${userName}</b> želi v $${ orgName }.</p><p>$${missing}</p>");
+        template.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+
+        variables = new HashMap<>();
+        variables.put("userName", "Ana <script>alert('x')</script> & \"co\"");
+        variables.put("orgName", "Planify");
+    }
+
+    @Test
+    void renderBody_shouldMatchThymeleafOutput() {
+        // When
+        String cached = templateService.renderBody(template, variables);
+        String thymeleaf = templateService.renderTemplate(template.getBodyTemplate(), variables);
+
+        // Then
+        assertEquals(thymeleaf, cached);
+        assertFalse(cached.contains("<script>"));
+    }
+
+    @Test
+    void renderSubject_shouldMatchThymeleafOutput() {
+        assertEquals(templateService.renderTemplate(template.getSubject(), variables),
+                templateService.renderSubject(template, variables));
+    }
+
+    @Test
+    void renderBody_shouldFallBackToThymeleafForExpressions() {
+        // Given
+        template.setBodyTemplate("<p>$${userName.toUpperCase()}</p>");
+
+        // When / Then
+        assertEquals(templateService.renderTemplate(template.getBodyTemplate(), variables),
+                templateService.renderBody(template, variables));
+    }
+
+    @Test
+    void invalidate_shouldPickUpChangedTemplate() {
+        // Given
+        templateService.renderBody(template, variables);
+        template.setBodyTemplate("<p>Novo: $${orgName}</p>");
+
+        // When
+        templateService.invalidate("NEW_REQUEST");
+
+        // Then
+        assertEquals("<div><p>Novo: Planify</p></div>", templateService.renderBody(template, variables));
+    }
+
+    @Test
+    void renderBody_shouldNotServeStalePlanWhenSourceChangesWithoutNewVersion() {
+        // Given
+        templateService.renderBody(template, variables);
+        template.setBodyTemplate("<p>$${orgName}</p>");
+
+        // When / Then
+        assertEquals("<div><p>Planify</p></div>", templateService.renderBody(template, variables));
+    }
+}
@@ -0,0 +1,120 @@
+package com.planify.notification.service;
+
+import com.planify.notification.model.UnreadCounter;
+import com.planify.notification.repository.UnreadCounterRepository;
+import com.planify.notification.websocket.NotificationWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadCountServiceTest {
+
+    @Mock
+    private UnreadCounterRepository unreadCounterRepository;
+
+    @Mock
+    private NotificationWebSocketHandler webSocketHandler;
+
+    @InjectMocks
+    private UnreadCountService unreadCountService;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void getUnreadCount_shouldReadCounterRow() {
+        // Given
+        when(unreadCounterRepository.findById(userId)).thenReturn(Optional.of(new UnreadCounter(userId, 7L)));
+
+        // When & Then
+        assertEquals(7L, unreadCountService.getUnreadCount(userId));
+    }
+
+    @Test
+    void getUnreadCount_shouldReturnZeroWithoutCounterRow() {
+        // Given
+        when(unreadCounterRepository.findById(userId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertEquals(0L, unreadCountService.getUnreadCount(userId));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pushPendingCounts_shouldSendOneUpdatePerUser() {
+        // Given
+        when(unreadCounterRepository.findAllById(anyIterable())).thenReturn(List.of(new UnreadCounter(userId, 10L)));
+        unreadCountService.requestPush(userId);
+        unreadCountService.requestPush(userId);
+        unreadCountService.requestPush(userId);
+
+        ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
+
+        // When
+        unreadCountService.pushPendingCounts();
+
+        // Then
+        verify(unreadCounterRepository).findAllById(List.of(userId));
+        verify(webSocketHandler).sendNotificationToUser(eq(userId.toString()), captor.capture(), eq("NOTIFICATION_COUNT_UPDATE"));
+
+        Map<String, Object> sentData = captor.getValue();
+        assertEquals(10L, sentData.get("unreadCount"));
+        assertEquals(userId.toString(), sentData.get("userId"));
+        assertEquals("NOTIFICATION_COUNT_UPDATE", sentData.get("type"));
+    }
+
+    @Test
+    void pushPendingCounts_shouldSendZeroWithoutCounterRow() {
+        // Given
+        when(unreadCounterRepository.findAllById(anyIterable())).thenReturn(List.of());
+        unreadCountService.requestPush(userId);
+
+        // When
+        unreadCountService.pushPendingCounts();
+
+        // Then
+        verify(webSocketHandler).sendNotificationToUser(eq(userId.toString()),
+                eq(Map.of("unreadCount", 0L, "userId", userId.toString(), "type", "NOTIFICATION_COUNT_UPDATE")),
+                eq("NOTIFICATION_COUNT_UPDATE"));
+    }
+
+    @Test
+    void pushPendingCounts_shouldDoNothingWithoutRequests() {
+        // When
+        unreadCountService.pushPendingCounts();
+
+        // Then
+        verifyNoInteractions(unreadCounterRepository, webSocketHandler);
+    }
+
+    @Test
+    void pushPendingCounts_shouldHandleExceptions() {
+        // Given
+        when(unreadCounterRepository.findAllById(anyIterable())).thenThrow(new RuntimeException("Database error"));
+        unreadCountService.requestPush(userId);
+
+        // When & Then
+        assertDoesNotThrow(() -> unreadCountService.pushPendingCounts());
+        verify(webSocketHandler, never()).sendNotificationToUser(any(), any(), any());
+    }
+}
@@ -0,0 +1,156 @@
+package com.planify.notification.service;
+
+import com.planify.notification.event.UserUpdatedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserContactStoreTest {
+
+    private static final Instant UPDATED_AT = Instant.parse("2025-03-01T10:00:00Z");
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserDirectoryCache userDirectoryCache;
+
+    private UserContactStore userContactStore;
+
+    @BeforeEach
+    void setUp() {
+        userContactStore = new UserContactStore(jdbcTemplate, userDirectoryCache);
+    }
+
+    @Test
+    void applyAll_shouldWriteOnlyLatestUpdatePerUser() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UserUpdatedEvent newer = update(userId, "+38640222333", UPDATED_AT.plusSeconds(60));
+        UserUpdatedEvent older = update(userId, "+38640111222", UPDATED_AT);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1});
+
+        // When
+        int written = userContactStore.applyAll(Arrays.asList(newer, older, update(null, "+38640999999", UPDATED_AT), null));
+
+        // Then
+        ArgumentCaptor<SqlParameterSource[]> rows = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().length);
+        assertEquals("+38640222333", rows.getValue()[0].getValue("phoneNumber"));
+        assertEquals(1, written);
+        verify(userDirectoryCache).invalidate(userId);
+    }
+
+    @Test
+    void applyAll_shouldInvalidateCacheOnlyAfterCommit() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1});
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            userContactStore.applyAll(List.of(update(userId, "+38640111222", UPDATED_AT)));
+
+            // Then
+            verifyNoInteractions(userDirectoryCache);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(userDirectoryCache).invalidate(userId);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void applyAll_shouldRejectUpdateWithoutUpdatedAt() {
+        // Given
+        UserUpdatedEvent undated = update(UUID.randomUUID(), "+38640111222", null);
+
+        // When
+        int written = userContactStore.applyAll(List.of(undated));
+
+        // Then
+        assertEquals(0, written);
+        verifyNoInteractions(jdbcTemplate, userDirectoryCache);
+    }
+
+    @Test
+    void applyAll_shouldDropContactsOfDeletedUser() {
+        // Given
+        UserUpdatedEvent deleted = update(UUID.randomUUID(), "+38640111222", UPDATED_AT);
+        deleted.setDeleted(true);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1});
+
+        // When
+        userContactStore.applyAll(List.of(deleted));
+
+        // Then
+        ArgumentCaptor<SqlParameterSource[]> rows = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        SqlParameterSource row = rows.getValue()[0];
+        assertNull(row.getValue("phoneNumber"));
+        assertNull(row.getValue("email"));
+        assertEquals(false, row.getValue("smsConsent"));
+        assertEquals(true, row.getValue("deleted"));
+    }
+
+    @Test
+    void findForReminders_shouldMapJoinedContacts() throws Exception {
+        // Given
+        UUID userId = UUID.randomUUID();
+        // Lenient: vrstica bere tudi stolpce, ki jih test ne nastavi
+        ResultSet rs = mock(ResultSet.class, withSettings().strictness(Strictness.LENIENT));
+        when(rs.getObject("user_id", UUID.class)).thenReturn(userId);
+        when(rs.getString("phone_number")).thenReturn("+38640111222");
+        when(rs.getBoolean("sms_consent")).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        // When
+        Map<UUID, UserDirectoryClient.UserResponse> users = userContactStore.findForReminders(List.of(UUID.randomUUID()));
+
+        // Then
+        assertEquals("+38640111222", users.get(userId).getPhoneNumber());
+        assertTrue(users.get(userId).getSmsConsent());
+    }
+
+    @Test
+    void findForReminders_shouldSkipQueryForEmptyChunk() {
+        // When & Then
+        assertTrue(userContactStore.findForReminders(List.of()).isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static UserUpdatedEvent update(UUID userId, String phone, Instant updatedAt) {
+        UserUpdatedEvent event = new UserUpdatedEvent();
+        event.setUserId(userId);
+        event.setPhoneNumber(phone);
+        event.setSmsConsent(true);
+        event.setUpdatedAt(updatedAt);
+        return event;
+    }
+}
@@ -0,0 +1,145 @@
+package com.planify.notification.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDirectoryCacheTest {
+
+    private InMemoryUserDirectory directory;
+    private SimpleMeterRegistry meterRegistry;
+    private UserDirectoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        directory = new InMemoryUserDirectory();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserDirectoryCache(directory, meterRegistry, 300, 60, 1000, 2);
+    }
+
+    @Test
+    void getUsers_shouldFetchMissesInBatchesAndServeRepeatsFromCache() {
+        // Given
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        directory.add(first, "+38640111111", true);
+        directory.add(second, "+38640222222", true);
+        directory.add(third, "+38640333333", false);
+
+        // When
+        Map<UUID, UserDirectoryClient.UserResponse> users = cache.getUsers(List.of(first, second, third, first));
+        cache.getUsers(List.of(first, second, third));
+
+        // Then
+        assertEquals(3, users.size());
+        assertEquals(2, directory.requests().size());
+        assertEquals(List.of(first, second), directory.requests().get(0));
+        assertEquals(3.0, meterRegistry.counter("notification.user.cache.requests", "result", "hit").count());
+        assertEquals(3.0, meterRegistry.counter("notification.user.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void getUser_shouldCacheMissingUsers() {
+        // Given
+        UUID missing = UUID.randomUUID();
+
+        // When
+        boolean firstFound = cache.getUser(missing).isPresent();
+        boolean secondFound = cache.getUser(missing).isPresent();
+
+        // Then
+        assertFalse(firstFound);
+        assertFalse(secondFound);
+        assertEquals(1, directory.requests().size());
+    }
+
+    @Test
+    void getUser_shouldRefetchExpiredEntries() {
+        // Given
+        UserDirectoryCache expiring = new UserDirectoryCache(directory, meterRegistry, 0, 0, 1000, 100);
+        UUID userId = UUID.randomUUID();
+        directory.add(userId, "+38640111111", true);
+
+        // When
+        expiring.getUser(userId);
+        expiring.getUser(userId);
+
+        // Then
+        assertEquals(2, directory.requests().size());
+    }
+
+    @Test
+    void getUsers_shouldNotCacheFailures() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        directory.add(userId, "+38640111111", true);
+        directory.failWith(new IllegalStateException("user-service unavailable"));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> cache.getUser(userId));
+        directory.failWith(null);
+
+        // Then
+        assertTrue(cache.getUser(userId).isPresent());
+        assertEquals(2, directory.requests().size());
+    }
+
+    @Test
+    void getUsers_shouldEvictLeastRecentlyUsedEntriesOverMaxSize() {
+        // Given
+        UserDirectoryCache small = new UserDirectoryCache(directory, meterRegistry, 300, 60, 2, 100);
+
+        // When
+        small.getUsers(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()));
+
+        // Then
+        assertEquals(2, small.size());
+    }
+
+    @Test
+    void getUser_shouldShareInFlightLookupBetweenConcurrentCallers() throws Exception {
+        // Given
+        UUID userId = UUID.randomUUID();
+        directory.add(userId, "+38640111111", true);
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        directory.beforeLookup(() -> {
+            lookupStarted.countDown();
+            release.join();
+        });
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            // When
+            Future<Boolean> first = executor.submit(() -> cache.getUser(userId).isPresent());
+            assertTrue(lookupStarted.await(5, TimeUnit.SECONDS));
+            Future<Boolean> second = executor.submit(() -> cache.getUser(userId).isPresent());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("notification.user.cache.requests", "result", "coalesced").count() < 1
+                    && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.complete(null);
+
+            // Then
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, directory.requests().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
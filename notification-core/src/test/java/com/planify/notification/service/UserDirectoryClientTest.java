@@ -0,0 +1,116 @@
+package com.planify.notification.service;
+
+import com.planify.notification.config.AppConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Klient proti lokalnemu stub strežniku (brez resilience4j, ta deluje le v Spring kontekstu).
+ */
+class UserDirectoryClientTest {
+
+    private static final UUID KNOWN_USER = UUID.fromString("3f6c1d2e-8a4b-4c1d-9e2f-1a2b3c4d5e6f");
+    private static final AppConfig.HttpClientSettings SETTINGS =
+            new AppConfig.HttpClientSettings(1000, 2000, 500, 10, 5, 30_000, false);
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/users/lookup", exchange -> respond(exchange, 200,
+                "[{\"id\":\"" + KNOWN_USER + "\",\"phoneNumber\":\"+38640111222\",\"smsConsent\":true}]"));
+        server.createContext("/api/users/", exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith(KNOWN_USER.toString())) {
+                respond(exchange, 200, "{\"id\":\"" + KNOWN_USER + "\",\"email\":\"ana@example.com\",\"emailConsent\":true}");
+            } else {
+                respond(exchange, 500, "{}");
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void findUsers_shouldMapUsersByIdOverPooledClient() {
+        // Given
+        UserDirectoryClient client = client(AppConfig.pooledRequestFactory(SETTINGS, meterRegistry));
+
+        // When
+        Map<UUID, UserDirectoryClient.UserResponse> users = client.findUsers(List.of(KNOWN_USER, UUID.randomUUID()));
+
+        // Then
+        assertEquals(1, users.size());
+        assertEquals("+38640111222", users.get(KNOWN_USER).getPhoneNumber());
+        assertEquals(1, meterRegistry.timer("notification.user_service.request.time",
+                "operation", "lookup", "outcome", "success").count());
+        assertEquals(10.0, meterRegistry.get("notification.user_service.pool.max").gauge().value());
+    }
+
+    @Test
+    void getUser_shouldReturnUserOverJdkClient() {
+        // Given
+        UserDirectoryClient client = client(AppConfig.jdkRequestFactory(SETTINGS));
+
+        // When
+        UserDirectoryClient.UserResponse user = client.getUser(KNOWN_USER);
+
+        // Then
+        assertEquals("ana@example.com", user.getEmail());
+    }
+
+    @Test
+    void getUser_shouldRecordFailedCalls() {
+        // Given
+        UserDirectoryClient client = client(AppConfig.pooledRequestFactory(SETTINGS, meterRegistry));
+
+        // When
+        assertThrows(RestClientException.class, () -> client.getUser(UUID.randomUUID()));
+
+        // Then
+        assertEquals(1, meterRegistry.timer("notification.user_service.request.time",
+                "operation", "get", "outcome", "error").count());
+        assertEquals(0.0, meterRegistry.get("notification.user_service.pool.connections").tag("state", "leased").gauge().value());
+    }
+
+    private UserDirectoryClient client(ClientHttpRequestFactory requestFactory) {
+        RestClient restClient = RestClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .requestFactory(requestFactory)
+                .build();
+        return new UserDirectoryClient(restClient, meterRegistry, "/api/users/{id}", "/api/users/lookup");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -7,14 +7,15 @@ import com.planify.notification.websocket.NotificationWebSocketHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +32,12 @@ class WebSocketNotificationServiceTest {
     @Mock
     private NotificationWebSocketHandler webSocketHandler;
 
+    @Mock
+    private UnreadCountService unreadCountService;
+
+    @Mock
+    private MessageBodyStore messageBodyStore;
+
     @InjectMocks
     private WebSocketNotificationService webSocketNotificationService;
 
@@ -79,6 +86,28 @@ class WebSocketNotificationServiceTest {
         verify(webSocketHandler).sendNotificationToUser(eq(userId.toString()), any(InAppNotificationDto.class));
     }
 
+    @Test
+    void sendInAppNotification_shouldReferenceStoredMessage() {
+        // Given
+        when(messageBodyStore.store("Test Message")).thenReturn("hash");
+        when(inAppNotificationRepository.save(any(InAppNotification.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        InAppNotification result = webSocketNotificationService.sendInAppNotification(
+            userId,
+            "Test Notification",
+            "Test Message",
+            "test_type",
+            referenceId,
+            "test_reference"
+        );
+
+        // Then
+        assertEquals("hash", result.getMessageHash());
+        assertEquals("Test Message", result.getMessage());
+    }
+
     @Test
     void sendInAppNotification_shouldHandleWebSocketFailure() {
         // Given
@@ -103,6 +132,42 @@ class WebSocketNotificationServiceTest {
         verify(webSocketHandler).sendNotificationToUser(anyString(), any());
     }
 
+    @Test
+    void sendInAppNotifications_shouldPushOnlyAfterCommit() {
+        // Given
+        when(inAppNotificationRepository.saveAll(List.of(notification))).thenReturn(List.of(notification));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            webSocketNotificationService.sendInAppNotifications(List.of(notification));
+
+            // Then
+            verifyNoInteractions(webSocketHandler);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(webSocketHandler).sendNotificationToUser(eq(userId.toString()), any(InAppNotificationDto.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendInAppNotifications_shouldNotPushWhenTransactionRollsBack() {
+        // Given
+        when(inAppNotificationRepository.saveAll(List.of(notification))).thenReturn(List.of(notification));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            webSocketNotificationService.sendInAppNotifications(List.of(notification));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // Then
+            verifyNoInteractions(webSocketHandler);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     @Test
     void sendToUser_shouldCallWebSocketHandler() {
         // Given
@@ -130,6 +195,31 @@ class WebSocketNotificationServiceTest {
         verify(webSocketHandler).broadcastNotification(dto);
     }
 
+    @Test
+    void sendToUsers_shouldMulticastThroughWebSocketHandler() {
+        // Given
+        InAppNotificationDto dto = new InAppNotificationDto();
+        List<String> userIds = List.of(userId.toString(), UUID.randomUUID().toString());
+
+        // When
+        webSocketNotificationService.sendToUsers(userIds, dto);
+
+        // Then
+        verify(webSocketHandler).multicast(userIds, dto);
+    }
+
+    @Test
+    void sendToTopic_shouldCallWebSocketHandler() {
+        // Given
+        InAppNotificationDto dto = new InAppNotificationDto();
+
+        // When
+        webSocketNotificationService.sendToTopic("organization:1", dto);
+
+        // Then
+        verify(webSocketHandler).sendToTopic("organization:1", dto);
+    }
+
     @Test
     void isUserOnline_shouldReturnWebSocketHandlerResult() {
         // Given
@@ -158,35 +248,12 @@ class WebSocketNotificationServiceTest {
     }
 
     @Test
-    void sendNotificationCountUpdate_shouldSendCorrectCountToUser() {
-        // Given
-        long unreadCount = 10L;
-        when(inAppNotificationRepository.countByUserIdAndIsReadFalse(userId))
-            .thenReturn(unreadCount);
-
-        ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
-
+    void sendNotificationCountUpdate_shouldRequestCoalescedPush() {
         // When
         webSocketNotificationService.sendNotificationCountUpdate(userId);
 
         // Then
-        verify(inAppNotificationRepository).countByUserIdAndIsReadFalse(userId);
-        verify(webSocketHandler).sendNotificationToUser(eq(userId.toString()), captor.capture());
-        
-        Map<String, Object> sentData = captor.getValue();
-        assertEquals(unreadCount, sentData.get("unreadCount"));
-        assertEquals(userId.toString(), sentData.get("userId"));
-        assertEquals("NOTIFICATION_COUNT_UPDATE", sentData.get("type"));
-    }
-
-    @Test
-    void sendNotificationCountUpdate_shouldHandleExceptions() {
-        // Given
-        when(inAppNotificationRepository.countByUserIdAndIsReadFalse(userId))
-            .thenThrow(new RuntimeException("Database error"));
-
-        // When & Then
-        assertDoesNotThrow(() -> webSocketNotificationService.sendNotificationCountUpdate(userId));
-        verify(inAppNotificationRepository).countByUserIdAndIsReadFalse(userId);
+        verify(unreadCountService).requestPush(userId);
+        verifyNoInteractions(inAppNotificationRepository, webSocketHandler);
     }
 }
@@ -0,0 +1,189 @@
+package com.planify.notification.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationWebSocketHandlerTest {
+
+    private WebSocketSessionRegistry registry;
+    private ObjectMapper objectMapper;
+    private WebSocketTopicAccess topicAccess;
+    private NotificationWebSocketHandler handler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new WebSocketSessionRegistry();
+        objectMapper = spy(new ObjectMapper());
+        WebSocketSendMetrics metrics = new WebSocketSendMetrics(new SimpleMeterRegistry());
+
+        // Vrste se praznijo takoj na klicateljevi niti
+        WebSocketSender sender = mock(WebSocketSender.class);
+        when(sender.open(any())).thenAnswer(invocation -> new OutboundSession(
+                invocation.getArgument(0), 16, OverflowPolicy.COALESCE, Runnable::run, metrics));
+
+        topicAccess = mock(WebSocketTopicAccess.class);
+        handler = new NotificationWebSocketHandler(registry, sender, mock(ObjectProvider.class), topicAccess, objectMapper);
+    }
+
+    @Test
+    void sendNotificationToUser_shouldReachEveryTabOfUser() throws Exception {
+        // Given
+        WebSocketSession tab1 = connect("s1", "user-1");
+        WebSocketSession tab2 = connect("s2", "user-1");
+
+        // When
+        handler.sendNotificationToUser("user-1", Map.of("title", "Hi"));
+
+        // Then
+        verify(tab1).sendMessage(new TextMessage("{\"title\":\"Hi\"}"));
+        verify(tab2).sendMessage(new TextMessage("{\"title\":\"Hi\"}"));
+    }
+
+    @Test
+    void afterConnectionClosed_shouldKeepOtherTabsConnected() throws Exception {
+        // Given
+        WebSocketSession tab1 = connect("s1", "user-1");
+        WebSocketSession tab2 = connect("s2", "user-1");
+
+        // When
+        handler.afterConnectionClosed(tab1, CloseStatus.NORMAL);
+        handler.sendNotificationToUser("user-1", Map.of("title", "Hi"));
+
+        // Then
+        assertTrue(handler.isUserConnected("user-1"));
+        assertEquals(1, handler.getActiveConnectionCount());
+        verify(tab1, never()).sendMessage(any());
+        verify(tab2).sendMessage(any());
+    }
+
+    @Test
+    void multicast_shouldSerializePayloadOnce() throws Exception {
+        // Given
+        WebSocketSession first = connect("s1", "user-1");
+        WebSocketSession second = connect("s2", "user-2");
+        WebSocketSession notAddressed = connect("s3", "user-3");
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("title", "Hi");
+
+        // When
+        handler.multicast(List.of("user-1", "user-2"), payload);
+
+        // Then
+        verify(objectMapper, times(1)).writeValueAsBytes(payload);
+        verify(first).sendMessage(any());
+        verify(second).sendMessage(any());
+        verify(notAddressed, never()).sendMessage(any());
+    }
+
+    @Test
+    void sendToTopic_shouldReachOnlySubscribedSessions() throws Exception {
+        // Given
+        WebSocketSession member = connect("s1", "user-1");
+        WebSocketSession other = connect("s2", "user-2");
+        when(topicAccess.canSubscribe("user-1", "organization:42")).thenReturn(true);
+        when(topicAccess.permittedUsers("organization:42", Set.of("user-1"))).thenReturn(Set.of("user-1"));
+        handler.handleTextMessage(member, new TextMessage("{\"type\":\"SUBSCRIBE\",\"topic\":\"organization:42\"}"));
+
+        // When
+        handler.sendToTopic("organization:42", Map.of("title", "Hi"));
+
+        // Then
+        verify(member).sendMessage(any());
+        verify(other, never()).sendMessage(any());
+    }
+
+    @Test
+    void sendToTopic_shouldUnsubscribeSessionWhoseAccessWasRevoked() throws Exception {
+        // Given
+        WebSocketSession admin = connect("s1", "user-1");
+        WebSocketSession revoked = connect("s2", "user-2");
+        when(topicAccess.canSubscribe(any(), eq("organization:42"))).thenReturn(true);
+        handler.handleTextMessage(admin, new TextMessage("{\"type\":\"SUBSCRIBE\",\"topic\":\"organization:42\"}"));
+        handler.handleTextMessage(revoked, new TextMessage("{\"type\":\"SUBSCRIBE\",\"topic\":\"organization:42\"}"));
+        when(topicAccess.permittedUsers("organization:42", Set.of("user-1", "user-2"))).thenReturn(Set.of("user-1"));
+
+        // When
+        handler.sendToTopic("organization:42", Map.of("title", "Hi"));
+
+        // Then
+        verify(admin).sendMessage(any());
+        verify(revoked, never()).sendMessage(any());
+        assertEquals(1, registry.subscribersOf("organization:42").size());
+    }
+
+    @Test
+    void sendToTopic_shouldDeliverNothingWhenAccessCannotBeChecked() throws Exception {
+        // Given
+        WebSocketSession member = connect("s1", "user-1");
+        when(topicAccess.canSubscribe("user-1", "organization:42")).thenReturn(true);
+        handler.handleTextMessage(member, new TextMessage("{\"type\":\"SUBSCRIBE\",\"topic\":\"organization:42\"}"));
+        when(topicAccess.permittedUsers(eq("organization:42"), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        // When
+        handler.sendToTopic("organization:42", Map.of("title", "Hi"));
+
+        // Then
+        verify(member, never()).sendMessage(any());
+        assertEquals(1, registry.subscribersOf("organization:42").size());
+    }
+
+    @Test
+    void handleTextMessage_shouldRefuseSubscriptionWithoutAccess() throws Exception {
+        // Given
+        WebSocketSession outsider = connect("s1", "user-1");
+        when(topicAccess.canSubscribe("user-1", "organization:42")).thenReturn(false);
+
+        // When
+        handler.handleTextMessage(outsider, new TextMessage("{\"type\":\"SUBSCRIBE\",\"topic\":\"organization:42\"}"));
+        handler.sendToTopic("organization:42", Map.of("title", "Hi"));
+
+        // Then
+        assertTrue(registry.subscribersOf("organization:42").isEmpty());
+        verify(outsider, never()).sendMessage(any());
+    }
+
+    @Test
+    void sendToTopic_shouldSkipUnsubscribedSession() throws Exception {
+        // Given
+        WebSocketSession member = connect("s1", "user-1");
+        when(topicAccess.canSubscribe("user-1", "organization:42")).thenReturn(true);
+        handler.handleTextMessage(member, new TextMessage("{\"type\":\"SUBSCRIBE\",\"topic\":\"organization:42\"}"));
+        handler.handleTextMessage(member, new TextMessage("{\"type\":\"UNSUBSCRIBE\",\"topic\":\"organization:42\"}"));
+
+        // When
+        handler.sendToTopic("organization:42", Map.of("title", "Hi"));
+
+        // Then
+        verify(member, never()).sendMessage(any());
+    }
+
+    private WebSocketSession connect(String sessionId, String userId) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.isOpen()).thenReturn(true);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("userId", userId);
+        when(session.getAttributes()).thenReturn(attributes);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+}
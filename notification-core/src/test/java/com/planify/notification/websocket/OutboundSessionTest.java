@@ -0,0 +1,146 @@
+package com.planify.notification.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundSessionTest {
+
+    private WebSocketSession session;
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSendMetrics metrics;
+    // Naloge se ne izvedejo takoj, da lahko napolnimo vrsto
+    private List<Runnable> tasks;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new WebSocketSendMetrics(meterRegistry);
+        tasks = new ArrayList<>();
+    }
+
+    @Test
+    void offer_shouldSendQueuedMessagesInOrderOffCallerThread() throws Exception {
+        // Given
+        OutboundSession outbound = outbound(10, OverflowPolicy.DROP_OLDEST);
+        TextMessage first = new TextMessage("1");
+        TextMessage second = new TextMessage("2");
+
+        // When
+        assertTrue(outbound.offer(first, null));
+        assertTrue(outbound.offer(second, null));
+
+        // Then
+        verify(session, never()).sendMessage(any());
+        assertEquals(1, tasks.size());
+        assertEquals(2, metrics.queueDepth());
+
+        runTasks();
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).sendMessage(first);
+        inOrder.verify(session).sendMessage(second);
+        assertEquals(0, metrics.queueDepth());
+        assertEquals(2, meterRegistry.get("notification.websocket.send.time").timer().count());
+    }
+
+    @Test
+    void offer_shouldReplacePendingMessageWithSameKey() throws Exception {
+        // Given
+        OutboundSession outbound = outbound(10, OverflowPolicy.COALESCE);
+        TextMessage staleCount = new TextMessage("{\"unreadCount\":1}");
+        TextMessage notification = new TextMessage("{\"title\":\"x\"}");
+        TextMessage freshCount = new TextMessage("{\"unreadCount\":2}");
+
+        // When
+        outbound.offer(staleCount, "NOTIFICATION_COUNT_UPDATE");
+        outbound.offer(notification, null);
+        outbound.offer(freshCount, "NOTIFICATION_COUNT_UPDATE");
+        runTasks();
+
+        // Then
+        InOrder inOrder = inOrder(session);
+        inOrder.verify(session).sendMessage(notification);
+        inOrder.verify(session).sendMessage(freshCount);
+        verify(session, never()).sendMessage(staleCount);
+        assertEquals(1.0, meterRegistry.get("notification.websocket.send.coalesced").counter().count());
+    }
+
+    @Test
+    void offer_shouldDropOldestWhenQueueIsFull() throws Exception {
+        // Given
+        OutboundSession outbound = outbound(2, OverflowPolicy.DROP_OLDEST);
+        TextMessage first = new TextMessage("1");
+        TextMessage second = new TextMessage("2");
+        TextMessage third = new TextMessage("3");
+
+        // When
+        outbound.offer(first, null);
+        outbound.offer(second, null);
+        outbound.offer(third, null);
+        runTasks();
+
+        // Then
+        verify(session, never()).sendMessage(first);
+        verify(session).sendMessage(second);
+        verify(session).sendMessage(third);
+        assertEquals(1.0, meterRegistry.get("notification.websocket.send.dropped").counter().count());
+    }
+
+    @Test
+    void offer_shouldCloseSessionWhenQueueIsFull() throws Exception {
+        // Given
+        OutboundSession outbound = outbound(1, OverflowPolicy.CLOSE_SESSION);
+        outbound.offer(new TextMessage("1"), null);
+
+        // When
+        boolean accepted = outbound.offer(new TextMessage("2"), null);
+        runTasks();
+
+        // Then
+        assertFalse(accepted);
+        assertFalse(outbound.isOpen());
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+        assertEquals(0, metrics.queueDepth());
+        assertEquals(2.0, meterRegistry.get("notification.websocket.send.dropped").counter().count());
+    }
+
+    @Test
+    void discard_shouldRejectFurtherMessages() {
+        // Given
+        OutboundSession outbound = outbound(10, OverflowPolicy.COALESCE);
+        outbound.offer(new TextMessage("1"), null);
+
+        // When
+        int discarded = outbound.discard();
+
+        // Then
+        assertEquals(1, discarded);
+        assertFalse(outbound.offer(new TextMessage("2"), null));
+        assertEquals(0, metrics.queueDepth());
+    }
+
+    private OutboundSession outbound(int capacity, OverflowPolicy policy) {
+        return new OutboundSession(session, capacity, policy, tasks::add, metrics);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.planify.notification.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WebSocketSessionRegistryTest {
+
+    private WebSocketSessionRegistry registry;
+    private WebSocketSendMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new WebSocketSessionRegistry();
+        metrics = new WebSocketSendMetrics(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void register_shouldKeepAllSessionsOfUser() {
+        // Given
+        OutboundSession tab1 = session("s1");
+        OutboundSession tab2 = session("s2");
+
+        // When
+        registry.register("user-1", tab1);
+        registry.register("user-1", tab2);
+
+        // Then
+        assertEquals(2, registry.sessionsOf("user-1").size());
+        assertEquals(2, registry.sessionCount());
+        assertEquals(1, registry.userCount());
+    }
+
+    @Test
+    void unregister_shouldRemoveOnlyClosedSession() {
+        // Given
+        OutboundSession tab1 = session("s1");
+        WebSocketSession socket2 = mock(WebSocketSession.class);
+        when(socket2.getId()).thenReturn("s2");
+        when(socket2.isOpen()).thenReturn(true);
+        OutboundSession tab2 = new OutboundSession(socket2, 10, OverflowPolicy.COALESCE, Runnable::run, metrics);
+        registry.register("user-1", tab1);
+        registry.register("user-1", tab2);
+
+        // When
+        registry.unregister("user-1", "s1");
+
+        // Then
+        assertTrue(registry.isConnected("user-1"));
+        assertEquals(1, registry.sessionCount());
+    }
+
+    @Test
+    void unregister_shouldForgetUserWithoutSessions() {
+        // Given
+        registry.register("user-1", session("s1"));
+
+        // When
+        registry.unregister("user-1", "s1");
+        registry.unregister("user-1", "s1");
+
+        // Then
+        assertFalse(registry.isConnected("user-1"));
+        assertTrue(registry.sessionsOf("user-1").isEmpty());
+        assertEquals(0, registry.sessionCount());
+        assertEquals(0, registry.userCount());
+    }
+
+    private OutboundSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return new OutboundSession(session, 10, OverflowPolicy.COALESCE, Runnable::run, metrics);
+    }
+}
@@ -0,0 +1,88 @@
+package com.planify.notification.websocket;
+
+import com.planify.notification.service.OrganizationAdminStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketTopicAccessTest {
+
+    @Mock
+    private OrganizationAdminStore organizationAdminStore;
+
+    private WebSocketTopicAccess topicAccess;
+
+    @BeforeEach
+    void setUp() {
+        topicAccess = new WebSocketTopicAccess(organizationAdminStore);
+    }
+
+    @Test
+    void canSubscribe_shouldAllowOrganizationAdmin() {
+        // Given
+        UUID organizationId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(organizationAdminStore.isAdmin(organizationId, userId)).thenReturn(true);
+
+        // When
+        boolean allowed = topicAccess.canSubscribe(userId.toString(), WebSocketTopicAccess.organizationTopic(organizationId));
+
+        // Then
+        assertTrue(allowed);
+    }
+
+    @Test
+    void canSubscribe_shouldRefuseNonAdmin() {
+        // Given
+        UUID organizationId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(organizationAdminStore.isAdmin(organizationId, userId)).thenReturn(false);
+
+        // When
+        boolean allowed = topicAccess.canSubscribe(userId.toString(), WebSocketTopicAccess.organizationTopic(organizationId));
+
+        // Then
+        assertFalse(allowed);
+    }
+
+    @Test
+    void canSubscribe_shouldRefuseUnknownOrMalformedTopic() {
+        // Given
+        String userId = UUID.randomUUID().toString();
+
+        // When / Then
+        assertFalse(topicAccess.canSubscribe(userId, "user:" + userId));
+        assertFalse(topicAccess.canSubscribe(userId, "organization:42"));
+        verify(organizationAdminStore, never()).isAdmin(any(), any());
+    }
+
+    @Test
+    void permittedUsers_shouldKeepOnlyCurrentAdmins() {
+        // Given
+        UUID organizationId = UUID.randomUUID();
+        UUID admin = UUID.randomUUID();
+        UUID revoked = UUID.randomUUID();
+        when(organizationAdminStore.adminsAmong(eq(organizationId), anyCollection())).thenReturn(Set.of(admin));
+
+        // When
+        Set<String> permitted = topicAccess.permittedUsers(WebSocketTopicAccess.organizationTopic(organizationId),
+                List.of(admin.toString(), revoked.toString(), "not-a-uuid"));
+
+        // Then
+        assertEquals(Set.of(admin.toString()), permitted);
+        verify(organizationAdminStore).adminsAmong(organizationId, List.of(admin, revoked));
+    }
+}
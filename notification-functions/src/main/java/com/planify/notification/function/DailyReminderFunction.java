@@ -73,14 +73,14 @@ public class DailyReminderFunction {
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 successfulInvocations++;
 
-                // Parse response (should be integer - number of reminders sent)
-                String remindersSent = response.body();
+                // Notification service vrne stanje posla, ki opomnike pošilja v ozadju
+                String reminderJob = response.body();
 
                 successfulInvocations++;
                 logger.info("METRIC: execution_duration_ms=" + executionTime);
-                logger.info("METRIC: reminders_sent=" + remindersSent);
+                logger.info("Reminder job started: " + reminderJob);
                 logger.info("METRIC: success_rate=" + (double)successfulInvocations / totalInvocations * 100);
-                logger.info("Reminders processed successfully in " + executionTime + "ms");
+                logger.info("Reminder job triggered successfully in " + executionTime + "ms");
 
             } else {
                 failedInvocations++;
@@ -144,7 +144,7 @@ public class DailyReminderFunction {
                 Map<String, Object> responseBody = new HashMap<>();
                 responseBody.put("status", "success");
                 responseBody.put("message", "Reminders triggered successfully");
-                responseBody.put("remindersSent", response.body());
+                responseBody.put("reminderJob", response.body());
                 responseBody.put("timestamp", LocalDateTime.now().toString());
                 responseBody.put("durationMs", duration);
                 responseBody.put("invocationCount", totalInvocations);